@@ -0,0 +1,96 @@
+package com.juzi.codesandbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 比较两次 JMH 结果（-rf json），任一基准退化超过允许比例时以非 0 状态退出
+ * <p>
+ * 用法：JmhRegressionGate baseline.json current.json [tolerance] [allowMissing]，基线中不存在的基准只打印不比较；
+ * 基线中的基准没有本次结果（被删除、改名或运行失败）时同样失败，allowMissing 为 true 时只打印警告
+ *
+ * @author codejuzi
+ */
+public class JmhRegressionGate {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JmhRegressionGate <baseline.json> <current.json> [tolerance] [allowMissing]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.isFile()) {
+            System.err.printf("baseline %s not found, copy target/jmh-result.json of a released build there%n", baselineFile);
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        boolean allowMissing = args.length > 3 && Boolean.parseBoolean(args[3]);
+        Map<String, JsonNode> baseline = load(baselineFile);
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode result = entry.getValue();
+            double score = result.path("primaryMetric").path("score").asDouble();
+            String unit = result.path("primaryMetric").path("scoreUnit").asText();
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("NEW   %-80s %14.3f %s%n", entry.getKey(), score, unit);
+                continue;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            // 吞吐量越大越好，其余模式（耗时）越小越好
+            boolean higherIsBetter = "thrpt".equals(result.path("mode").asText());
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore;
+            double regression = higherIsBetter ? -change : change;
+            boolean failed = regression > tolerance;
+            if (failed) {
+                regressions++;
+            }
+            System.out.printf("%-5s %-80s %14.3f -> %14.3f %s (%+.1f%%)%n",
+                    failed ? "FAIL" : "OK", entry.getKey(), baseScore, score, unit, change * 100);
+        }
+        int missing = 0;
+        for (Map.Entry<String, JsonNode> entry : baseline.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                missing++;
+                System.out.printf("%-5s %-80s no current result%n", allowMissing ? "WARN" : "FAIL", entry.getKey());
+            }
+        }
+        boolean gateFailed = false;
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            gateFailed = true;
+        }
+        if (missing > 0 && !allowMissing) {
+            System.err.printf("%d baseline benchmark(s) have no current result, rerun them or update the baseline%n", missing);
+            gateFailed = true;
+        }
+        if (gateFailed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 读取结果文件，按 基准名+参数 索引
+     */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,105 @@
+package com.juzi.codesandbox.check;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感词扫描基准：100 KB 源码在不同词表大小下的扫描耗时
+ * <p>
+ * 对比逐个敏感词 {@link String#indexOf(String)} 的朴素扫描
+ *
+ * @author codejuzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitiveWordScanBenchmark {
+
+    private static final int SOURCE_BYTES = 100 * 1024;
+
+    @Param({"2", "50", "500"})
+    private int wordCount;
+
+    private String code;
+
+    private List<String> words;
+
+    private AhoCorasickMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        code = buildSource();
+        words = buildWords(wordCount);
+        matcher = AhoCorasickMatcher.build(words);
+    }
+
+    @Benchmark
+    public String indexOf() {
+        for (String word : words) {
+            if (code.contains(word)) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String ahoCorasick() {
+        return matcher.match(code);
+    }
+
+    @Benchmark
+    public String ahoCorasickSkipCommentsAndStrings() {
+        return matcher.matchCode(code);
+    }
+
+    /**
+     * 不含敏感词的源码，扫描必须走完整段文本
+     */
+    private static String buildSource() {
+        StringBuilder sb = new StringBuilder("import java.util.*;\n\npublic class Main {\n");
+        int method = 0;
+        while (sb.length() < SOURCE_BYTES) {
+            sb.append("    // compute prefix sums for block ").append(method).append('\n')
+                    .append("    static long solve").append(method).append("(int[] values, Scanner scanner) {\n")
+                    .append("        long[] prefix = new long[values.length + 1];\n")
+                    .append("        for (int i = 0; i < values.length; i++) {\n")
+                    .append("            prefix[i + 1] = prefix[i] + values[i];\n")
+                    .append("        }\n")
+                    .append("        String label = \"block-").append(method).append(" total\";\n")
+                    .append("        return prefix[values.length] + label.length();\n")
+                    .append("    }\n\n");
+            method++;
+        }
+        return sb.append("}\n").toString();
+    }
+
+    /**
+     * 默认词表加上生成的类名、方法名风格的敏感词
+     */
+    private static List<String> buildWords(int count) {
+        List<String> words = new ArrayList<>();
+        words.add("exec");
+        words.add("Files");
+        for (int i = words.size(); i < count; i++) {
+            words.add("Forbidden" + Integer.toString(i * 7919, 36) + ".invoke");
+        }
+        return words;
+    }
+}
@@ -0,0 +1,91 @@
+package com.juzi.codesandbox.compile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译基准：进程内编译与命中编译产物缓存的耗时
+ *
+ * @author codejuzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompileBenchmark {
+
+    private static final String CODE = "import java.util.*;\n\n"
+            + "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        Scanner scanner = new Scanner(System.in);\n"
+            + "        int a = scanner.nextInt(), b = scanner.nextInt();\n"
+            + "        List<Integer> list = new ArrayList<>();\n"
+            + "        list.add(a + b);\n"
+            + "        System.out.println(list.get(0));\n"
+            + "    }\n"
+            + "}\n";
+
+    private static final List<String> OPTIONS = Collections.emptyList();
+
+    private InMemoryJavaCompiler compiler;
+
+    private CompiledClassCache cache;
+
+    @Setup
+    public void setUp() {
+        compiler = new InMemoryJavaCompiler();
+        ReflectionTestUtils.setField(compiler, "COMPILER_THREADS", 1);
+        ReflectionTestUtils.setField(compiler, "QUEUE_SIZE", 64);
+        compiler.init();
+        cache = new CompiledClassCache();
+        ReflectionTestUtils.setField(cache, "ENABLED", true);
+        ReflectionTestUtils.setField(cache, "MAX_MEMORY_BYTES", 67108864L);
+        ReflectionTestUtils.setField(cache, "MAX_ENTRIES", 10000);
+        ReflectionTestUtils.setField(cache, "DISK_ENABLED", false);
+        cache.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        compiler.destroy();
+    }
+
+    @Benchmark
+    public Map<String, byte[]> compile() {
+        return doCompile();
+    }
+
+    /**
+     * 相同代码重复提交：计算缓存键并命中内存缓存
+     */
+    @Benchmark
+    public Map<String, byte[]> cachedCompile() {
+        String key = cache.buildKey("java", OPTIONS, CODE);
+        return cache.getOrCompile(key, this::doCompile);
+    }
+
+    private Map<String, byte[]> doCompile() {
+        CompileResult compileResult = compiler.compile("Main", CODE, OPTIONS);
+        if (!compileResult.isSuccess()) {
+            throw new IllegalStateException("Compile Error!");
+        }
+        return compileResult.getClassBytes();
+    }
+}
@@ -0,0 +1,65 @@
+package com.juzi.codesandbox.exec;
+
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getOutputResponse 基准：整理各用例执行信息为响应
+ *
+ * @author codejuzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputResponseBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int caseCount;
+
+    @Param({"16", "65536"})
+    private int outputLength;
+
+    private JavaNativeAcmCodeSandbox codeSandbox;
+
+    private List<ExecuteMessage> executeMessageList;
+
+    @Setup
+    public void setUp() {
+        codeSandbox = new JavaNativeAcmCodeSandbox();
+        String output = StringUtils.repeat('7', outputLength);
+        executeMessageList = new ArrayList<>(caseCount);
+        for (int i = 0; i < caseCount; i++) {
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(0);
+            executeMessage.setMessage(output);
+            executeMessage.setTime((long) i);
+            executeMessage.setCpuTime((long) i);
+            executeMessage.setMemory(1024L * i);
+            executeMessageList.add(executeMessage);
+        }
+    }
+
+    @Benchmark
+    public ExecuteCodeResponse getOutputResponse() {
+        return codeSandbox.getOutputResponse(executeMessageList);
+    }
+}
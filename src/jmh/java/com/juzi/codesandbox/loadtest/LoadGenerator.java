@@ -0,0 +1,384 @@
+package com.juzi.codesandbox.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_HEADER;
+import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_SECRET;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.OUTPUT_LIMIT_EXCEEDED;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.SUCCESS;
+
+/**
+ * 压测工具：按权重回放提交语料，请求 /exec_code，输出吞吐量、延迟分位数和错误率（JSON）
+ * <p>
+ * rate 为 0 时为闭环压测，concurrency 个线程各自连续发送请求；rate 大于 0 时为开环压测，
+ * 按固定速率到达，延迟从计划发送时间开始计算，包含在本地排队的时间。
+ * <p>
+ * 参数（--key=value）：url、corpus（默认 classpath:loadtest/corpus.json）、concurrency、rate(次/秒)、
+ * duration(秒)、warmup(秒)、seed、out（结果文件，默认只输出到控制台）
+ *
+ * @author codejuzi
+ */
+public class LoadGenerator {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    private static final int READ_TIMEOUT = 120000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String url = options.getOrDefault("url", "http://127.0.0.1:8888") + "/exec_code";
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<CorpusEntry> corpus = loadCorpus(options.getOrDefault("corpus", "classpath:loadtest/corpus.json"));
+
+        LoadGenerator generator = new LoadGenerator(new URL(url), corpus, concurrency, rate, seed);
+        if (warmupSeconds > 0) {
+            System.err.printf("warmup %ds ...%n", warmupSeconds);
+            generator.run(warmupSeconds, new Recorder());
+        }
+        System.err.printf("measure %ds: concurrency=%d rate=%s ...%n", durationSeconds, concurrency,
+                rate > 0 ? rate + "/s" : "closed-loop");
+        Recorder recorder = new Recorder();
+        long elapsedNanos = generator.run(durationSeconds, recorder);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("url", url);
+        report.put("concurrency", concurrency);
+        report.put("rate", rate);
+        report.put("durationSeconds", elapsedNanos / 1e9);
+        report.putAll(recorder.report(elapsedNanos));
+        String json = OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        System.out.println(json);
+        if (options.containsKey("out")) {
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(options.get("out")), report);
+        }
+        System.exit(0);
+    }
+
+    private final URL url;
+
+    private final List<CorpusEntry> corpus;
+
+    private final int concurrency;
+
+    private final double rate;
+
+    private final long seed;
+
+    /**
+     * 各语料的累计权重，用于按权重随机选择
+     */
+    private final int[] cumulativeWeights;
+
+    private LoadGenerator(URL url, List<CorpusEntry> corpus, int concurrency, double rate, long seed) {
+        this.url = url;
+        this.corpus = corpus;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.seed = seed;
+        this.cumulativeWeights = new int[corpus.size()];
+        int total = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            total += corpus.get(i).weight;
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * 发送请求直到持续时间结束，并等待已发送的请求完成
+     *
+     * @return 实际耗时(ns)
+     */
+    private long run(long durationSeconds, Recorder recorder) throws InterruptedException {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "load_thread_" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        if (rate > 0) {
+            // 开环：按计划时间提交，线程不足时在线程池队列中排队
+            Random random = new Random(seed);
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            for (long scheduled = start; scheduled < deadline; scheduled += intervalNanos) {
+                long waitNanos = scheduled - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                CorpusEntry entry = pick(random);
+                long intendedStart = scheduled;
+                executor.execute(() -> send(entry, intendedStart, recorder));
+            }
+        } else {
+            // 闭环：每个线程连续发送
+            for (int i = 0; i < concurrency; i++) {
+                Random random = new Random(seed + i);
+                executor.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(pick(random), System.nanoTime(), recorder);
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(durationSeconds + READ_TIMEOUT / 1000 + 60, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private CorpusEntry pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return corpus.get(i);
+            }
+        }
+        return corpus.get(corpus.size() - 1);
+    }
+
+    private void send(CorpusEntry entry, long startNanos, Recorder recorder) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty(AUTH_REQUEST_HEADER, AUTH_REQUEST_SECRET);
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(entry.body);
+            }
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                readFully(connection.getErrorStream());
+                recorder.recordError(entry, status == 429 ? Recorder.REJECTED : Recorder.HTTP_ERROR);
+                return;
+            }
+            ExecuteCodeResponse response = OBJECT_MAPPER.readValue(readFully(connection.getInputStream()),
+                    ExecuteCodeResponse.class);
+            recorder.record(entry, classify(response), System.nanoTime() - startNanos);
+        } catch (IOException e) {
+            recorder.recordError(entry, Recorder.HTTP_ERROR);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * 按响应归类：AC、CE、TLE、OLE、RE
+     */
+    static String classify(ExecuteCodeResponse response) {
+        if (SUCCESS.getValue().equals(response.getStatus())) {
+            return "AC";
+        }
+        String message = response.getMessage();
+        if (response.getCompileDiagnostics() != null || (message != null && message.startsWith("Compile"))) {
+            return "CE";
+        }
+        if (TIME_OUT_MESSAGE.equals(message)) {
+            return "TLE";
+        }
+        if (OUTPUT_LIMIT_EXCEEDED.equals(message)) {
+            return "OLE";
+        }
+        return "RE";
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            return new byte[0];
+        }
+        try (InputStream is = inputStream) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                output.write(buffer, 0, len);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Illegal argument: " + arg + ", expected --key=value");
+            }
+            int index = arg.indexOf('=');
+            options.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+
+    private static List<CorpusEntry> loadCorpus(String location) throws IOException {
+        JsonNode root;
+        if (location.startsWith("classpath:")) {
+            String path = location.substring("classpath:".length());
+            try (InputStream is = LoadGenerator.class.getClassLoader().getResourceAsStream(path)) {
+                if (is == null) {
+                    throw new IOException("Corpus not found: " + location);
+                }
+                root = OBJECT_MAPPER.readTree(is);
+            }
+        } else {
+            root = OBJECT_MAPPER.readTree(new File(location));
+        }
+        List<CorpusEntry> corpus = new ArrayList<>();
+        for (JsonNode node : root) {
+            corpus.add(new CorpusEntry(node.path("name").asText(), node.path("expect").asText(),
+                    node.path("weight").asInt(1), OBJECT_MAPPER.writeValueAsBytes(node.path("request"))));
+        }
+        if (corpus.isEmpty()) {
+            throw new IllegalArgumentException("Corpus is empty: " + location);
+        }
+        return corpus;
+    }
+
+    /**
+     * 一条语料：请求体和预期结果
+     */
+    private static class CorpusEntry {
+
+        private final String name;
+
+        private final String expect;
+
+        private final int weight;
+
+        private final byte[] body;
+
+        private CorpusEntry(String name, String expect, int weight, byte[] body) {
+            this.name = name;
+            this.expect = expect;
+            this.weight = weight;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 记录每个请求的延迟与结果
+     */
+    private static class Recorder {
+
+        private static final String HTTP_ERROR = "http";
+
+        private static final String REJECTED = "rejected";
+
+        private final Map<String, Stats> byName = new LinkedHashMap<>();
+
+        private final Stats total = new Stats();
+
+        synchronized void record(CorpusEntry entry, String verdict, long latencyNanos) {
+            boolean unexpected = !entry.expect.equals(verdict);
+            total.add(latencyNanos, unexpected);
+            byName.computeIfAbsent(entry.name, key -> new Stats()).add(latencyNanos, unexpected);
+        }
+
+        synchronized void recordError(CorpusEntry entry, String type) {
+            total.addError(type);
+            byName.computeIfAbsent(entry.name, key -> new Stats()).addError(type);
+        }
+
+        synchronized Map<String, Object> report(long elapsedNanos) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("throughput", total.count / (elapsedNanos / 1e9));
+            report.putAll(total.report());
+            Map<String, Object> corpus = new LinkedHashMap<>();
+            byName.forEach((name, stats) -> corpus.put(name, stats.report()));
+            report.put("corpus", corpus);
+            return report;
+        }
+    }
+
+    private static class Stats {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private long unexpected;
+
+        private long httpErrors;
+
+        private long rejected;
+
+        void add(long latencyNanos, boolean unexpected) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (unexpected) {
+                this.unexpected++;
+            }
+        }
+
+        void addError(String type) {
+            if (Recorder.REJECTED.equals(type)) {
+                rejected++;
+            } else {
+                httpErrors++;
+            }
+        }
+
+        Map<String, Object> report() {
+            long requests = count + httpErrors + rejected;
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", requests);
+            report.put("completed", count);
+            report.put("unexpected", unexpected);
+            report.put("rejected", rejected);
+            report.put("httpErrors", httpErrors);
+            report.put("errorRate", requests == 0 ? 0.0 : (double) (unexpected + rejected + httpErrors) / requests);
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("mean", count == 0 ? 0.0 : Arrays.stream(sorted).average().orElse(0) / 1e6);
+            latency.put("p50", percentile(sorted, 0.50));
+            latency.put("p95", percentile(sorted, 0.95));
+            latency.put("p99", percentile(sorted, 0.99));
+            latency.put("p999", percentile(sorted, 0.999));
+            latency.put("max", count == 0 ? 0.0 : sorted[count - 1] / 1e6);
+            report.put("latencyMillis", latency);
+            return report;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
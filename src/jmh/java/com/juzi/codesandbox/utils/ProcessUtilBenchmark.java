@@ -0,0 +1,51 @@
+package com.juzi.codesandbox.utils;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程输出读取基准：子进程输出 1 KB ~ 100 MB 时 {@link ProcessUtil} 的读取、拼接耗时
+ * <p>
+ * 输出由 yes | head 产生，包含进程启动开销，需要在 Linux 上运行
+ *
+ * @author codejuzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProcessUtilBenchmark {
+
+    @Param({"1024", "1048576", "16777216", "104857600"})
+    private long outputBytes;
+
+    @Benchmark
+    public ExecuteMessage runProcess() throws IOException {
+        Process process = start();
+        return ProcessUtil.getRunProcessMessage("Benchmark", process, 60000L, outputBytes);
+    }
+
+    @Benchmark
+    public ExecuteMessage interactProcess() throws IOException {
+        Process process = start();
+        return ProcessUtil.getInteractProcessMessage(process, "", outputBytes);
+    }
+
+    private Process start() throws IOException {
+        return new ProcessBuilder("sh", "-c", "yes 0123456789abcdef | head -c " + outputBytes).start();
+    }
+}
@@ -0,0 +1,85 @@
+package com.juzi.codesandbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_FILE_NAME;
+
+/**
+ * save2File / clearFile 基准：写入源码和编译产物后归还工作目录
+ * <p>
+ * shm 使用 /dev/shm 下的工作目录，disk 使用临时目录
+ *
+ * @author codejuzi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkspaceBenchmark {
+
+    @Param({"shm", "disk"})
+    private String storage;
+
+    private File root;
+
+    private WorkspaceManager workspaceManager;
+
+    private byte[] source;
+
+    private byte[] classFile;
+
+    @Setup
+    public void setUp() {
+        String parent = "shm".equals(storage) ? "/dev/shm" : System.getProperty("java.io.tmpdir");
+        root = new File(parent, "code-sandbox-jmh");
+        workspaceManager = new WorkspaceManager();
+        ReflectionTestUtils.setField(workspaceManager, "ROOT", root.getAbsolutePath());
+        ReflectionTestUtils.setField(workspaceManager, "QUOTA", 268435456L);
+        ReflectionTestUtils.setField(workspaceManager, "MAX_SIZE", 16777216L);
+        ReflectionTestUtils.setField(workspaceManager, "MAX_IDLE", 64);
+        workspaceManager.init();
+        source = buildSource().getBytes(StandardCharsets.UTF_8);
+        classFile = new byte[2048];
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtil.del(root);
+    }
+
+    @Benchmark
+    public Workspace saveAndClear() {
+        Workspace workspace = workspaceManager.acquire();
+        workspace.putFile(GLOBAL_CODE_FILE_NAME, source);
+        workspace.putFile("Main.class", classFile);
+        workspaceManager.release(workspace);
+        return workspace;
+    }
+
+    private static String buildSource() {
+        StringBuilder sb = new StringBuilder("import java.util.*;\n\npublic class Main {\n");
+        for (int i = 0; i < 100; i++) {
+            sb.append("    static int f").append(i).append("(int x) { return x * ").append(i).append("; }\n");
+        }
+        return sb.append("}\n").toString();
+    }
+}
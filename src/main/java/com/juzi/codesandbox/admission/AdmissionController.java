@@ -0,0 +1,353 @@
+package com.juzi.codesandbox.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 提交准入控制
+ * <p>
+ * 同时执行的提交数由每次执行的 CPU、内存预算推算，超出的提交进入有界的等待队列（先到先得），
+ * 队列已满或等待超过最长排队时间时拒绝，由调用方返回 429 并提示重试时间。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    @Value("${oj.sandbox.admission.enabled:true}")
+    private boolean ENABLED;
+
+    /**
+     * 同时执行的提交数上限，0 表示按 CPU、内存预算推算
+     */
+    @Value("${oj.sandbox.admission.max-concurrent:0}")
+    private int MAX_CONCURRENT;
+
+    /**
+     * 每次执行占用的 CPU 核数
+     */
+    @Value("${oj.sandbox.admission.cpu-per-run:1.0}")
+    private double CPU_PER_RUN;
+
+    /**
+     * 每次执行占用的内存(byte)，默认为容器内存限制加上 JVM 开销
+     */
+    @Value("${oj.sandbox.admission.memory-per-run:268435456}")
+    private long MEMORY_PER_RUN;
+
+    /**
+     * 可用于执行的内存(byte)，0 表示物理内存的 80%
+     */
+    @Value("${oj.sandbox.admission.memory-budget:0}")
+    private long MEMORY_BUDGET;
+
+    /**
+     * 等待队列长度
+     */
+    @Value("${oj.sandbox.admission.queue-size:50}")
+    private int QUEUE_SIZE;
+
+    /**
+     * 最长排队时间(ms)
+     */
+    @Value("${oj.sandbox.admission.max-queue-time:10000}")
+    private long MAX_QUEUE_TIME;
+
+    /**
+     * 执行耗时滑动平均的权重
+     */
+    private static final double SERVICE_TIME_ALPHA = 0.2;
+
+    private static final Permit NOOP_PERMIT = new Permit(null, 0L);
+
+    private int limit;
+
+    private Semaphore semaphore;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger peakQueued = new AtomicInteger();
+
+    private final AtomicLong admittedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * 执行耗时的指数滑动平均(ms)，用于估算 Retry-After
+     */
+    private volatile double avgServiceMillis = 1000D;
+
+    @PostConstruct
+    public void init() {
+        limit = MAX_CONCURRENT > 0 ? MAX_CONCURRENT : computeLimit();
+        // 公平模式，排队的提交按到达顺序获得许可
+        semaphore = new Semaphore(limit, true);
+        log.info("admission control enabled: {}, max concurrent: {}, queue size: {}", ENABLED, limit, QUEUE_SIZE);
+    }
+
+    /**
+     * 申请执行许可，需要排队时阻塞等待
+     *
+     * @return 许可，执行结束后关闭
+     * @throws AdmissionRejectedException 队列已满或排队超时
+     */
+    public Permit acquire() {
+        if (!ENABLED) {
+            return NOOP_PERMIT;
+        }
+        long start = System.nanoTime();
+        try {
+            if (!semaphore.tryAcquire(0L, TimeUnit.MILLISECONDS)) {
+                int depth = queued.incrementAndGet();
+                try {
+                    if (depth > QUEUE_SIZE) {
+                        throw reject("Sandbox is busy: admission queue is full");
+                    }
+                    peakQueued.accumulateAndGet(depth, Math::max);
+                    if (!semaphore.tryAcquire(MAX_QUEUE_TIME, TimeUnit.MILLISECONDS)) {
+                        throw reject("Sandbox is busy: queued for more than " + MAX_QUEUE_TIME + " ms");
+                    }
+                } finally {
+                    queued.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return admitted(start);
+    }
+
+    private Permit admitted(long start) {
+        long waitNanos = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        admittedCount.incrementAndGet();
+        return new Permit(this, System.nanoTime());
+    }
+
+    /**
+     * 不等待地预约执行许可（异步执行），调用线程不阻塞
+     * <p>
+     * 有空闲许可时直接取得；否则占用等待队列中的一个位置，由执行线程调用 {@link Reservation#await()} 等待许可，
+     * 已接纳的异步任务不会因排队超时被拒绝
+     *
+     * @return 预约，取得许可前放弃时需调用 {@link Reservation#cancel()}
+     * @throws AdmissionRejectedException 等待队列已满
+     */
+    public Reservation reserve() {
+        if (!ENABLED) {
+            return new Reservation(this, NOOP_PERMIT);
+        }
+        if (semaphore.tryAcquire()) {
+            admittedCount.incrementAndGet();
+            return new Reservation(this, new Permit(this, System.nanoTime()));
+        }
+        int depth = queued.incrementAndGet();
+        if (depth > QUEUE_SIZE) {
+            queued.decrementAndGet();
+            throw reject("Sandbox is busy: admission queue is full");
+        }
+        peakQueued.accumulateAndGet(depth, Math::max);
+        return new Reservation(this, null);
+    }
+
+    /**
+     * 申请执行许可，不设排队超时，也不占用等待队列（批量执行）
+     * <p>
+     * 批量请求整体已被接纳，在途数由批量流水线限制，逐个提交时只等待许可形成背压
+     *
+     * @return 许可，执行结束后关闭
+     * @throws AdmissionRejectedException 等待期间线程被中断
+     */
+    public Permit acquireWithoutTimeout() {
+        if (!ENABLED) {
+            return NOOP_PERMIT;
+        }
+        long start = System.nanoTime();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Sandbox is busy: interrupted while waiting for admission");
+        }
+        return admitted(start);
+    }
+
+    /**
+     * 建议的重试间隔：按平均执行耗时估算排队中的提交全部完成所需时间
+     */
+    public long getRetryAfterSeconds() {
+        double millis = avgServiceMillis * (queued.get() + 1) / Math.max(1, limit);
+        return Math.max(1L, (long) Math.ceil(millis / 1000D));
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getRunning() {
+        return limit - semaphore.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getPeakQueued() {
+        return peakQueued.get();
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public double getAvgWaitMillis() {
+        long admitted = admittedCount.get();
+        return admitted == 0 ? 0D : totalWaitNanos.get() / 1e6 / admitted;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    public double getAvgServiceMillis() {
+        return avgServiceMillis;
+    }
+
+    private AdmissionRejectedException reject(String message) {
+        rejectedCount.incrementAndGet();
+        return new AdmissionRejectedException(message, getRetryAfterSeconds());
+    }
+
+    private void release(long admitTime) {
+        double serviceMillis = (System.nanoTime() - admitTime) / 1e6;
+        avgServiceMillis += SERVICE_TIME_ALPHA * (serviceMillis - avgServiceMillis);
+        semaphore.release();
+    }
+
+    /**
+     * 按 CPU、内存预算推算并发上限，取两者较小值
+     */
+    private int computeLimit() {
+        int cpuLimit = (int) Math.floor(Runtime.getRuntime().availableProcessors() / CPU_PER_RUN);
+        long memoryBudget = MEMORY_BUDGET > 0 ? MEMORY_BUDGET : defaultMemoryBudget();
+        int memoryLimit = memoryBudget > 0 ? (int) Math.min(Integer.MAX_VALUE, memoryBudget / MEMORY_PER_RUN) : Integer.MAX_VALUE;
+        return Math.max(1, Math.min(cpuLimit, memoryLimit));
+    }
+
+    private static long defaultMemoryBudget() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getTotalPhysicalMemorySize() / 10 * 8;
+        }
+        return 0L;
+    }
+
+    /**
+     * 异步执行的许可预约：已取得许可，或占用着等待队列中的一个位置
+     */
+    public static class Reservation {
+
+        private final AdmissionController controller;
+
+        private final long reserveTime = System.nanoTime();
+
+        private Permit permit;
+
+        private boolean cancelled;
+
+        private Reservation(AdmissionController controller, Permit permit) {
+            this.controller = controller;
+            this.permit = permit;
+        }
+
+        /**
+         * 在执行线程中等待许可，不设超时
+         *
+         * @return 许可，执行结束后关闭
+         * @throws AdmissionRejectedException 等待期间线程被中断（服务关闭）
+         */
+        public synchronized Permit await() {
+            if (permit != null) {
+                return permit;
+            }
+            if (cancelled) {
+                throw new IllegalStateException("Reservation is cancelled");
+            }
+            try {
+                controller.semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw controller.reject("Sandbox is busy: interrupted while waiting for admission");
+            }
+            controller.queued.decrementAndGet();
+            permit = controller.admitted(reserveTime);
+            return permit;
+        }
+
+        /**
+         * 放弃预约：归还已取得的许可，或让出等待队列中的位置
+         */
+        public synchronized void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (permit != null) {
+                permit.close();
+            } else {
+                controller.queued.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 执行许可，关闭时归还
+     */
+    public static class Permit implements AutoCloseable {
+
+        private final AdmissionController controller;
+
+        private final long admitTime;
+
+        private boolean closed;
+
+        private Permit(AdmissionController controller, long admitTime) {
+            this.controller = controller;
+            this.admitTime = admitTime;
+        }
+
+        @Override
+        public void close() {
+            if (controller == null || closed) {
+                return;
+            }
+            closed = true;
+            controller.release(admitTime);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.juzi.codesandbox.admission;
+
+import lombok.Getter;
+
+/**
+ * 沙箱繁忙，提交未被接纳
+ *
+ * @author codejuzi
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    /**
+     * 建议的重试间隔(s)
+     */
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
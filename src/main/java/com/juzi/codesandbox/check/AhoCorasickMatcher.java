@@ -0,0 +1,307 @@
+package com.juzi.codesandbox.check;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 基于 Aho-Corasick 自动机的多模式匹配器，构建后不可变，可被多个线程共享
+ * <p>
+ * 构建时把失配链接展开为完整的状态转移表，扫描时每个字符只查一次表，耗时与敏感词数量无关。
+ * 字符先映射为紧凑的字符类，敏感词中未出现的字符统一归入 0 类，转移回根状态；
+ * 表中直接存放下一个状态的行偏移，有敏感词结束的状态存为 -(偏移 + 1)，扫描时只需判断符号。
+ *
+ * @author codejuzi
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+
+    private static final int NO_OUTPUT = -1;
+
+    /**
+     * 字符 => 字符类，超出数组长度的字符属于 0 类
+     */
+    private final int[] charClass;
+
+    /**
+     * 字符类数量（含 0 类）
+     */
+    private final int alphabetSize;
+
+    /**
+     * 状态转移表：状态行偏移 + 字符类 => 下一个状态的行偏移，有输出的状态取 -(偏移 + 1)
+     */
+    private final int[] transitions;
+
+    /**
+     * 状态 => 在该状态结束的敏感词下标（含失配链接上的后缀），没有则为 -1
+     */
+    private final int[] outputs;
+
+    private final String[] words;
+
+    private AhoCorasickMatcher(int[] charClass, int alphabetSize, int[] transitions, int[] outputs, String[] words) {
+        this.charClass = charClass;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.words = words;
+    }
+
+    /**
+     * 构建匹配器，忽略空白的敏感词
+     *
+     * @param words 敏感词
+     * @return 匹配器
+     */
+    public static AhoCorasickMatcher build(Collection<String> words) {
+        Set<String> distinctWords = new LinkedHashSet<>();
+        int totalChars = 0;
+        char maxChar = 0;
+        for (String word : words) {
+            if (word == null || (word = word.trim()).isEmpty() || !distinctWords.add(word)) {
+                continue;
+            }
+            totalChars += word.length();
+            for (int i = 0; i < word.length(); i++) {
+                maxChar = (char) Math.max(maxChar, word.charAt(i));
+            }
+        }
+
+        // 1、字符类
+        int[] charClass = new int[distinctWords.isEmpty() ? 0 : maxChar + 1];
+        int alphabetSize = 1;
+        for (String word : distinctWords) {
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (charClass[c] == 0) {
+                    charClass[c] = alphabetSize++;
+                }
+            }
+        }
+
+        // 2、字典树，-1 表示没有边
+        int maxStates = totalChars + 1;
+        int[] transitions = new int[maxStates * alphabetSize];
+        Arrays.fill(transitions, -1);
+        int[] outputs = new int[maxStates];
+        Arrays.fill(outputs, NO_OUTPUT);
+        String[] wordArray = distinctWords.toArray(new String[0]);
+        int stateCount = 1;
+        for (int w = 0; w < wordArray.length; w++) {
+            int state = ROOT;
+            String word = wordArray[w];
+            for (int i = 0; i < word.length(); i++) {
+                int index = state * alphabetSize + charClass[word.charAt(i)];
+                if (transitions[index] < 0) {
+                    transitions[index] = stateCount++;
+                }
+                state = transitions[index];
+            }
+            if (outputs[state] == NO_OUTPUT) {
+                outputs[state] = w;
+            }
+        }
+
+        // 3、按层展开失配链接，得到完整的转移表
+        int[] fail = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = transitions[c];
+            if (next < 0) {
+                transitions[c] = ROOT;
+            } else {
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (outputs[state] == NO_OUTPUT) {
+                outputs[state] = outputs[fail[state]];
+            }
+            int base = state * alphabetSize;
+            int failBase = fail[state] * alphabetSize;
+            for (int c = 0; c < alphabetSize; c++) {
+                int next = transitions[base + c];
+                if (next < 0) {
+                    transitions[base + c] = transitions[failBase + c];
+                } else {
+                    fail[next] = transitions[failBase + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        // 4、状态编号换成行偏移
+        int[] table = Arrays.copyOf(transitions, stateCount * alphabetSize);
+        for (int i = 0; i < table.length; i++) {
+            int next = table[i];
+            table[i] = outputs[next] == NO_OUTPUT ? next * alphabetSize : -(next * alphabetSize) - 1;
+        }
+        return new AhoCorasickMatcher(charClass, alphabetSize, table, Arrays.copyOf(outputs, stateCount), wordArray);
+    }
+
+    /**
+     * 在整段文本中查找最先结束的敏感词
+     *
+     * @param text 文本
+     * @return 敏感词，没有则为 null
+     */
+    public String match(CharSequence text) {
+        if (words.length == 0) {
+            return null;
+        }
+        int[] charClass = this.charClass;
+        int[] transitions = this.transitions;
+        int offset = ROOT;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            offset = transitions[offset + (c < charClass.length ? charClass[c] : 0)];
+            if (offset < 0) {
+                return outputWord(offset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找 Java 风格源码中最先结束的敏感词，跳过注释、字符串和字符字面量
+     * <p>
+     * 注释、字面量中出现 Unicode 转义时，javac 的解析结果可能与这里不同（如用换行的 Unicode 转义结束单行注释），
+     * 此时退回整段扫描
+     *
+     * @param code 源码
+     * @return 敏感词，没有则为 null
+     */
+    public String matchCode(CharSequence code) {
+        if (words.length == 0) {
+            return null;
+        }
+        int[] charClass = this.charClass;
+        int[] transitions = this.transitions;
+        int offset = ROOT;
+        int n = code.length();
+        int i = 0;
+        while (i < n) {
+            char c = code.charAt(i);
+            int end = i;
+            if (c == '/' && i + 1 < n) {
+                char next = code.charAt(i + 1);
+                if (next == '/') {
+                    end = skipLineComment(code, i + 2);
+                } else if (next == '*') {
+                    // 块注释中没有转义，\*/ 同样结束注释
+                    end = skipUntil(code, i + 2, "*/", false);
+                }
+            } else if (c == '"') {
+                end = regionMatches(code, i, "\"\"\"") ? skipUntil(code, i + 3, "\"\"\"", true) : skipQuoted(code, i + 1, c);
+            } else if (c == '\'') {
+                end = skipQuoted(code, i + 1, c);
+            }
+            if (end == i) {
+                offset = transitions[offset + (c < charClass.length ? charClass[c] : 0)];
+                if (offset < 0) {
+                    return outputWord(offset);
+                }
+                i++;
+                continue;
+            }
+            if (end < 0) {
+                return match(code);
+            }
+            // 注释、字面量两侧不会拼成同一个标识符
+            offset = ROOT;
+            i = end;
+        }
+        return null;
+    }
+
+    public int getWordCount() {
+        return words.length;
+    }
+
+    private String outputWord(int offset) {
+        return words[outputs[(-offset - 1) / alphabetSize]];
+    }
+
+    /**
+     * @return 注释结束后的下标，遇到 Unicode 转义时返回 -1
+     */
+    private static int skipLineComment(CharSequence code, int from) {
+        int n = code.length();
+        for (int i = from; i < n; i++) {
+            char c = code.charAt(i);
+            if (c == '\n' || c == '\r') {
+                return i;
+            }
+            if (isUnicodeEscape(code, i)) {
+                return -1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @param escapes \ 是否转义下一个字符（文本块中是，块注释中不是）
+     * @return 结束标记之后的下标，遇到 Unicode 转义时返回 -1
+     */
+    private static int skipUntil(CharSequence code, int from, String terminator, boolean escapes) {
+        int n = code.length();
+        for (int i = from; i < n; i++) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                if (isUnicodeEscape(code, i)) {
+                    return -1;
+                }
+                if (escapes) {
+                    i++;
+                }
+            } else if (c == terminator.charAt(0) && regionMatches(code, i, terminator)) {
+                return i + terminator.length();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return 字面量结束后的下标，遇到 Unicode 转义时返回 -1
+     */
+    private static int skipQuoted(CharSequence code, int from, char quote) {
+        int n = code.length();
+        for (int i = from; i < n; i++) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                if (isUnicodeEscape(code, i)) {
+                    return -1;
+                }
+                i++;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n' || c == '\r') {
+                // 未闭合的字面量，交给编译器报错
+                return i;
+            }
+        }
+        return n;
+    }
+
+    private static boolean isUnicodeEscape(CharSequence code, int i) {
+        return code.charAt(i) == '\\' && i + 1 < code.length() && code.charAt(i + 1) == 'u';
+    }
+
+    private static boolean regionMatches(CharSequence code, int offset, String s) {
+        if (offset + s.length() > code.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (code.charAt(offset + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
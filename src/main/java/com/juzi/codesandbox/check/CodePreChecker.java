@@ -0,0 +1,20 @@
+package com.juzi.codesandbox.check;
+
+/**
+ * 代码预检查，在保存、编译用户代码之前执行
+ * <p>
+ * 注册为 Spring Bean 即可加入检查链，按 {@link org.springframework.core.annotation.Order} 顺序执行
+ *
+ * @author codejuzi
+ */
+public interface CodePreChecker {
+
+    /**
+     * 检查用户代码
+     *
+     * @param code     用户代码
+     * @param language 编程语言
+     * @throws IllegalArgumentException 代码不允许执行
+     */
+    void check(String code, String language);
+}
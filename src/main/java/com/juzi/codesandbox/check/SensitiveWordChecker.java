@@ -0,0 +1,165 @@
+package com.juzi.codesandbox.check;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 敏感词检查
+ * <p>
+ * 敏感词表可以来自 classpath 或外部文件；词表是文件时后台定期检查修改时间，
+ * 变化后重新构建匹配器并整体替换，正在进行的检查继续使用旧的匹配器。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Order(0)
+@Component
+public class SensitiveWordChecker implements CodePreChecker {
+
+    @Value("${oj.sandbox.sensitive-word.enabled:true}")
+    private boolean ENABLED;
+
+    /**
+     * 敏感词表位置，支持 classpath: 和 file: 前缀，每行一个敏感词
+     */
+    @Value("${oj.sandbox.sensitive-word.location:classpath:data/sensitive-word.txt}")
+    private String LOCATION;
+
+    /**
+     * 是否跳过注释、字符串和字符字面量
+     */
+    @Value("${oj.sandbox.sensitive-word.skip-comments-and-strings:false}")
+    private boolean SKIP_COMMENTS_AND_STRINGS;
+
+    /**
+     * 检查词表文件是否变化的间隔(ms)，0 表示不重新加载
+     */
+    @Value("${oj.sandbox.sensitive-word.reload-interval:5000}")
+    private long RELOAD_INTERVAL;
+
+    @javax.annotation.Resource
+    private ResourceLoader resourceLoader;
+
+    private volatile AhoCorasickMatcher matcher;
+
+    /**
+     * 词表文件，不是文件系统中的文件时（如 jar 内资源）为 null，不会重新加载
+     */
+    private File wordFile;
+
+    private long lastModified;
+
+    private long lastLength;
+
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    private ScheduledExecutorService reloadExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED) {
+            return;
+        }
+        Resource resource = resourceLoader.getResource(LOCATION);
+        try {
+            if (resource.isFile()) {
+                wordFile = resource.getFile();
+                lastModified = wordFile.lastModified();
+                lastLength = wordFile.length();
+            }
+            matcher = AhoCorasickMatcher.build(readWords(resource));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        log.info("Sensitive words loaded from {}, count: {}", LOCATION, matcher.getWordCount());
+
+        if (wordFile != null && RELOAD_INTERVAL > 0) {
+            reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sensitive_word_reload_thread");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloadExecutor.scheduleWithFixedDelay(this::reloadIfModified,
+                    RELOAD_INTERVAL, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void check(String code, String language) {
+        AhoCorasickMatcher current = matcher;
+        if (current == null || code == null) {
+            return;
+        }
+        String foundWord = SKIP_COMMENTS_AND_STRINGS ? current.matchCode(code) : current.match(code);
+        if (foundWord != null) {
+            throw new IllegalArgumentException("Code is Illegal with word: [" + foundWord + "]");
+        }
+    }
+
+    /**
+     * 词表文件的修改时间或大小变化时重新加载，加载失败时保留旧的匹配器
+     */
+    public void reloadIfModified() {
+        long modified = wordFile.lastModified();
+        long length = wordFile.length();
+        if (modified == lastModified && length == lastLength) {
+            return;
+        }
+        try {
+            AhoCorasickMatcher newMatcher = AhoCorasickMatcher.build(readWords(resourceLoader.getResource(LOCATION)));
+            matcher = newMatcher;
+            lastModified = modified;
+            lastLength = length;
+            reloadCount.incrementAndGet();
+            log.info("Sensitive words reloaded from {}, count: {}", LOCATION, newMatcher.getWordCount());
+        } catch (Exception e) {
+            log.error("reload sensitive words error：", e);
+        }
+    }
+
+    public int getWordCount() {
+        AhoCorasickMatcher current = matcher;
+        return current == null ? 0 : current.getWordCount();
+    }
+
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    private static List<String> readWords(Resource resource) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                words.add(line);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,29 @@
+package com.juzi.codesandbox.compile;
+
+import javax.tools.SimpleJavaFileObject;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * 编译输出到内存的 class 文件
+ *
+ * @author codejuzi
+ */
+public class ByteArrayJavaFileObject extends SimpleJavaFileObject {
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    public ByteArrayJavaFileObject(String className) {
+        super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+        return outputStream;
+    }
+
+    public byte[] getBytes() {
+        return outputStream.toByteArray();
+    }
+}
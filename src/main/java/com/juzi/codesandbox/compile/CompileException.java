@@ -0,0 +1,27 @@
+package com.juzi.codesandbox.compile;
+
+import com.juzi.codesandbox.model.CompileDiagnostic;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 编译失败异常，携带结构化的编译诊断信息
+ *
+ * @author codejuzi
+ */
+@Getter
+public class CompileException extends RuntimeException {
+
+    private final List<CompileDiagnostic> diagnostics;
+
+    public CompileException(String message) {
+        this(message, Collections.emptyList());
+    }
+
+    public CompileException(String message, List<CompileDiagnostic> diagnostics) {
+        super(message);
+        this.diagnostics = diagnostics;
+    }
+}
@@ -0,0 +1,36 @@
+package com.juzi.codesandbox.compile;
+
+import com.juzi.codesandbox.model.CompileDiagnostic;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译结果
+ *
+ * @author codejuzi
+ */
+@Data
+public class CompileResult {
+
+    /**
+     * 是否编译成功
+     */
+    private boolean success;
+
+    /**
+     * 类的全限定名 => class 字节码
+     */
+    private Map<String, byte[]> classBytes;
+
+    /**
+     * 编译诊断信息
+     */
+    private List<CompileDiagnostic> diagnostics;
+
+    /**
+     * 编译耗时(ms)
+     */
+    private Long time;
+}
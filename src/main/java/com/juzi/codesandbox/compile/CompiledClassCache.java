@@ -0,0 +1,376 @@
+package com.juzi.codesandbox.compile;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.core.util.HexUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_DIR_NAME;
+
+/**
+ * 按内容寻址的编译产物缓存
+ * <p>
+ * 以 语言 + 编译参数 + 源码 的 SHA-256 为key，缓存编译得到的 class 字节码。
+ * 内存层按 LRU 淘汰，可选的磁盘层位于 tmp_code/.class-cache 下；同一个key并发查询时只编译一次。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class CompiledClassCache {
+
+    private static final String CACHE_DIR_NAME = ".class-cache";
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    @Value("${oj.sandbox.class-cache.enabled:true}")
+    private boolean ENABLED;
+
+    /**
+     * 内存层最大字节数
+     */
+    @Value("${oj.sandbox.class-cache.max-memory-bytes:67108864}")
+    private long MAX_MEMORY_BYTES;
+
+    /**
+     * 内存层最大条目数
+     */
+    @Value("${oj.sandbox.class-cache.max-entries:10000}")
+    private int MAX_ENTRIES;
+
+    @Value("${oj.sandbox.class-cache.disk.enabled:false}")
+    private boolean DISK_ENABLED;
+
+    /**
+     * 磁盘层最大字节数
+     */
+    @Value("${oj.sandbox.class-cache.disk.max-bytes:536870912}")
+    private long DISK_MAX_BYTES;
+
+    /**
+     * 内存层：key => 类的全限定名 => 字节码，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Map<String, byte[]>> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBytes = 0L;
+
+    /**
+     * 磁盘层索引：key => 占用字节数，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long diskBytes = 0L;
+
+    /**
+     * 正在编译的key，保证同一个key只编译一次
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, byte[]>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 等待其他线程编译同一份代码而省去的编译次数
+     */
+    private final AtomicLong sharedCompiles = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private File cacheDir;
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED || !DISK_ENABLED) {
+            return;
+        }
+        cacheDir = FileUtil.mkdir(System.getProperty("user.dir") + File.separator
+                + GLOBAL_CODE_DIR_NAME + File.separator + CACHE_DIR_NAME);
+        // 重建磁盘索引，按最近修改时间排列
+        File[] entryDirs = cacheDir.listFiles(File::isDirectory);
+        if (entryDirs == null) {
+            return;
+        }
+        Arrays.sort(entryDirs, Comparator.comparingLong(File::lastModified));
+        synchronized (diskEntries) {
+            for (File entryDir : entryDirs) {
+                if (entryDir.getName().contains(".")) {
+                    // 未完成写入的临时目录
+                    FileUtil.del(entryDir);
+                    continue;
+                }
+                long size = FileUtil.size(entryDir);
+                diskEntries.put(entryDir.getName(), size);
+                diskBytes += size;
+            }
+            evictDisk();
+        }
+        log.info("Load compiled class disk cache, entries: {}, bytes: {}", diskEntries.size(), diskBytes);
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 计算缓存key
+     *
+     * @param language 编程语言
+     * @param options  编译参数
+     * @param code     源码
+     * @return SHA-256 十六进制串
+     */
+    public String buildKey(String language, List<String> options, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(language).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.join("\u0001", options).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexUtil.encodeHexStr(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 查询缓存，未命中时编译并写入缓存；同一个key的并发请求共享同一次编译
+     *
+     * @param key      缓存key
+     * @param compiler 编译过程，返回 类的全限定名 => 字节码，编译失败时抛出异常（不缓存）
+     * @return 类的全限定名 => 字节码
+     */
+    public Map<String, byte[]> getOrCompile(String key, Supplier<Map<String, byte[]>> compiler) {
+        Map<String, byte[]> classBytes = lookup(key);
+        if (classBytes != null) {
+            return classBytes;
+        }
+        CompletableFuture<Map<String, byte[]>> future = new CompletableFuture<>();
+        CompletableFuture<Map<String, byte[]>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // 其他线程正在编译同一份代码，等待其结果
+            sharedCompiles.incrementAndGet();
+            return join(existing);
+        }
+        try {
+            // 占位后再查一次，避免与刚完成的编译错过
+            classBytes = lookup(key);
+            if (classBytes == null) {
+                misses.incrementAndGet();
+                classBytes = compiler.get();
+                put(key, classBytes);
+            }
+            future.complete(classBytes);
+            return classBytes;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSharedCompiles() {
+        return sharedCompiles.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int getMemoryEntries() {
+        synchronized (memoryEntries) {
+            return memoryEntries.size();
+        }
+    }
+
+    public long getMemoryBytes() {
+        synchronized (memoryEntries) {
+            return memoryBytes;
+        }
+    }
+
+    public int getDiskEntries() {
+        synchronized (diskEntries) {
+            return diskEntries.size();
+        }
+    }
+
+    public long getDiskBytes() {
+        synchronized (diskEntries) {
+            return diskBytes;
+        }
+    }
+
+    private Map<String, byte[]> lookup(String key) {
+        synchronized (memoryEntries) {
+            Map<String, byte[]> classBytes = memoryEntries.get(key);
+            if (classBytes != null) {
+                memoryHits.incrementAndGet();
+                return classBytes;
+            }
+        }
+        Map<String, byte[]> classBytes = loadFromDisk(key);
+        if (classBytes != null) {
+            diskHits.incrementAndGet();
+            putMemory(key, classBytes);
+        }
+        return classBytes;
+    }
+
+    private void put(String key, Map<String, byte[]> classBytes) {
+        putMemory(key, classBytes);
+        saveToDisk(key, classBytes);
+    }
+
+    private void putMemory(String key, Map<String, byte[]> classBytes) {
+        long size = sizeOf(classBytes);
+        if (size > MAX_MEMORY_BYTES) {
+            return;
+        }
+        synchronized (memoryEntries) {
+            Map<String, byte[]> previous = memoryEntries.put(key, classBytes);
+            if (previous != null) {
+                memoryBytes -= sizeOf(previous);
+            }
+            memoryBytes += size;
+            Iterator<Map.Entry<String, Map<String, byte[]>>> iterator = memoryEntries.entrySet().iterator();
+            while ((memoryBytes > MAX_MEMORY_BYTES || memoryEntries.size() > MAX_ENTRIES) && iterator.hasNext()) {
+                Map.Entry<String, Map<String, byte[]>> eldest = iterator.next();
+                memoryBytes -= sizeOf(eldest.getValue());
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private Map<String, byte[]> loadFromDisk(String key) {
+        if (cacheDir == null) {
+            return null;
+        }
+        File entryDir = new File(cacheDir, key);
+        synchronized (diskEntries) {
+            if (diskEntries.get(key) == null || !entryDir.isDirectory()) {
+                return null;
+            }
+            // 刷新访问时间，重启后按此重建LRU顺序
+            entryDir.setLastModified(System.currentTimeMillis());
+        }
+        // 读取时不持有锁，期间条目可能被淘汰删除
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        String basePath = entryDir.getAbsolutePath() + File.separator;
+        try {
+            for (File classFile : FileUtil.loopFiles(entryDir, file -> file.getName().endsWith(CLASS_FILE_SUFFIX))) {
+                String relativePath = classFile.getAbsolutePath().substring(basePath.length());
+                String className = relativePath.substring(0, relativePath.length() - CLASS_FILE_SUFFIX.length())
+                        .replace(File.separatorChar, '.');
+                classBytes.put(className, FileUtil.readBytes(classFile));
+            }
+        } catch (IORuntimeException e) {
+            log.warn("read compiled class disk cache {} error: {}", key, e.getMessage());
+            return null;
+        }
+        // 读完后条目仍在索引中且大小一致，才说明没有读到淘汰了一半的目录
+        synchronized (diskEntries) {
+            Long size = diskEntries.get(key);
+            if (classBytes.isEmpty() || size == null || size != sizeOf(classBytes)) {
+                return null;
+            }
+        }
+        return classBytes;
+    }
+
+    private void saveToDisk(String key, Map<String, byte[]> classBytes) {
+        if (cacheDir == null) {
+            return;
+        }
+        try {
+            // 先写临时目录再重命名，避免读到写了一半的缓存
+            File tmpDir = new File(cacheDir, key + "." + Thread.currentThread().getId() + ".tmp");
+            for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+                String classFilePath = entry.getKey().replace('.', File.separatorChar) + CLASS_FILE_SUFFIX;
+                FileUtil.writeBytes(entry.getValue(), new File(tmpDir, classFilePath));
+            }
+            synchronized (diskEntries) {
+                File entryDir = new File(cacheDir, key);
+                if (diskEntries.containsKey(key) || !tmpDir.renameTo(entryDir)) {
+                    FileUtil.del(tmpDir);
+                    return;
+                }
+                long size = sizeOf(classBytes);
+                diskEntries.put(key, size);
+                diskBytes += size;
+                evictDisk();
+            }
+        } catch (Exception e) {
+            log.warn("save compiled class to disk cache error", e);
+        }
+    }
+
+    /**
+     * 调用方需持有 diskEntries 锁
+     */
+    private void evictDisk() {
+        Iterator<Map.Entry<String, Long>> iterator = diskEntries.entrySet().iterator();
+        while (diskBytes > DISK_MAX_BYTES && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            FileUtil.del(new File(cacheDir, eldest.getKey()));
+            diskBytes -= eldest.getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long sizeOf(Map<String, byte[]> classBytes) {
+        long size = 0L;
+        for (byte[] bytes : classBytes.values()) {
+            size += bytes.length;
+        }
+        return size;
+    }
+
+    private static Map<String, byte[]> join(CompletableFuture<Map<String, byte[]>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
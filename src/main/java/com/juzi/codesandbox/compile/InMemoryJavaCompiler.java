@@ -0,0 +1,157 @@
+package com.juzi.codesandbox.compile;
+
+import com.juzi.codesandbox.model.CompileDiagnostic;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StopWatch;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+
+/**
+ * 进程内编译器：通过 javax.tools 在当前 JVM 内编译，源码来自字符串，字节码输出到内存，
+ * 省去每次启动 javac 进程的开销
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class InMemoryJavaCompiler {
+
+    /**
+     * 编译线程数，默认为CPU核数的一半
+     */
+    @Value("${oj.sandbox.compiler.threads:0}")
+    private int COMPILER_THREADS;
+
+    /**
+     * 等待编译的任务数上限，超过后拒绝
+     */
+    @Value("${oj.sandbox.compiler.queue-size:64}")
+    private int QUEUE_SIZE;
+
+    /**
+     * 与 javac 进程编译保持一致：不使用服务自身的类路径（否则能编译通过、执行时找不到类），
+     * 也不在服务 JVM 内运行类路径上的注解处理器
+     */
+    private static final List<String> ISOLATION_OPTIONS = Arrays.asList("-classpath", "", "-proc:none");
+
+    private JavaCompiler javaCompiler;
+
+    private ThreadPoolExecutor compileExecutor;
+
+    /**
+     * 标准文件管理器会缓存类路径和 JDK 类索引，创建代价较高，每个编译线程复用一个
+     */
+    private ThreadLocal<StandardJavaFileManager> fileManagerHolder;
+
+    @PostConstruct
+    public void init() {
+        javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null) {
+            log.warn("System java compiler is not available (running on a JRE?), in-process compile disabled");
+            return;
+        }
+        int threads = COMPILER_THREADS > 0 ? COMPILER_THREADS
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        compileExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE),
+                r -> new Thread(r, "compiler_thread_" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        fileManagerHolder = ThreadLocal.withInitial(
+                () -> javaCompiler.getStandardFileManager(null, null, StandardCharsets.UTF_8));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (compileExecutor != null) {
+            compileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前运行环境是否提供了系统编译器（JRE 中没有）
+     */
+    public boolean isAvailable() {
+        return javaCompiler != null;
+    }
+
+    /**
+     * 在编译线程池中编译源码
+     *
+     * @param className 类的全限定名
+     * @param source    源码
+     * @param options   编译参数
+     * @return 编译结果
+     */
+    public CompileResult compile(String className, String source, List<String> options) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("System java compiler is not available");
+        }
+        Future<CompileResult> future = compileExecutor.submit(() -> doCompile(className, source, options));
+        try {
+            return future.get(TIME_OUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new CompileException("Compile Time out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private CompileResult doCompile(String className, String source, List<String> options) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+        MemoryJavaFileManager fileManager = new MemoryJavaFileManager(fileManagerHolder.get());
+        JavaFileObject sourceFile = new StringJavaFileObject(className, source);
+        List<String> compileOptions = new ArrayList<>(ISOLATION_OPTIONS);
+        compileOptions.addAll(options);
+        Boolean success = javaCompiler.getTask(null, fileManager, diagnosticCollector, compileOptions,
+                null, Collections.singletonList(sourceFile)).call();
+        stopWatch.stop();
+
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnosticCollector.getDiagnostics()) {
+            CompileDiagnostic compileDiagnostic = new CompileDiagnostic();
+            compileDiagnostic.setKind(diagnostic.getKind().name());
+            compileDiagnostic.setLine(diagnostic.getLineNumber());
+            compileDiagnostic.setColumn(diagnostic.getColumnNumber());
+            compileDiagnostic.setMessage(diagnostic.getMessage(null));
+            diagnostics.add(compileDiagnostic);
+        }
+
+        CompileResult compileResult = new CompileResult();
+        compileResult.setSuccess(Boolean.TRUE.equals(success));
+        compileResult.setClassBytes(fileManager.getClassBytes());
+        compileResult.setDiagnostics(diagnostics);
+        compileResult.setTime(stopWatch.getLastTaskTimeMillis());
+        return compileResult;
+    }
+}
@@ -0,0 +1,51 @@
+package com.juzi.codesandbox.compile;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 将编译产物写入内存的文件管理器，类路径等查找仍交给标准文件管理器
+ *
+ * @author codejuzi
+ */
+public class MemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    /**
+     * 类的全限定名 => class 文件
+     */
+    private final Map<String, ByteArrayJavaFileObject> classFileObjects = new LinkedHashMap<>();
+
+    public MemoryJavaFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling) {
+        ByteArrayJavaFileObject fileObject = new ByteArrayJavaFileObject(className);
+        classFileObjects.put(className, fileObject);
+        return fileObject;
+    }
+
+    /**
+     * 标准文件管理器在编译线程内复用，不随本次编译关闭
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 获取编译得到的 class 字节码
+     *
+     * @return 类的全限定名 => 字节码
+     */
+    public Map<String, byte[]> getClassBytes() {
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        classFileObjects.forEach((className, fileObject) -> classBytes.put(className, fileObject.getBytes()));
+        return classBytes;
+    }
+}
@@ -0,0 +1,24 @@
+package com.juzi.codesandbox.compile;
+
+import javax.tools.SimpleJavaFileObject;
+import java.net.URI;
+
+/**
+ * 内存中的 Java 源码
+ *
+ * @author codejuzi
+ */
+public class StringJavaFileObject extends SimpleJavaFileObject {
+
+    private final String source;
+
+    public StringJavaFileObject(String className, String source) {
+        super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+        this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+    }
+}
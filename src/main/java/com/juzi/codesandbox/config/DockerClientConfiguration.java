@@ -0,0 +1,74 @@
+package com.juzi.codesandbox.config;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.juzi.codesandbox.docker.MeteredDockerHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 全局共享的 DockerClient，DockerClient 线程安全，所有沙箱共用同一个连接池
+ *
+ * @author codejuzi
+ */
+@Configuration
+public class DockerClientConfiguration {
+
+    @Value("${oj.docker.host:unix:///var/run/docker.sock}")
+    private String DOCKER_HOST;
+
+    @Value("${oj.docker.api-version:1.43}")
+    private String API_VERSION;
+
+    /**
+     * 连接池最大连接数
+     */
+    @Value("${oj.docker.client.max-connections:100}")
+    private int MAX_CONNECTIONS;
+
+    /**
+     * 建立连接超时时间(ms)
+     */
+    @Value("${oj.docker.client.connect-timeout:5000}")
+    private long CONNECT_TIMEOUT;
+
+    /**
+     * 响应超时时间(ms)，需大于单个用例的执行超时
+     */
+    @Value("${oj.docker.client.response-timeout:60000}")
+    private long RESPONSE_TIMEOUT;
+
+    @Bean
+    public DockerClientConfig dockerClientConfig() {
+        return DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(DOCKER_HOST)
+                .withApiVersion(API_VERSION)
+                .build();
+    }
+
+    /**
+     * 由 DockerClient 负责关闭
+     */
+    @Bean(destroyMethod = "")
+    public MeteredDockerHttpClient dockerHttpClient(DockerClientConfig dockerClientConfig) {
+        ApacheDockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+                .dockerHost(dockerClientConfig.getDockerHost())
+                .sslConfig(dockerClientConfig.getSSLConfig())
+                .maxConnections(MAX_CONNECTIONS)
+                .connectionTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+                .responseTimeout(Duration.ofMillis(RESPONSE_TIMEOUT))
+                .build();
+        return new MeteredDockerHttpClient(httpClient, MAX_CONNECTIONS);
+    }
+
+    @Bean(destroyMethod = "close")
+    public DockerClient dockerClient(DockerClientConfig dockerClientConfig, MeteredDockerHttpClient dockerHttpClient) {
+        return DockerClientImpl.getInstance(dockerClientConfig, dockerHttpClient);
+    }
+}
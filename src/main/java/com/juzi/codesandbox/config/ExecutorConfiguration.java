@@ -0,0 +1,181 @@
+package com.juzi.codesandbox.config;
+
+import com.juzi.codesandbox.utils.ProcessUtil;
+import com.juzi.codesandbox.utils.VirtualThreadUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 沙箱共享线程池
+ * <p>
+ * 开启虚拟线程（oj.sandbox.virtual-threads.enabled，需 JDK 21+）后，各线程池改为每个任务一个虚拟线程，
+ * 同时执行的任务数仍由信号量限制为与平台线程池相同的数量，避免同时运行的用户进程数失控；
+ * Tomcat 处理请求、批量执行的流式响应、进程输出的读取也在虚拟线程中进行。默认使用平台线程。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Configuration
+public class ExecutorConfiguration implements WebMvcConfigurer {
+
+    /**
+     * 是否使用虚拟线程执行阻塞的沙箱任务，JDK 不支持时退回平台线程
+     */
+    @Value("${oj.sandbox.virtual-threads.enabled:false}")
+    private boolean VIRTUAL_THREADS_ENABLED;
+
+    /**
+     * 虚拟线程模式下同时在途的异步提交数上限，超过后返回 503
+     */
+    @Value("${oj.sandbox.virtual-threads.max-in-flight:10000}")
+    private int VIRTUAL_MAX_IN_FLIGHT;
+
+    /**
+     * 异步执行线程数，0 表示CPU核数
+     */
+    @Value("${oj.sandbox.async.threads:0}")
+    private int ASYNC_THREADS;
+
+    /**
+     * 异步执行等待队列长度
+     */
+    @Value("${oj.sandbox.async.queue-size:100}")
+    private int ASYNC_QUEUE_SIZE;
+
+    /**
+     * 虚拟线程模式下 Tomcat、Spring MVC 使用的线程池，由这里负责关闭
+     */
+    private final List<ExecutorService> webExecutors = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        if (VIRTUAL_THREADS_ENABLED && !VirtualThreadUtil.isSupported()) {
+            log.warn("Virtual threads are not supported on JDK {}, fall back to platform threads",
+                    System.getProperty("java.version"));
+        }
+        if (isVirtualThreadsEnabled()) {
+            ProcessUtil.useDrainExecutor(VirtualThreadUtil.newExecutor("process_drain_thread_"));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        webExecutors.forEach(ExecutorService::shutdownNow);
+    }
+
+    /**
+     * 虚拟线程模式下每个 HTTP 请求在一个虚拟线程中处理，不再受 server.tomcat.threads.max 限制
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+        return factory -> {
+            if (isVirtualThreadsEnabled()) {
+                factory.addProtocolHandlerCustomizers(protocolHandler ->
+                        protocolHandler.setExecutor(newWebExecutor("http_request_thread_")));
+            }
+        };
+    }
+
+    /**
+     * 虚拟线程模式下批量执行的流式响应（StreamingResponseBody）在虚拟线程中写出
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (isVirtualThreadsEnabled()) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(newWebExecutor("mvc_async_thread_")));
+        }
+    }
+
+    private synchronized ExecutorService newWebExecutor(String namePrefix) {
+        ExecutorService executor = VirtualThreadUtil.newExecutor(namePrefix);
+        webExecutors.add(executor);
+        return executor;
+    }
+
+    /**
+     * 是否开启了虚拟线程且当前 JDK 支持
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return VIRTUAL_THREADS_ENABLED && VirtualThreadUtil.isSupported();
+    }
+
+    /**
+     * 异步执行提交的线程池，队列满时拒绝，吞吐受执行能力约束而不是 HTTP 线程数
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService sandboxExecutor() {
+        if (isVirtualThreadsEnabled()) {
+            // 准入在提交线程上完成，执行在虚拟线程中阻塞，在途数只受 VIRTUAL_MAX_IN_FLIGHT 约束
+            return VirtualThreadUtil.newExecutor("sandbox_exec_thread_", VIRTUAL_MAX_IN_FLIGHT, false);
+        }
+        int threads = ASYNC_THREADS > 0 ? ASYNC_THREADS : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ASYNC_QUEUE_SIZE),
+                r -> new Thread(r, "sandbox_exec_thread_" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 并行执行测试用例的线程池，线程数为CPU核数，所有提交共享
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService testCaseExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (isVirtualThreadsEnabled()) {
+            return VirtualThreadUtil.newExecutor("test_case_thread_", threads, true);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "test_case_thread_" + threadIndex.incrementAndGet()));
+    }
+
+    /**
+     * 批量执行准备阶段（保存、编译）线程池，在途数量由批量流水线限制
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchPrepareExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        if (isVirtualThreadsEnabled()) {
+            return VirtualThreadUtil.newExecutor("batch_prepare_thread_", threads, true);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "batch_prepare_thread_" + threadIndex.incrementAndGet()));
+    }
+
+    /**
+     * 批量执行执行阶段线程池，在途数量由批量流水线限制
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchRunExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (isVirtualThreadsEnabled()) {
+            return VirtualThreadUtil.newExecutor("batch_run_thread_", threads, true);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "batch_run_thread_" + threadIndex.incrementAndGet()));
+    }
+}
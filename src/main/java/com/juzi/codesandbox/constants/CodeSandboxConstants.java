@@ -8,6 +8,28 @@ package com.juzi.codesandbox.constants;
 public interface CodeSandboxConstants {
     Long TIME_OUT = 10000L;
 
+    /**
+     * 单个输出流（stdout / stderr）默认最多保留的字节数
+     */
+    Long OUTPUT_LIMIT = 16 * 1024 * 1024L;
+
+    String OUTPUT_LIMIT_EXCEEDED = "Output Limit Exceeded";
+
+    /**
+     * 用例超时的错误信息，执行器（RunnerMain）中有一份相同的常量
+     */
+    String TIME_OUT_MESSAGE = "Time out";
+
+    /**
+     * 按 CPU 时间限制的时间限制模式
+     */
+    String TIME_LIMIT_MODE_CPU = "cpu";
+
+    /**
+     * Docker 沙箱通过 tar 归档把编译产物复制进容器的传输模式
+     */
+    String CODE_TRANSFER_COPY = "copy";
+
     String GLOBAL_CODE_DIR_NAME = "tmp_code";
 
     String GLOBAL_CODE_FILE_NAME = "Main.java";
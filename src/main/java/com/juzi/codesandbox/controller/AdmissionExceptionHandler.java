@@ -0,0 +1,38 @@
+package com.juzi.codesandbox.controller;
+
+import com.juzi.codesandbox.admission.AdmissionRejectedException;
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.model.JudgeInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+
+import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.FAILED;
+
+/**
+ * 沙箱繁忙时返回 429，并通过 Retry-After 提示调用方稍后重试
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@RestControllerAdvice
+public class AdmissionExceptionHandler {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ExecuteCodeResponse> handleAdmissionRejected(AdmissionRejectedException e) {
+        log.warn("submission rejected: {}, retry after {}s", e.getMessage(), e.getRetryAfterSeconds());
+        ExecuteCodeResponse response = new ExecuteCodeResponse();
+        response.setOutputList(Collections.emptyList());
+        response.setMessage(e.getMessage());
+        response.setStatus(FAILED.getValue());
+        response.setJudgeInfo(new JudgeInfo());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+}
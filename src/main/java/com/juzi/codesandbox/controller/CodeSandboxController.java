@@ -1,17 +1,39 @@
 package com.juzi.codesandbox.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juzi.codesandbox.dispatch.DispatcherCodeSandbox;
+import com.juzi.codesandbox.exec.CodeSandbox;
+import com.juzi.codesandbox.exec.CodeSandboxTemplate;
 import com.juzi.codesandbox.exec.JavaDockerCodeSandbox;
+import com.juzi.codesandbox.exec.JavaNativeAcmCodeSandbox;
+import com.juzi.codesandbox.job.BatchExecutePipeline;
+import com.juzi.codesandbox.job.ExecuteJobManager;
 import com.juzi.codesandbox.model.ExecuteCodeRequest;
 import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.model.ExecuteJob;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_HEADER;
 import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_SECRET;
@@ -24,9 +46,35 @@ import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_SECRET;
 @RequestMapping("/")
 public class CodeSandboxController {
 
+    /**
+     * 长轮询、SSE 的最长等待时间(ms)
+     */
+    private static final long MAX_WAIT_TIMEOUT = 60000L;
+
+    /**
+     * 本机执行使用的沙箱：docker 在容器中执行；native 在宿主机进程中执行，不依赖 Docker
+     */
+    @Value("${oj.sandbox.entry:docker}")
+    private String ENTRY_SANDBOX;
+
     @Autowired
     private JavaDockerCodeSandbox codeSandbox;
 
+    @Resource
+    private JavaNativeAcmCodeSandbox nativeCodeSandbox;
+
+    @Resource
+    private DispatcherCodeSandbox dispatcherCodeSandbox;
+
+    @Resource
+    private ExecuteJobManager executeJobManager;
+
+    @Resource
+    private BatchExecutePipeline batchExecutePipeline;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
     /**
      * 执行代码接口
      *
@@ -35,16 +83,158 @@ public class CodeSandboxController {
      */
     @PostMapping("/exec_code")
     public ExecuteCodeResponse execCode(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request, HttpServletResponse response) {
-        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
-
-        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
-            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        if (!checkAuth(request, response)) {
             return null;
         }
         if (executeCodeRequest == null) {
             return null;
         }
         log.info("executeCodeRequest = {}", executeCodeRequest);
-        return codeSandbox.execute(executeCodeRequest);
+        return getEntrySandbox().execute(executeCodeRequest);
+    }
+
+    /**
+     * 批量执行代码接口（重判），每个提交完成后立即以一行 JSON 的形式返回，
+     * 行内 index 为对应请求的下标
+     *
+     * @param executeCodeRequestList 请求列表
+     * @return application/x-ndjson 结果流
+     */
+    @PostMapping("/exec_code/batch")
+    public ResponseEntity<StreamingResponseBody> execCodeBatch(@RequestBody List<ExecuteCodeRequest> executeCodeRequestList,
+                                                               HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("batch executeCodeRequest size = {}", executeCodeRequestList.size());
+        StreamingResponseBody body = outputStream -> batchExecutePipeline.execute(getLocalSandbox(), executeCodeRequestList, result -> {
+            outputStream.write(objectMapper.writeValueAsBytes(result));
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 异步执行代码接口，立即返回任务ID
+     *
+     * @param executeCodeRequest 请求
+     * @return 任务
+     */
+    @PostMapping("/exec_code/async")
+    public ExecuteJob execCodeAsync(@RequestBody ExecuteCodeRequest executeCodeRequest, HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        if (executeCodeRequest == null) {
+            return null;
+        }
+        log.info("async executeCodeRequest = {}", executeCodeRequest);
+        try {
+            return executeJobManager.submit(getEntrySandbox(), executeCodeRequest);
+        } catch (RejectedExecutionException e) {
+            // 执行能力已满
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return null;
+        }
+    }
+
+    /**
+     * 查询异步任务
+     *
+     * @param jobId 任务ID
+     * @return 任务
+     */
+    @GetMapping("/exec_code/jobs/{jobId}")
+    public ExecuteJob getJob(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) {
+        if (!checkAuth(request, response)) {
+            return null;
+        }
+        ExecuteJob job = executeJobManager.getJob(jobId);
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+        return job;
+    }
+
+    /**
+     * 长轮询异步任务，任务完成或等待超时后返回，不占用请求线程
+     *
+     * @param jobId   任务ID
+     * @param timeout 最长等待时间(ms)
+     * @return 任务
+     */
+    @GetMapping("/exec_code/jobs/{jobId}/wait")
+    public DeferredResult<ExecuteJob> waitJob(@PathVariable String jobId,
+                                              @RequestParam(defaultValue = "30000") long timeout,
+                                              HttpServletRequest request, HttpServletResponse response) {
+        DeferredResult<ExecuteJob> deferredResult = new DeferredResult<>(Math.min(timeout, MAX_WAIT_TIMEOUT));
+        if (!checkAuth(request, response)) {
+            deferredResult.setResult(null);
+            return deferredResult;
+        }
+        ExecuteJob job = executeJobManager.getJob(jobId);
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            deferredResult.setResult(null);
+            return deferredResult;
+        }
+        // 超时仍未完成时返回当前状态
+        deferredResult.onTimeout(() -> deferredResult.setResult(job));
+        job.getFuture().thenAccept(deferredResult::setResult);
+        return deferredResult;
+    }
+
+    /**
+     * 通过 SSE 推送异步任务结果
+     *
+     * @param jobId 任务ID
+     * @return emitter
+     */
+    @GetMapping("/exec_code/jobs/{jobId}/stream")
+    public SseEmitter streamJob(@PathVariable String jobId, HttpServletRequest request, HttpServletResponse response) {
+        SseEmitter emitter = new SseEmitter(MAX_WAIT_TIMEOUT);
+        if (!checkAuth(request, response)) {
+            emitter.complete();
+            return emitter;
+        }
+        ExecuteJob job = executeJobManager.getJob(jobId);
+        if (job == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            emitter.complete();
+            return emitter;
+        }
+        job.getFuture().thenAccept(finishedJob -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(finishedJob));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 分发模式下请求转发给沙箱节点，否则在本机执行
+     */
+    private CodeSandbox getEntrySandbox() {
+        return dispatcherCodeSandbox.isEnabled() ? dispatcherCodeSandbox : getLocalSandbox();
+    }
+
+    private CodeSandboxTemplate getLocalSandbox() {
+        return "native".equals(ENTRY_SANDBOX) ? nativeCodeSandbox : codeSandbox;
+    }
+
+    /**
+     * 校验鉴权请求头
+     */
+    private boolean checkAuth(HttpServletRequest request, HttpServletResponse response) {
+        String authHeader = request.getHeader(AUTH_REQUEST_HEADER);
+        if (!AUTH_REQUEST_SECRET.equals(authHeader)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,215 @@
+package com.juzi.codesandbox.controller;
+
+import com.juzi.codesandbox.admission.AdmissionController;
+import com.juzi.codesandbox.compile.CompiledClassCache;
+import com.juzi.codesandbox.dispatch.DispatcherCodeSandbox;
+import com.juzi.codesandbox.dispatch.SandboxNode;
+import com.juzi.codesandbox.docker.DockerContainerPool;
+import com.juzi.codesandbox.docker.MeteredDockerHttpClient;
+import com.juzi.codesandbox.exec.ProcessWatchdog;
+import com.juzi.codesandbox.exec.ResourceSampler;
+import com.juzi.codesandbox.language.LanguageRegistry;
+import com.juzi.codesandbox.language.LanguageStrategy;
+import com.juzi.codesandbox.runner.RunnerPool;
+import com.juzi.codesandbox.workspace.WorkspaceManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 沙箱运行状态监控
+ *
+ * @author codejuzi
+ */
+@RestController
+@RequestMapping("/monitor")
+public class MonitorController {
+
+    @Resource
+    private MeteredDockerHttpClient dockerHttpClient;
+
+    @Resource
+    private DockerContainerPool containerPool;
+
+    @Resource
+    private CompiledClassCache compiledClassCache;
+
+    @Resource
+    private ProcessWatchdog processWatchdog;
+
+    @Resource
+    private RunnerPool runnerPool;
+
+    @Resource
+    private ResourceSampler resourceSampler;
+
+    @Resource
+    private WorkspaceManager workspaceManager;
+
+    @Resource
+    private AdmissionController admissionController;
+
+    @Resource
+    private DispatcherCodeSandbox dispatcherCodeSandbox;
+
+    @Resource
+    private LanguageRegistry languageRegistry;
+
+    /**
+     * Docker 连接池与容器池使用情况
+     */
+    @GetMapping("/docker")
+    public Map<String, Object> dockerStats() {
+        Map<String, Object> client = new LinkedHashMap<>();
+        client.put("maxConnections", dockerHttpClient.getMaxConnections());
+        client.put("activeRequests", dockerHttpClient.getActiveRequests());
+        client.put("peakActiveRequests", dockerHttpClient.getPeakActiveRequests());
+        client.put("utilization", dockerHttpClient.getUtilization());
+        client.put("totalRequests", dockerHttpClient.getTotalRequests());
+        client.put("saturatedRequests", dockerHttpClient.getSaturatedRequests());
+        client.put("failedRequests", dockerHttpClient.getFailedRequests());
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("enabled", containerPool.isEnabled());
+        pool.put("idle", containerPool.getIdleCount());
+        pool.put("total", containerPool.getTotalCount());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("client", client);
+        stats.put("containerPool", pool);
+        return stats;
+    }
+
+    /**
+     * 编译产物缓存命中情况
+     */
+    @GetMapping("/class-cache")
+    public Map<String, Object> classCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", compiledClassCache.isEnabled());
+        stats.put("memoryHits", compiledClassCache.getMemoryHits());
+        stats.put("diskHits", compiledClassCache.getDiskHits());
+        stats.put("misses", compiledClassCache.getMisses());
+        stats.put("sharedCompiles", compiledClassCache.getSharedCompiles());
+        stats.put("evictions", compiledClassCache.getEvictions());
+        stats.put("memoryEntries", compiledClassCache.getMemoryEntries());
+        stats.put("memoryBytes", compiledClassCache.getMemoryBytes());
+        stats.put("diskEntries", compiledClassCache.getDiskEntries());
+        stats.put("diskBytes", compiledClassCache.getDiskBytes());
+        return stats;
+    }
+
+    /**
+     * 用例进程超时监控、资源采样情况
+     */
+    @GetMapping("/process")
+    public Map<String, Object> processStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeDeadlines", processWatchdog.getActiveDeadlines());
+        stats.put("timedOut", processWatchdog.getTimedOutCount());
+        stats.put("activeSamples", resourceSampler.getActiveSamples());
+        return stats;
+    }
+
+    /**
+     * 常驻执行器池使用情况
+     */
+    @GetMapping("/runner")
+    public Map<String, Object> runnerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", runnerPool.isEnabled());
+        stats.put("idle", runnerPool.getIdleCount());
+        stats.put("total", runnerPool.getTotalCount());
+        stats.put("runs", runnerPool.getTotalRuns());
+        stats.put("recycled", runnerPool.getRecycledWorkers());
+        return stats;
+    }
+
+    /**
+     * 准入控制：并发、排队深度与等待时间
+     */
+    @GetMapping("/admission")
+    public Map<String, Object> admissionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", admissionController.isEnabled());
+        stats.put("limit", admissionController.getLimit());
+        stats.put("running", admissionController.getRunning());
+        stats.put("queued", admissionController.getQueued());
+        stats.put("peakQueued", admissionController.getPeakQueued());
+        stats.put("admitted", admissionController.getAdmittedCount());
+        stats.put("rejected", admissionController.getRejectedCount());
+        stats.put("avgWaitMillis", admissionController.getAvgWaitMillis());
+        stats.put("maxWaitMillis", admissionController.getMaxWaitMillis());
+        stats.put("avgServiceMillis", admissionController.getAvgServiceMillis());
+        stats.put("retryAfterSeconds", admissionController.getRetryAfterSeconds());
+        return stats;
+    }
+
+    /**
+     * 分发模式：各节点的空闲执行位、在途请求，以及重试、对冲次数
+     */
+    @GetMapping("/dispatcher")
+    public Map<String, Object> dispatcherStats() {
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (SandboxNode node : dispatcherCodeSandbox.getNodes()) {
+            Map<String, Object> nodeStats = new LinkedHashMap<>();
+            nodeStats.put("url", node.getUrl());
+            nodeStats.put("healthy", node.isHealthy());
+            nodeStats.put("reportedFreeSlots", node.getReportedFreeSlots());
+            nodeStats.put("estimatedFreeSlots", node.getEstimatedFreeSlots());
+            nodeStats.put("inFlight", node.getInFlight());
+            nodeStats.put("requests", node.getRequestCount());
+            nodeStats.put("failures", node.getFailureCount());
+            nodeStats.put("avgLatencyMillis", node.getAvgLatencyMillis());
+            nodes.add(nodeStats);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", dispatcherCodeSandbox.isEnabled());
+        stats.put("retries", dispatcherCodeSandbox.getRetryCount());
+        stats.put("hedges", dispatcherCodeSandbox.getHedgeCount());
+        stats.put("hedgeWins", dispatcherCodeSandbox.getHedgeWinCount());
+        stats.put("hedgeDelay", dispatcherCodeSandbox.getHedgeDelay());
+        stats.put("nodes", nodes);
+        return stats;
+    }
+
+    /**
+     * 提交工作目录使用情况
+     */
+    @GetMapping("/workspace")
+    public Map<String, Object> workspaceStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("root", workspaceManager.getRootDir().getAbsolutePath());
+        stats.put("active", workspaceManager.getActiveCount());
+        stats.put("idle", workspaceManager.getIdleCount());
+        stats.put("reused", workspaceManager.getReusedCount());
+        stats.put("usedBytes", workspaceManager.getUsedBytes());
+        stats.put("quota", workspaceManager.getQuota());
+        return stats;
+    }
+
+    /**
+     * 各语言工具链是否可用，以及预编译头、构建缓存、预先启动的进程等预热状态
+     */
+    @GetMapping("/language")
+    public Map<String, Object> languageStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (LanguageStrategy language : languageRegistry.getLanguages()) {
+            Map<String, Object> languageStats = new LinkedHashMap<>();
+            languageStats.put("aliases", language.getAliases());
+            languageStats.put("enabled", languageRegistry.isEnabled(language));
+            languageStats.put("available", language.isAvailable());
+            languageStats.put("timeLimit", language.getTimeLimit());
+            languageStats.put("memoryLimit", language.getMemoryLimit());
+            languageStats.putAll(language.getStats());
+            stats.put(language.getName(), languageStats);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,518 @@
+package com.juzi.codesandbox.dispatch;
+
+import com.juzi.codesandbox.admission.AdmissionRejectedException;
+import com.juzi.codesandbox.exec.CodeSandbox;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.model.JudgeInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_HEADER;
+import static com.juzi.codesandbox.auth.AuthRequest.AUTH_REQUEST_SECRET;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.FAILED;
+
+/**
+ * 分发模式：把执行请求转发给多个沙箱节点
+ * <p>
+ * 后台定期探测各节点的空闲执行位，每次选择估算空闲最多的健康节点；节点出错时换下一个节点重试，
+ * 超过对冲延迟仍未响应时向另一个有空闲的节点发送对冲请求，先成功的结果胜出，落选请求的连接立即断开。
+ * 对冲延迟取最近成功请求耗时的百分位，样本不足时使用配置的初始值。
+ * 所有尝试都因节点繁忙（429）失败时抛出 {@link AdmissionRejectedException}，由调用方返回 429。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class DispatcherCodeSandbox implements CodeSandbox {
+
+    @Value("${oj.dispatcher.enabled:false}")
+    private boolean ENABLED;
+
+    /**
+     * 沙箱节点地址，逗号分隔，如 http://127.0.0.1:8091,http://127.0.0.1:8092
+     */
+    @Value("${oj.dispatcher.nodes:}")
+    private List<String> NODES;
+
+    /**
+     * 单个请求最多尝试的次数（含重试、对冲）
+     */
+    @Value("${oj.dispatcher.max-attempts:3}")
+    private int MAX_ATTEMPTS;
+
+    /**
+     * 初始对冲延迟(ms)，成功请求的耗时样本不足时使用，0 表示不对冲
+     */
+    @Value("${oj.dispatcher.hedge-delay:3000}")
+    private long HEDGE_DELAY;
+
+    /**
+     * 对冲延迟取最近成功请求耗时的该百分位，首个请求超过该耗时仍未响应时发送对冲请求
+     */
+    @Value("${oj.dispatcher.hedge-percentile:95}")
+    private double HEDGE_PERCENTILE;
+
+    /**
+     * 计算对冲延迟保留的最近成功请求耗时数
+     */
+    private static final int LATENCY_WINDOW_SIZE = 128;
+
+    /**
+     * 按百分位计算对冲延迟所需的最少样本数
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    /**
+     * 当前转发线程对应的尝试，由请求工厂记录其连接，放弃时断开
+     */
+    private static final ThreadLocal<Call> CURRENT_CALL = new ThreadLocal<>();
+
+    /**
+     * 单个请求的总超时时间(ms)
+     */
+    @Value("${oj.dispatcher.request-timeout:60000}")
+    private long REQUEST_TIMEOUT;
+
+    @Value("${oj.dispatcher.connect-timeout:1000}")
+    private int CONNECT_TIMEOUT;
+
+    /**
+     * 探测节点空闲执行位的间隔(ms)
+     */
+    @Value("${oj.dispatcher.probe-interval:1000}")
+    private long PROBE_INTERVAL;
+
+    /**
+     * 异步执行线程池，容量满时拒绝提交
+     */
+    @Resource
+    private ExecutorService sandboxExecutor;
+
+    private List<SandboxNode> nodes = Collections.emptyList();
+
+    private RestTemplate restTemplate;
+
+    /**
+     * 转发请求的线程池，等待节点响应时阻塞
+     */
+    private ExecutorService dispatchExecutor;
+
+    private ScheduledExecutorService probeExecutor;
+
+    /**
+     * 空闲执行位相同时轮流选择
+     */
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final AtomicLong hedgeCount = new AtomicLong();
+
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    /**
+     * 最近成功请求的耗时(ms)，环形缓冲区
+     */
+    private final long[] latencyWindow = new long[LATENCY_WINDOW_SIZE];
+
+    private long latencySamples = 0;
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED) {
+            return;
+        }
+        List<SandboxNode> nodeList = new ArrayList<>();
+        for (String url : NODES) {
+            if (StringUtils.isNotBlank(url)) {
+                nodeList.add(new SandboxNode(url.trim()));
+            }
+        }
+        if (nodeList.isEmpty()) {
+            throw new IllegalStateException("oj.dispatcher.nodes is empty");
+        }
+        nodes = Collections.unmodifiableList(nodeList);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                Call call = CURRENT_CALL.get();
+                if (call != null) {
+                    call.attach(connection);
+                }
+            }
+        };
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
+        requestFactory.setReadTimeout((int) REQUEST_TIMEOUT);
+        restTemplate = new RestTemplate(requestFactory);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        dispatchExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "dispatcher_thread_" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dispatcher_probe_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeExecutor.scheduleWithFixedDelay(this::probe, 0L, PROBE_INTERVAL, TimeUnit.MILLISECONDS);
+        log.info("dispatcher nodes: {}", NODES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (probeExecutor != null) {
+            probeExecutor.shutdownNow();
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ExecuteCodeResponse execute(ExecuteCodeRequest executeCodeRequest) {
+        if (!ENABLED) {
+            throw new IllegalStateException("Dispatcher is disabled");
+        }
+        long deadline = System.currentTimeMillis() + REQUEST_TIMEOUT;
+        ExecutorCompletionService<Attempt> completionService = new ExecutorCompletionService<>(dispatchExecutor);
+        List<Future<Attempt>> futures = new ArrayList<>();
+        List<Call> calls = new ArrayList<>();
+        Set<SandboxNode> triedNodes = new HashSet<>();
+        Attempt lastFailure = null;
+        long hedgeDelay = getHedgeDelay();
+        boolean hedged = hedgeDelay <= 0;
+        boolean allBusy = true;
+        long minRetryAfter = Long.MAX_VALUE;
+        try {
+            SandboxNode node = selectNode(triedNodes);
+            if (node == null) {
+                return failedResponse("No sandbox node available");
+            }
+            futures.add(submit(completionService, node, executeCodeRequest, false, triedNodes, calls));
+            int pending = 1;
+            while (pending > 0) {
+                long now = System.currentTimeMillis();
+                if (now >= deadline) {
+                    return failedResponse(TIME_OUT_MESSAGE);
+                }
+                long wait = hedged ? deadline - now : Math.min(hedgeDelay, deadline - now);
+                Future<Attempt> done = completionService.poll(wait, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    if (!hedged) {
+                        // 首个请求迟迟未响应，向另一个有空闲的节点发送对冲请求
+                        hedged = true;
+                        SandboxNode hedgeNode = selectNode(triedNodes);
+                        if (hedgeNode != null && hedgeNode.getEstimatedFreeSlots() > 0 && triedNodes.size() < MAX_ATTEMPTS) {
+                            hedgeCount.incrementAndGet();
+                            futures.add(submit(completionService, hedgeNode, executeCodeRequest, true, triedNodes, calls));
+                            pending++;
+                        }
+                    }
+                    continue;
+                }
+                pending--;
+                Attempt attempt = done.get();
+                if (attempt.response != null) {
+                    if (attempt.hedge) {
+                        hedgeWinCount.incrementAndGet();
+                    }
+                    return attempt.response;
+                }
+                lastFailure = attempt;
+                if (attempt.retryAfterSeconds > 0) {
+                    // 任一节点空闲后即可重试，取最短的建议间隔
+                    minRetryAfter = Math.min(minRetryAfter, attempt.retryAfterSeconds);
+                } else {
+                    allBusy = false;
+                }
+                // 节点出错，换下一个节点重试
+                SandboxNode nextNode = triedNodes.size() < MAX_ATTEMPTS ? selectNode(triedNodes) : null;
+                if (nextNode != null) {
+                    retryCount.incrementAndGet();
+                    futures.add(submit(completionService, nextNode, executeCodeRequest, false, triedNodes, calls));
+                    pending++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // 放弃仍在等待的对冲请求：阻塞在读取响应上的线程不响应中断，断开连接才能释放
+            calls.forEach(Call::abort);
+            for (Future<Attempt> future : futures) {
+                future.cancel(true);
+            }
+        }
+        if (allBusy) {
+            throw new AdmissionRejectedException("All sandbox nodes are busy", minRetryAfter);
+        }
+        return failedResponse("All sandbox nodes failed: " + lastFailure.errorMessage);
+    }
+
+    @Override
+    public CompletableFuture<ExecuteCodeResponse> executeAsync(ExecuteCodeRequest executeCodeRequest) {
+        return CompletableFuture.supplyAsync(() -> execute(executeCodeRequest), sandboxExecutor);
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public List<SandboxNode> getNodes() {
+        return nodes;
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * 当前的对冲延迟(ms)：最近成功请求耗时的 HEDGE_PERCENTILE 百分位，样本不足时为 HEDGE_DELAY，0 表示不对冲
+     */
+    public long getHedgeDelay() {
+        if (HEDGE_DELAY <= 0) {
+            return 0L;
+        }
+        long[] samples;
+        synchronized (latencyWindow) {
+            if (latencySamples < MIN_LATENCY_SAMPLES) {
+                return HEDGE_DELAY;
+            }
+            samples = Arrays.copyOf(latencyWindow, (int) Math.min(latencySamples, LATENCY_WINDOW_SIZE));
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(HEDGE_PERCENTILE / 100 * samples.length) - 1;
+        return Math.max(1L, samples[Math.max(0, Math.min(index, samples.length - 1))]);
+    }
+
+    private void recordLatency(long latencyMillis) {
+        synchronized (latencyWindow) {
+            latencyWindow[(int) (latencySamples % LATENCY_WINDOW_SIZE)] = latencyMillis;
+            latencySamples++;
+        }
+    }
+
+    /**
+     * 选择估算空闲执行位最多的健康节点，没有健康节点时退回尚未尝试的任意节点
+     *
+     * @param excludedNodes 本次请求已尝试过的节点
+     * @return 节点，全部尝试过时返回 null
+     */
+    SandboxNode selectNode(Set<SandboxNode> excludedNodes) {
+        int size = nodes.size();
+        int start = Math.floorMod(roundRobin.getAndIncrement(), size);
+        SandboxNode best = null;
+        SandboxNode fallback = null;
+        for (int i = 0; i < size; i++) {
+            SandboxNode node = nodes.get((start + i) % size);
+            if (excludedNodes.contains(node)) {
+                continue;
+            }
+            if (!node.isHealthy()) {
+                if (fallback == null) {
+                    fallback = node;
+                }
+                continue;
+            }
+            if (best == null || node.getEstimatedFreeSlots() > best.getEstimatedFreeSlots()) {
+                best = node;
+            }
+        }
+        return best != null ? best : fallback;
+    }
+
+    private Future<Attempt> submit(ExecutorCompletionService<Attempt> completionService, SandboxNode node,
+                                   ExecuteCodeRequest executeCodeRequest, boolean hedge, Set<SandboxNode> triedNodes,
+                                   List<Call> calls) {
+        triedNodes.add(node);
+        node.onDispatch();
+        Call call = new Call();
+        calls.add(call);
+        return completionService.submit(() -> forward(node, executeCodeRequest, hedge, call));
+    }
+
+    /**
+     * 转发到节点的 /exec_code，异常不抛出，记录在返回的尝试结果中
+     */
+    private Attempt forward(SandboxNode node, ExecuteCodeRequest executeCodeRequest, boolean hedge, Call call) {
+        long start = System.currentTimeMillis();
+        CURRENT_CALL.set(call);
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set(AUTH_REQUEST_HEADER, AUTH_REQUEST_SECRET);
+            ExecuteCodeResponse response = restTemplate.postForObject(node.getUrl() + "/exec_code",
+                    new HttpEntity<>(executeCodeRequest, headers), ExecuteCodeResponse.class);
+            if (response == null) {
+                throw new RestClientException("Empty response");
+            }
+            long latencyMillis = System.currentTimeMillis() - start;
+            node.onSuccess(latencyMillis);
+            recordLatency(latencyMillis);
+            return new Attempt(response, hedge, null, 0L);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            node.onBusy();
+            String retryAfter = e.getResponseHeaders() == null ? null : e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            long retryAfterSeconds = StringUtils.isNumeric(retryAfter) ? Long.parseLong(retryAfter) : 1L;
+            log.warn("sandbox node {} is busy, retry after {}s", node.getUrl(), retryAfterSeconds);
+            return new Attempt(null, hedge, e.getMessage(), Math.max(1L, retryAfterSeconds));
+        } catch (RestClientException e) {
+            if (call.isAborted()) {
+                // 请求已被放弃，连接是主动断开的，不算节点故障
+                node.onAbandon();
+                return new Attempt(null, hedge, "Abandoned", 0L);
+            }
+            node.onFailure();
+            log.warn("forward to sandbox node {} error: {}", node.getUrl(), e.getMessage());
+            return new Attempt(null, hedge, e.getMessage(), 0L);
+        } finally {
+            CURRENT_CALL.remove();
+            call.finish();
+        }
+    }
+
+    /**
+     * 探测各节点的空闲执行位：上限 - 执行中 - 排队中
+     */
+    private void probe() {
+        for (SandboxNode node : nodes) {
+            try {
+                Map<?, ?> stats = restTemplate.getForObject(node.getUrl() + "/monitor/admission", Map.class);
+                if (stats == null) {
+                    throw new RestClientException("Empty response");
+                }
+                int limit = ((Number) stats.get("limit")).intValue();
+                int running = ((Number) stats.get("running")).intValue();
+                int queued = ((Number) stats.get("queued")).intValue();
+                node.onProbe(limit - running - queued);
+            } catch (Exception e) {
+                if (node.isHealthy()) {
+                    log.warn("probe sandbox node {} error: {}", node.getUrl(), e.getMessage());
+                }
+                node.onProbeFailure();
+            }
+        }
+    }
+
+    private ExecuteCodeResponse failedResponse(String message) {
+        ExecuteCodeResponse response = new ExecuteCodeResponse();
+        response.setOutputList(Collections.emptyList());
+        response.setMessage(message);
+        response.setStatus(FAILED.getValue());
+        response.setJudgeInfo(new JudgeInfo());
+        return response;
+    }
+
+    /**
+     * 一次转发的连接，请求结束前被放弃时断开
+     */
+    private static class Call {
+
+        private HttpURLConnection connection;
+
+        private boolean aborted = false;
+
+        private boolean finished = false;
+
+        synchronized void attach(HttpURLConnection connection) throws IOException {
+            if (aborted) {
+                throw new IOException("Request abandoned");
+            }
+            this.connection = connection;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            connection = null;
+        }
+
+        /**
+         * 断开仍在等待响应的连接，已结束的请求不受影响（连接可能已归还 keep-alive 缓存）
+         */
+        synchronized void abort() {
+            if (finished) {
+                return;
+            }
+            aborted = true;
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+
+        synchronized boolean isAborted() {
+            return aborted;
+        }
+    }
+
+    /**
+     * 一次转发的结果
+     */
+    private static class Attempt {
+
+        private final ExecuteCodeResponse response;
+
+        private final boolean hedge;
+
+        private final String errorMessage;
+
+        /**
+         * 节点繁忙时建议的重试间隔(s)，其他失败为 0
+         */
+        private final long retryAfterSeconds;
+
+        private Attempt(ExecuteCodeResponse response, boolean hedge, String errorMessage, long retryAfterSeconds) {
+            this.response = response;
+            this.hedge = hedge;
+            this.errorMessage = errorMessage;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
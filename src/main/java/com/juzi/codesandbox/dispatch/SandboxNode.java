@@ -0,0 +1,118 @@
+package com.juzi.codesandbox.dispatch;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分发模式下的一个沙箱节点，空闲执行位由后台探测 /monitor/admission 得到
+ *
+ * @author codejuzi
+ */
+public class SandboxNode {
+
+    /**
+     * 节点地址，如 http://127.0.0.1:8091
+     */
+    @Getter
+    private final String url;
+
+    /**
+     * 最近一次探测或请求是否成功
+     */
+    @Getter
+    private volatile boolean healthy = true;
+
+    /**
+     * 最近一次探测到的空闲执行位（执行上限 - 执行中 - 排队中）
+     */
+    @Getter
+    private volatile int reportedFreeSlots = 1;
+
+    /**
+     * 最近一次探测之后分发到该节点的请求数，探测结果尚未反映这些请求
+     */
+    private final AtomicInteger dispatchedSinceProbe = new AtomicInteger();
+
+    /**
+     * 正在等待该节点响应的请求数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * 成功请求耗时的指数滑动平均(ms)
+     */
+    @Getter
+    private volatile double avgLatencyMillis;
+
+    public SandboxNode(String url) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * 估算的空闲执行位，越大越优先
+     */
+    public int getEstimatedFreeSlots() {
+        return reportedFreeSlots - dispatchedSinceProbe.get();
+    }
+
+    void onProbe(int freeSlots) {
+        reportedFreeSlots = freeSlots;
+        dispatchedSinceProbe.set(0);
+        healthy = true;
+    }
+
+    void onProbeFailure() {
+        healthy = false;
+    }
+
+    void onDispatch() {
+        requestCount.incrementAndGet();
+        dispatchedSinceProbe.incrementAndGet();
+        inFlight.incrementAndGet();
+    }
+
+    void onSuccess(long latencyMillis) {
+        inFlight.decrementAndGet();
+        double avg = avgLatencyMillis;
+        avgLatencyMillis = avg == 0 ? latencyMillis : avg + 0.2 * (latencyMillis - avg);
+    }
+
+    /**
+     * 节点繁忙（429），下次探测前不再优先选择
+     */
+    void onBusy() {
+        inFlight.decrementAndGet();
+        reportedFreeSlots = 0;
+    }
+
+    /**
+     * 对冲落选、请求被放弃，不影响节点状态
+     */
+    void onAbandon() {
+        inFlight.decrementAndGet();
+    }
+
+    void onFailure() {
+        inFlight.decrementAndGet();
+        failureCount.incrementAndGet();
+        healthy = false;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+}
@@ -0,0 +1,309 @@
+package com.juzi.codesandbox.docker;
+
+import com.juzi.codesandbox.exec.ResourceSampler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * 直接读取容器 cgroup 文件获取资源使用情况，代替 Docker stats 流
+ * <p>
+ * 内存峰值优先 cgroup v2 的 memory.peak，回退到 cgroup v1 的 memory.max_usage_in_bytes；
+ * 峰值计数器无法重置（复用的容器会读到之前的峰值）或配置为 poll 时，改为在共享采样线程中
+ * 高频读取 memory.current / memory.usage_in_bytes。
+ * CPU 时间优先 cgroup v2 cpu.stat 中的 usage_usec，回退到 cgroup v1 的 cpuacct.usage，取执行前后之差。
+ * 需要沙箱与 Docker 在同一台主机上运行，读取不到时返回 null。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class ContainerCgroupReader {
+
+    /**
+     * cgroup 文件系统挂载点
+     */
+    @Value("${oj.docker.cgroup.root:/sys/fs/cgroup}")
+    private String CGROUP_ROOT;
+
+    /**
+     * 内存测量方式：auto 优先读取峰值计数器，无法重置时轮询；peak 只读取峰值计数器；poll 只轮询当前用量
+     */
+    @Value("${oj.docker.cgroup.memory-mode:auto}")
+    private String MEMORY_MODE;
+
+    @Resource
+    private ResourceSampler resourceSampler;
+
+    /**
+     * cgroup v2 容器目录（systemd / cgroupfs 驱动）
+     */
+    private static final String[] V2_PATTERNS = {"system.slice/docker-%s.scope", "docker/%s"};
+
+    /**
+     * cgroup v1 memory 子系统容器目录（systemd / cgroupfs 驱动）
+     */
+    private static final String[] V1_MEMORY_PATTERNS = {"memory/system.slice/docker-%s.scope", "memory/docker/%s"};
+
+    /**
+     * cgroup v1 cpuacct 子系统容器目录
+     */
+    private static final String[] V1_CPU_PATTERNS = {"cpu,cpuacct/system.slice/docker-%s.scope", "cpu,cpuacct/docker/%s",
+            "cpuacct/system.slice/docker-%s.scope", "cpuacct/docker/%s"};
+
+    private static final String V2_MEMORY_PEAK = "memory.peak";
+
+    private static final String V1_MEMORY_PEAK = "memory.max_usage_in_bytes";
+
+    private static final String V2_MEMORY_CURRENT = "memory.current";
+
+    private static final String V1_MEMORY_CURRENT = "memory.usage_in_bytes";
+
+    private static final String V2_CPU_STAT = "cpu.stat";
+
+    private static final String V2_CPU_USAGE = "usage_usec ";
+
+    private static final String V1_CPU_USAGE = "cpuacct.usage";
+
+    private static final String MODE_PEAK = "peak";
+
+    private static final String MODE_POLL = "poll";
+
+    /**
+     * 开始测量容器资源使用，执行结束后调用 finish
+     *
+     * @param containerId 容器ID
+     * @return 测量
+     */
+    public Measurement start(String containerId) {
+        Long cpuUsageBefore = readCpuUsage(containerId);
+        MemoryPeak memoryPeak = MODE_POLL.equals(MEMORY_MODE) ? null : openMemoryPeak(containerId);
+        if (memoryPeak != null && !memoryPeak.resettable && !MODE_PEAK.equals(MEMORY_MODE)) {
+            memoryPeak.close();
+            memoryPeak = null;
+        }
+        ResourceSampler.Sample sample = null;
+        if (memoryPeak == null) {
+            File currentFile = resolveMemoryFile(containerId, V2_MEMORY_CURRENT, V1_MEMORY_CURRENT);
+            if (currentFile != null) {
+                sample = resourceSampler.watch(new MemoryCurrentSource(currentFile));
+            }
+        }
+        return new Measurement(containerId, cpuUsageBefore, memoryPeak, sample);
+    }
+
+    /**
+     * 读取容器累计 CPU 时间（所有进程 user + sys）
+     *
+     * @param containerId 容器ID
+     * @return 累计 CPU 时间(us)，cgroup 不可访问时返回 null
+     */
+    public Long readCpuUsage(String containerId) {
+        try {
+            File cpuStat = resolve(containerId, V2_PATTERNS, V2_CPU_STAT);
+            if (cpuStat != null) {
+                for (String line : Files.readAllLines(cpuStat.toPath(), StandardCharsets.UTF_8)) {
+                    if (line.startsWith(V2_CPU_USAGE)) {
+                        return Long.parseLong(line.substring(V2_CPU_USAGE.length()).trim());
+                    }
+                }
+                return null;
+            }
+            File cpuUsage = resolve(containerId, V1_CPU_PATTERNS, V1_CPU_USAGE);
+            if (cpuUsage != null) {
+                // cpuacct.usage 单位为 ns
+                return readLong(cpuUsage) / 1000;
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("read cpu usage of {} error: {}", containerId, e.getMessage());
+        }
+        return null;
+    }
+
+    private MemoryPeak openMemoryPeak(String containerId) {
+        File peakFile = resolve(containerId, V2_PATTERNS, V2_MEMORY_PEAK);
+        boolean v2 = peakFile != null;
+        if (!v2) {
+            peakFile = resolve(containerId, V1_MEMORY_PATTERNS, V1_MEMORY_PEAK);
+        }
+        if (peakFile == null) {
+            return null;
+        }
+        try {
+            return new MemoryPeak(peakFile, v2);
+        } catch (IOException e) {
+            log.debug("open {} error: {}", peakFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private File resolveMemoryFile(String containerId, String v2FileName, String v1FileName) {
+        File file = resolve(containerId, V2_PATTERNS, v2FileName);
+        return file != null ? file : resolve(containerId, V1_MEMORY_PATTERNS, v1FileName);
+    }
+
+    private File resolve(String containerId, String[] patterns, String fileName) {
+        for (String pattern : patterns) {
+            File file = new File(CGROUP_ROOT, String.format(pattern, containerId) + File.separator + fileName);
+            if (file.exists()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static long readLong(File file) throws IOException {
+        return Long.parseLong(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * 一次执行的容器资源测量
+     */
+    public class Measurement {
+
+        private final String containerId;
+
+        private final Long cpuUsageBefore;
+
+        private final MemoryPeak memoryPeak;
+
+        private final ResourceSampler.Sample sample;
+
+        /**
+         * 内存峰值(KB)
+         */
+        private Long memory;
+
+        /**
+         * CPU 时间(ms)
+         */
+        private Long cpuTime;
+
+        private Measurement(String containerId, Long cpuUsageBefore, MemoryPeak memoryPeak, ResourceSampler.Sample sample) {
+            this.containerId = containerId;
+            this.cpuUsageBefore = cpuUsageBefore;
+            this.memoryPeak = memoryPeak;
+            this.sample = sample;
+        }
+
+        /**
+         * 结束测量
+         */
+        public void finish() {
+            if (memoryPeak != null) {
+                memory = memoryPeak.read();
+                memoryPeak.close();
+            }
+            if (sample != null) {
+                sample.stop();
+                memory = sample.getPeakMemory();
+            }
+            Long cpuUsageAfter = readCpuUsage(containerId);
+            if (cpuUsageBefore != null && cpuUsageAfter != null) {
+                cpuTime = (cpuUsageAfter - cpuUsageBefore) / 1000;
+            }
+        }
+
+        /**
+         * @return 内存峰值(KB)，未测量到时为 null
+         */
+        public Long getMemory() {
+            return memory;
+        }
+
+        /**
+         * @return CPU 时间(ms)，未测量到时为 null
+         */
+        public Long getCpuTime() {
+            return cpuTime;
+        }
+    }
+
+    /**
+     * 容器内存峰值计数器
+     * <p>
+     * v2 的 memory.peak 在较新内核上支持写入任意内容重置（只对同一个文件描述符生效），
+     * v1 写 0 重置 max_usage_in_bytes；无法重置时读到的是容器启动以来的峰值。
+     */
+    private static class MemoryPeak {
+
+        private final RandomAccessFile file;
+
+        private final boolean resettable;
+
+        private MemoryPeak(File peakFile, boolean v2) throws IOException {
+            RandomAccessFile opened = null;
+            boolean reset;
+            try {
+                opened = new RandomAccessFile(peakFile, "rw");
+                opened.write((v2 ? "reset\n" : "0\n").getBytes(StandardCharsets.US_ASCII));
+                reset = true;
+            } catch (IOException e) {
+                if (opened != null) {
+                    opened.close();
+                }
+                opened = new RandomAccessFile(peakFile, "r");
+                reset = false;
+            }
+            this.file = opened;
+            this.resettable = reset;
+        }
+
+        /**
+         * @return 内存峰值(KB)，读取失败时返回 null
+         */
+        private Long read() {
+            try {
+                file.seek(0);
+                String value = file.readLine();
+                return value == null ? null : Long.parseLong(value.trim()) / 1024;
+            } catch (IOException | NumberFormatException e) {
+                log.debug("read memory peak error: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        private void close() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.debug("close memory peak error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 轮询容器当前内存用量
+     */
+    private static class MemoryCurrentSource implements ResourceSampler.Source {
+
+        private final File currentFile;
+
+        private MemoryCurrentSource(File currentFile) {
+            this.currentFile = currentFile;
+        }
+
+        @Override
+        public Long readMemory() throws IOException {
+            return readLong(currentFile) / 1024;
+        }
+
+        @Override
+        public Long readCpuTime() {
+            // CPU 时间取执行前后累计值之差，不需要轮询
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return currentFile.getPath();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.juzi.codesandbox.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.core.command.ExecStartResultCallback;
+import com.juzi.codesandbox.utils.DockerUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.CODE_TRANSFER_COPY;
+import static com.juzi.codesandbox.utils.DockerUtil.CONTAINER_CODE_PATH;
+
+/**
+ * 预热的沙箱容器池
+ * <p>
+ * 容器提前创建并启动，每次提交租借一个容器执行，归还后在后台清理残留进程，
+ * 超过复用次数、空闲过久或健康检查失败的容器会被销毁，并由后台线程补足到池大小。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class DockerContainerPool {
+
+    @Value("${oj.docker.image:openjdk:8-alpine}")
+    private String IMAGE;
+
+    @Value("${oj.docker.pool.enabled:true}")
+    private boolean ENABLED;
+
+    /**
+     * 池中容器总数上限（空闲 + 租借中）
+     */
+    @Value("${oj.docker.pool.size:4}")
+    private int POOL_SIZE;
+
+    /**
+     * 容器最大空闲时间(ms)，超过后回收重建
+     */
+    @Value("${oj.docker.pool.max-idle-time:600000}")
+    private long MAX_IDLE_TIME;
+
+    /**
+     * 单个容器最多执行的提交次数，达到后回收重建
+     */
+    @Value("${oj.docker.pool.max-reuse:50}")
+    private int MAX_REUSE;
+
+    /**
+     * 租借容器的最长等待时间(ms)
+     */
+    @Value("${oj.docker.pool.lease-timeout:30000}")
+    private long LEASE_TIMEOUT;
+
+    /**
+     * 代码传输模式：bind 挂载宿主机工作目录；copy 使用 tmpfs，每次提交复制编译产物。池容器总是复制
+     */
+    @Value("${oj.docker.code-transfer:bind}")
+    private String CODE_TRANSFER;
+
+    /**
+     * 容器内代码目录 tmpfs 的大小上限(byte)，copy 模式和池容器使用
+     */
+    @Value("${oj.docker.code-tmpfs-size:67108864}")
+    private long CODE_TMPFS_SIZE;
+
+    /**
+     * 后台健康检查、补充容器的间隔(ms)
+     */
+    @Value("${oj.docker.pool.maintain-interval:5000}")
+    private long MAINTAIN_INTERVAL;
+
+    /**
+     * 空闲容器，归还的容器放在队头，优先复用
+     */
+    private final LinkedBlockingDeque<PooledContainer> idleContainers = new LinkedBlockingDeque<>();
+
+    /**
+     * 池中容器总数（含正在创建、租借中的容器）
+     */
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    @Resource
+    private DockerClient dockerClient;
+
+    private ScheduledExecutorService maintainExecutor;
+
+    private volatile boolean closed = false;
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED) {
+            return;
+        }
+        maintainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "docker_pool_maintain_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动后在后台预热，不阻塞应用启动
+        maintainExecutor.scheduleWithFixedDelay(this::maintain, 0, MAINTAIN_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!ENABLED) {
+            return;
+        }
+        closed = true;
+        maintainExecutor.shutdownNow();
+        PooledContainer container;
+        while ((container = idleContainers.pollFirst()) != null) {
+            removeContainer(container);
+        }
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 租借一个可用容器，池满时最多等待 LEASE_TIMEOUT
+     *
+     * @return 容器
+     */
+    public PooledContainer lease() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + LEASE_TIMEOUT;
+        while (true) {
+            PooledContainer container = idleContainers.pollFirst();
+            if (container == null && tryReserve()) {
+                // 池未满，直接新建
+                return createPooledContainer();
+            }
+            if (container == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                container = remaining > 0 ? idleContainers.pollFirst(remaining, TimeUnit.MILLISECONDS) : null;
+                if (container == null) {
+                    throw new IllegalStateException("No sandbox container available in " + LEASE_TIMEOUT + " ms");
+                }
+            }
+            if (isExpired(container) || !isHealthy(container)) {
+                removeContainer(container);
+                continue;
+            }
+            return container;
+        }
+    }
+
+    /**
+     * 归还容器，在后台清理容器内残留进程后放回池中
+     *
+     * @param container 容器
+     * @param reusable  本次执行是否正常结束，异常时直接销毁容器
+     */
+    public void release(PooledContainer container, boolean reusable) {
+        container.setUseCount(container.getUseCount() + 1);
+        container.setLastUsedTime(System.currentTimeMillis());
+        if (closed) {
+            removeContainer(container);
+            return;
+        }
+        if (!reusable || container.getUseCount() >= MAX_REUSE) {
+            log.info("recycle sandbox container: {}, use count: {}", container.getContainerId(), container.getUseCount());
+            maintainExecutor.execute(() -> {
+                removeContainer(container);
+                replenish();
+            });
+            return;
+        }
+        maintainExecutor.execute(() -> {
+            if (scrub(container)) {
+                idleContainers.offerFirst(container);
+            } else {
+                removeContainer(container);
+                replenish();
+            }
+        });
+    }
+
+    public boolean isCopyTransfer() {
+        return CODE_TRANSFER_COPY.equals(CODE_TRANSFER);
+    }
+
+    public long getCodeTmpFsSize() {
+        return CODE_TMPFS_SIZE;
+    }
+
+    public int getIdleCount() {
+        return idleContainers.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 后台维护：回收空闲过久或不健康的容器，并补足池大小
+     */
+    private void maintain() {
+        try {
+            List<PooledContainer> snapshot = new ArrayList<>(idleContainers);
+            for (PooledContainer container : snapshot) {
+                if ((isExpired(container) || !isHealthy(container)) && idleContainers.remove(container)) {
+                    removeContainer(container);
+                }
+            }
+            replenish();
+        } catch (Exception e) {
+            log.error("maintain docker container pool error", e);
+        }
+    }
+
+    private void replenish() {
+        while (!closed && tryReserve()) {
+            try {
+                idleContainers.offerLast(createPooledContainer());
+            } catch (Exception e) {
+                log.error("replenish sandbox container error", e);
+                return;
+            }
+        }
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int count = totalCount.get();
+            if (count >= POOL_SIZE) {
+                return false;
+            }
+            if (totalCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 创建并启动容器，调用前必须已通过 tryReserve 占位
+     */
+    private PooledContainer createPooledContainer() {
+        try {
+            HostConfig hostConfig = DockerUtil.buildSandboxHostConfig();
+            CreateContainerCmd createContainerCmd = dockerClient.createContainerCmd(IMAGE);
+            // 池容器跨提交复用，不挂载宿主机目录（只能挂载所有提交共用的根目录），
+            // 每次提交把代码复制到 tmpfs 中的独立子目录，根目录只读
+            hostConfig.withTmpFs(DockerUtil.buildCodeTmpFs(CODE_TMPFS_SIZE));
+            CreateContainerResponse response = createContainerCmd
+                    .withHostConfig(hostConfig)
+                    // 禁用网络
+                    .withNetworkDisabled(true)
+                    // 常驻进程，容器保持运行以便复用
+                    .withCmd("tail", "-f", "/dev/null")
+                    .exec();
+            String containerId = response.getId();
+            dockerClient.startContainerCmd(containerId).exec();
+            long now = System.currentTimeMillis();
+            PooledContainer container = new PooledContainer(containerId, now);
+            container.setLastUsedTime(now);
+            log.info("create sandbox container: {}", containerId);
+            return container;
+        } catch (RuntimeException e) {
+            totalCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isExpired(PooledContainer container) {
+        return System.currentTimeMillis() - container.getLastUsedTime() > MAX_IDLE_TIME;
+    }
+
+    private boolean isHealthy(PooledContainer container) {
+        try {
+            InspectContainerResponse response = dockerClient.inspectContainerCmd(container.getContainerId()).exec();
+            return Boolean.TRUE.equals(response.getState().getRunning());
+        } catch (Exception e) {
+            log.warn("inspect sandbox container {} error: {}", container.getContainerId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 杀掉用户代码遗留的进程（PID 1 不受影响），同时清空复制进容器的代码
+     */
+    private boolean scrub(PooledContainer container) {
+        try {
+            String[] cmd = {"sh", "-c", "kill -9 -1; rm -rf " + CONTAINER_CODE_PATH + "/* " + CONTAINER_CODE_PATH + "/.[!.]*"};
+            ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(container.getContainerId())
+                    .withCmd(cmd)
+                    .exec();
+            dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .exec(new ExecStartResultCallback())
+                    .awaitCompletion(MAINTAIN_INTERVAL, TimeUnit.MILLISECONDS);
+            return isHealthy(container);
+        } catch (Exception e) {
+            log.warn("scrub sandbox container {} error: {}", container.getContainerId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void removeContainer(PooledContainer container) {
+        try {
+            dockerClient.removeContainerCmd(container.getContainerId()).withForce(true).withRemoveVolumes(true).exec();
+        } catch (Exception e) {
+            log.warn("remove sandbox container {} error: {}", container.getContainerId(), e.getMessage());
+        } finally {
+            totalCount.decrementAndGet();
+        }
+    }
+}
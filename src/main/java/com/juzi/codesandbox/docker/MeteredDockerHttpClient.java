@@ -0,0 +1,159 @@
+package com.juzi.codesandbox.docker;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带连接池占用统计的 DockerHttpClient
+ * <p>
+ * 请求从发出到响应关闭期间占用一个连接（exec、stats 等流式响应会一直占用到流关闭），
+ * 借此统计在途请求数、峰值以及超过连接上限需要排队的请求数，用于评估连接池大小。
+ *
+ * @author codejuzi
+ */
+public class MeteredDockerHttpClient implements DockerHttpClient {
+
+    private final DockerHttpClient delegate;
+
+    /**
+     * 连接池最大连接数
+     */
+    private final int maxConnections;
+
+    /**
+     * 在途请求数（占用中的连接数）
+     */
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    /**
+     * 在途请求数峰值
+     */
+    private final AtomicInteger peakActiveRequests = new AtomicInteger();
+
+    /**
+     * 请求总数
+     */
+    private final AtomicLong totalRequests = new AtomicLong();
+
+    /**
+     * 发出时连接池已满、需要等待空闲连接的请求数
+     */
+    private final AtomicLong saturatedRequests = new AtomicLong();
+
+    /**
+     * 失败的请求数
+     */
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    public MeteredDockerHttpClient(DockerHttpClient delegate, int maxConnections) {
+        this.delegate = delegate;
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public Response execute(Request request) {
+        totalRequests.incrementAndGet();
+        int active = activeRequests.incrementAndGet();
+        peakActiveRequests.accumulateAndGet(active, Math::max);
+        if (active > maxConnections) {
+            saturatedRequests.incrementAndGet();
+        }
+        try {
+            return new MeteredResponse(delegate.execute(request));
+        } catch (RuntimeException e) {
+            failedRequests.incrementAndGet();
+            activeRequests.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    public int getPeakActiveRequests() {
+        return peakActiveRequests.get();
+    }
+
+    public long getTotalRequests() {
+        return totalRequests.get();
+    }
+
+    public long getSaturatedRequests() {
+        return saturatedRequests.get();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    /**
+     * 连接池使用率
+     *
+     * @return 在途请求数 / 最大连接数
+     */
+    public double getUtilization() {
+        return (double) activeRequests.get() / maxConnections;
+    }
+
+    /**
+     * 响应关闭时归还连接计数
+     */
+    private class MeteredResponse implements Response {
+
+        private final Response delegate;
+
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private MeteredResponse(Response delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return delegate.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    activeRequests.decrementAndGet();
+                }
+            }
+        }
+    }
+}
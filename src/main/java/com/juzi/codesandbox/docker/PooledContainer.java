@@ -0,0 +1,32 @@
+package com.juzi.codesandbox.docker;
+
+import lombok.Data;
+
+/**
+ * 容器池中的沙箱容器
+ *
+ * @author codejuzi
+ */
+@Data
+public class PooledContainer {
+
+    /**
+     * 容器ID
+     */
+    private final String containerId;
+
+    /**
+     * 创建时间
+     */
+    private final long createTime;
+
+    /**
+     * 最近一次归还（空闲开始）时间
+     */
+    private volatile long lastUsedTime;
+
+    /**
+     * 已执行的提交次数
+     */
+    private volatile int useCount;
+}
@@ -4,6 +4,8 @@ package com.juzi.codesandbox.exec;
 import com.juzi.codesandbox.model.ExecuteCodeRequest;
 import com.juzi.codesandbox.model.ExecuteCodeResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author codejuzi
  */
@@ -16,4 +18,14 @@ public interface CodeSandbox {
      * @return 执行代码响应
      */
     ExecuteCodeResponse execute(ExecuteCodeRequest executeCodeRequest);
+
+    /**
+     * 代码沙箱异步执行接口，默认在公共线程池中执行，实现类应提供有界的专用线程池
+     *
+     * @param executeCodeRequest 执行代码请求
+     * @return 执行代码响应
+     */
+    default CompletableFuture<ExecuteCodeResponse> executeAsync(ExecuteCodeRequest executeCodeRequest) {
+        return CompletableFuture.supplyAsync(() -> execute(executeCodeRequest));
+    }
 }
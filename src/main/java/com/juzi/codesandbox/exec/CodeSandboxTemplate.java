@@ -1,28 +1,47 @@
 package com.juzi.codesandbox.exec;
 
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.lang.UUID;
-import cn.hutool.core.util.RandomUtil;
-import cn.hutool.dfa.FoundWord;
-import cn.hutool.dfa.WordTree;
+import com.juzi.codesandbox.admission.AdmissionController;
+import com.juzi.codesandbox.admission.AdmissionRejectedException;
+import com.juzi.codesandbox.check.CodePreChecker;
+import com.juzi.codesandbox.compile.CompileException;
+import com.juzi.codesandbox.compile.CompiledClassCache;
+import com.juzi.codesandbox.compile.CompileResult;
+import com.juzi.codesandbox.compile.InMemoryJavaCompiler;
+import com.juzi.codesandbox.judge.OutputChecker;
+import com.juzi.codesandbox.language.JavaLanguage;
+import com.juzi.codesandbox.language.LanguageRegistry;
+import com.juzi.codesandbox.language.LanguageStrategy;
+import com.juzi.codesandbox.metrics.SandboxMetrics;
+import com.juzi.codesandbox.model.CaseResult;
 import com.juzi.codesandbox.model.ExecuteCodeRequest;
 import com.juzi.codesandbox.model.ExecuteCodeResponse;
 import com.juzi.codesandbox.model.ExecuteMessage;
 import com.juzi.codesandbox.model.JudgeInfo;
-import com.juzi.codesandbox.utils.ProcessUtil;
+import com.juzi.codesandbox.workspace.Workspace;
+import com.juzi.codesandbox.workspace.WorkspaceManager;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StopWatch;
 
+import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
-import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_DIR_NAME;
-import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_FILE_NAME;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_LIMIT_MODE_CPU;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
 import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.FAILED;
 import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.SUCCESS;
 
@@ -35,97 +54,396 @@ import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.SUCCESS;
 public abstract class CodeSandboxTemplate implements CodeSandbox {
 
     /**
-     * 敏感词（字典树）
+     * 编译模式：in-process 在当前 JVM 内通过 javax.tools 编译，process 启动 javac 进程编译
      */
-    private static final WordTree SENSITIVE_WORD_TREE;
+    @Value("${oj.sandbox.compile-mode:in-process}")
+    private String COMPILE_MODE;
 
-    static {
-        SENSITIVE_WORD_TREE = new WordTree();
-        String projectPath = System.getProperty("user.dir");
-        String sensitiveWordsFilePath = projectPath + File.separator + "src/main/resources/data/sensitive-word.txt";
-        List<String> words = FileUtil.readLines(sensitiveWordsFilePath, StandardCharsets.UTF_8);
-        SENSITIVE_WORD_TREE.addWords(words);
-    }
+    /**
+     * 单个输出流最多保留的字节数，超过后终止执行
+     */
+    @Value("${oj.sandbox.output-limit:16777216}")
+    protected long OUTPUT_LIMIT;
+
+    /**
+     * 时间限制模式：wall 按墙钟时间限制；cpu 按 CPU 时间限制，墙钟时间只作为兜底
+     */
+    @Value("${oj.sandbox.time-limit.mode:wall}")
+    private String TIME_LIMIT_MODE;
+
+    /**
+     * cpu 模式下的墙钟时间兜底限制(ms)，防止阻塞、睡眠的程序一直占用资源
+     */
+    @Value("${oj.sandbox.time-limit.wall-safety:30000}")
+    private long WALL_SAFETY_LIMIT;
+
+    /**
+     * 代码预检查，如敏感词检查
+     */
+    @Resource
+    private List<CodePreChecker> codePreCheckers;
+
+    @Resource
+    private WorkspaceManager workspaceManager;
+
+    @Resource
+    private AdmissionController admissionController;
+
+    @Resource
+    private InMemoryJavaCompiler inMemoryJavaCompiler;
+
+    @Resource
+    private CompiledClassCache compiledClassCache;
+
+    @Resource
+    private LanguageRegistry languageRegistry;
 
+    @Resource
+    private SandboxMetrics sandboxMetrics;
+
+    /**
+     * 指标中的沙箱类型标签
+     */
+    private final String sandboxType = getClass().getSimpleName();
+
+    /**
+     * 异步执行线程池，容量满时拒绝提交
+     */
+    @Resource
+    private ExecutorService sandboxExecutor;
+
+    /**
+     * 执行代码，需先通过准入控制，沙箱繁忙时抛出 {@link com.juzi.codesandbox.admission.AdmissionRejectedException}
+     */
     @Override
     public ExecuteCodeResponse execute(ExecuteCodeRequest executeCodeRequest) {
-        List<String> inputList = executeCodeRequest.getInputList();
+        try (AdmissionController.Permit ignored = admissionController.acquire()) {
+            return doExecute(executeCodeRequest);
+        }
+    }
+
+    /**
+     * 异步执行：在调用线程中不等待地预约许可，等待队列已满时立即拒绝；
+     * 需要排队时由执行线程等待许可，请求线程不阻塞，许可随任务结束归还
+     */
+    @Override
+    public CompletableFuture<ExecuteCodeResponse> executeAsync(ExecuteCodeRequest executeCodeRequest) {
+        AdmissionController.Reservation reservation = admissionController.reserve();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (AdmissionController.Permit ignored = reservation.await()) {
+                    return doExecute(executeCodeRequest);
+                }
+            }, sandboxExecutor);
+        } catch (RuntimeException e) {
+            // 执行线程池已满
+            reservation.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * 流水线执行：准备阶段和执行阶段分别在不同线程池中进行，
+     * 一个提交在执行时，下一个提交可以同时编译
+     * <p>
+     * 在调用线程中等待许可（不设排队超时，形成对批量生产者的背压），许可在执行阶段结束后归还；
+     * 等待期间被中断时返回以 {@link AdmissionRejectedException} 结束的 future，由调用方标记为可重试
+     *
+     * @param executeCodeRequest 执行代码请求
+     * @param prepareExecutor    准备阶段（保存、编译）线程池
+     * @param runExecutor        执行阶段线程池
+     * @return 执行代码响应
+     */
+    public CompletableFuture<ExecuteCodeResponse> executePipelined(ExecuteCodeRequest executeCodeRequest,
+                                                                   Executor prepareExecutor, Executor runExecutor) {
+        AdmissionController.Permit permit;
+        try {
+            permit = admissionController.acquireWithoutTimeout();
+        } catch (AdmissionRejectedException e) {
+            CompletableFuture<ExecuteCodeResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> prepare(executeCodeRequest), prepareExecutor)
+                    .thenApplyAsync(this::run, runExecutor)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.error("execute code error：", cause);
+                        return handleError(cause);
+                    })
+                    .whenComplete((response, e) -> permit.close());
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    private ExecuteCodeResponse doExecute(ExecuteCodeRequest executeCodeRequest) {
+        SandboxSubmission submission;
+        try {
+            submission = prepare(executeCodeRequest);
+        } catch (Exception e) {
+            log.error("execute code error：", e);
+            // 处理异常
+            return handleError(e);
+        }
+        return run(submission);
+    }
+
+    /**
+     * 准备阶段：保存文件、编译代码，失败时清理文件并抛出异常
+     *
+     * @param executeCodeRequest 执行代码请求
+     * @return 待执行的提交
+     */
+    public SandboxSubmission prepare(ExecuteCodeRequest executeCodeRequest) {
         String code = executeCodeRequest.getCode();
-        // todo 考虑不同的language
-//        String language = executeCodeRequest.getLanguage();
+        OutputChecker.validate(executeCodeRequest);
+        LanguageStrategy language = languageRegistry.resolve(executeCodeRequest.getLanguage());
+        if (!supportsLanguage(language)) {
+            throw new IllegalArgumentException("Language " + language.getName() + " is not supported by " + sandboxType);
+        }
+
+        // 0、预检查代码
+        try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "check")) {
+            for (CodePreChecker codePreChecker : codePreCheckers) {
+                codePreChecker.check(code, executeCodeRequest.getLanguage());
+            }
+            stage.success();
+        }
 
-        File userCodeFile = null;
-        ExecuteCodeResponse response;
+        SandboxSubmission submission = new SandboxSubmission(executeCodeRequest, language);
         try {
-            // 1、保存文件
-            userCodeFile = save2File(code);
+            // 1、保存文件，Java 执行不依赖文件且在内存中编译时跳过
+            if (isWorkspaceRequired() || !isJavaLanguage(language) || !isInProcessCompile()) {
+                submission.setWorkspace(workspaceManager.acquire());
+                try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "save2File")) {
+                    submission.setUserCodeFile(save2File(submission.getWorkspace(), language, code));
+                    stage.success();
+                }
+            }
 
             // 2、编译代码
-            ExecuteMessage executeMessage = compileCode(userCodeFile);
+            ExecuteMessage executeMessage;
+            try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "compileCode")) {
+                executeMessage = compileCode(submission, code);
+                stage.success();
+            }
             log.info("Compile Code: {}", executeMessage);
+            submission.setCompileMessage(executeMessage);
+            return submission;
+        } catch (RuntimeException e) {
+            if (e instanceof CompileException) {
+                sandboxMetrics.recordError(sandboxType, SandboxMetrics.ERROR_COMPILE);
+            }
+            if (submission.getWorkspace() != null)
+                clearFile(submission.getWorkspace());
+            throw e;
+        }
+    }
 
+    /**
+     * 执行阶段：执行代码、整理输出，结束后清理文件
+     *
+     * @param submission 已完成准备阶段的提交
+     * @return 执行代码响应
+     */
+    public ExecuteCodeResponse run(SandboxSubmission submission) {
+        try {
             // 3、执行代码
-            List<ExecuteMessage> executeMessageList = runCode(userCodeFile, inputList);
+            List<ExecuteMessage> executeMessageList;
+            try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "runCode")) {
+                executeMessageList = runCode(submission);
+                stage.success();
+            }
+            checkOutputs(submission.getRequest(), executeMessageList);
 
             // 4、获取输出
-            response = getOutputResponse(executeMessageList);
-
+            ExecuteCodeResponse executeCodeResponse;
+            try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "getOutputResponse")) {
+                executeCodeResponse = getOutputResponse(executeMessageList, getCpuTimeLimit(submission.getLanguage()));
+                stage.success();
+            }
+            // CPU 时间超限在整理输出时才标记，之后再记录各用例
+            sandboxMetrics.recordCases(sandboxType, executeMessageList);
+            return executeCodeResponse;
         } catch (Exception e) {
             log.error("execute code error：", e);
             // 处理异常
             return handleError(e);
         } finally {
             // 5、清理文件
-            if (userCodeFile != null)
-                clearFile(userCodeFile);
+            if (submission.getWorkspace() != null)
+                clearFile(submission.getWorkspace());
         }
-
-        return response;
     }
 
-    private File save2File(String code) {
-        // 0、判断code是否包含敏感词
-        FoundWord foundWord = SENSITIVE_WORD_TREE.matchWord(code);
+    private File save2File(Workspace workspace, LanguageStrategy language, String code) {
+        // 1、保存用户代码为文件，每个提交使用独立的工作目录：Main.java、main.cpp ...
+        return workspace.putFile(language.getSourceFileName(), code.getBytes(StandardCharsets.UTF_8));
+    }
 
-        if (foundWord != null) {
-            throw new IllegalArgumentException("Code is Illegal with word: [" + foundWord.getFoundWord() + "]");
+    private ExecuteMessage compileCode(SandboxSubmission submission, String code) {
+        File userCodeFile = submission.getUserCodeFile();
+        LanguageStrategy language = submission.getLanguage();
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        Map<String, byte[]> classBytes;
+        if (compiledClassCache.isEnabled()) {
+            // 相同的代码（重复提交、重判）直接复用编译产物
+            List<String> cacheOptions = new ArrayList<>(language.getCompileOptions());
+            if (isJavaLanguage(language)) {
+                cacheOptions.add(COMPILE_MODE);
+            }
+            String cacheKey = compiledClassCache.buildKey(language.getName(), cacheOptions, code);
+            classBytes = compiledClassCache.getOrCompile(cacheKey, () -> doCompile(language, userCodeFile, code));
+        } else {
+            classBytes = doCompile(language, userCodeFile, code);
+        }
+        submission.setClassBytes(classBytes);
+        // 编译产物写回用户代码目录供后续执行
+        Workspace workspace = submission.getWorkspace();
+        if (workspace != null) {
+            for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+                File artifact = workspace.putFile(language.getArtifactPath(entry.getKey()), entry.getValue());
+                if (!isJavaLanguage(language)) {
+                    artifact.setExecutable(true);
+                }
+            }
         }
-        // 1、保存用户代码为文件
-        // 获取用户工作文件路径
-        String userDir = System.getProperty("user.dir");
-        String globalCodePathName = userDir + File.separator + GLOBAL_CODE_DIR_NAME;
+        stopWatch.stop();
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(0);
+        executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
+        return executeMessage;
+    }
 
-        // 判断全局文件路径是否存在
-        if (!FileUtil.exist(globalCodePathName)) {
-            // 不存在，则创建
-            FileUtil.mkdir(globalCodePathName);
+    /**
+     * 编译代码
+     *
+     * @return 编译产物，Java 为类的全限定名 => 字节码
+     */
+    private Map<String, byte[]> doCompile(LanguageStrategy language, File userCodeFile, String code) {
+        if (isJavaLanguage(language) && isInProcessCompile()) {
+            CompileResult compileResult = inMemoryJavaCompiler.compile("Main", code, language.getCompileOptions());
+            if (!compileResult.isSuccess()) {
+                throw new CompileException("Compile Error!", compileResult.getDiagnostics());
+            }
+            return compileResult.getClassBytes();
         }
-        // 存在，则保存用户提交代码，用户代码隔离存放
-        String userCodeParentPath = globalCodePathName + File.separator + UUID.randomUUID();
-        // 实际存放文件的目录：Main.java
-        String userCodePath = userCodeParentPath + File.separator + GLOBAL_CODE_FILE_NAME;
-        return FileUtil.writeBytes(code.getBytes(StandardCharsets.UTF_8), userCodePath);
+        return language.compile(userCodeFile);
     }
 
-    private ExecuteMessage compileCode(File userCodeFile) throws IOException {
-        // 2、编译代码，得到class文件
-        String compileCmd = String.format("javac -encoding utf-8 %s", userCodeFile.getAbsolutePath());
-        Process compileProcess = Runtime.getRuntime().exec(compileCmd);
-        ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage("Compile Code", compileProcess);
-        if (executeMessage.getExitValue() != 0) {
-            throw new RuntimeException("Compile Error!");
+    /**
+     * 请求指定期望输出时，比较执行过程中没有比较的用例输出（容器等返回完整输出的执行方式），只保留比较结果
+     */
+    private void checkOutputs(ExecuteCodeRequest request, List<ExecuteMessage> executeMessageList) {
+        if (!OutputChecker.isRequired(request)) {
+            return;
         }
-        return executeMessage;
+        for (int i = 0; i < executeMessageList.size(); i++) {
+            ExecuteMessage executeMessage = executeMessageList.get(i);
+            if (executeMessage.getCaseResult() == null && StringUtils.isBlank(executeMessage.getErrorMessage())) {
+                executeMessage.setCaseResult(OutputChecker.create(request, i).check(executeMessage.getMessage()));
+            }
+            executeMessage.setMessage(null);
+        }
+    }
+
+    /**
+     * 执行已编译的提交，默认执行工作目录中的代码
+     */
+    protected List<ExecuteMessage> runCode(SandboxSubmission submission) throws IOException {
+        return runCode(submission.getUserCodeFile(), submission.getRequest().getInputList());
     }
 
     protected abstract List<ExecuteMessage> runCode(File userCodeFile, List<String> inputList) throws IOException;
 
-    private ExecuteCodeResponse getOutputResponse(List<ExecuteMessage> executeMessageList) {
+    /**
+     * 沙箱能否执行该语言，默认只支持 Java
+     */
+    protected boolean supportsLanguage(LanguageStrategy language) {
+        return isJavaLanguage(language);
+    }
+
+    protected static boolean isJavaLanguage(LanguageStrategy language) {
+        return JavaLanguage.NAME.equals(language.getName());
+    }
+
+    /**
+     * 执行阶段是否需要工作目录中的文件；返回 false 且在内存中编译时不再写文件
+     */
+    protected boolean isWorkspaceRequired() {
+        return true;
+    }
+
+    private boolean isInProcessCompile() {
+        return "in-process".equals(COMPILE_MODE) && inMemoryJavaCompiler.isAvailable();
+    }
+
+    /**
+     * 是否按 CPU 时间限制
+     */
+    protected boolean isCpuTimeLimitMode() {
+        return TIME_LIMIT_MODE_CPU.equals(TIME_LIMIT_MODE);
+    }
+
+    /**
+     * 墙钟时间限制(ms)，超过后强制终止
+     */
+    protected long getWallTimeLimit() {
+        return isCpuTimeLimitMode() ? WALL_SAFETY_LIMIT : TIME_OUT;
+    }
+
+    /**
+     * CPU 时间限制(ms)，wall 模式下为 0 表示不限制
+     */
+    protected long getCpuTimeLimit() {
+        return isCpuTimeLimitMode() ? TIME_OUT : 0L;
+    }
+
+    /**
+     * 按语言的时间限制计算墙钟时间限制(ms)
+     */
+    protected long getWallTimeLimit(LanguageStrategy language) {
+        return isCpuTimeLimitMode() ? Math.max(WALL_SAFETY_LIMIT, language.getTimeLimit()) : language.getTimeLimit();
+    }
+
+    /**
+     * 按语言的时间限制计算 CPU 时间限制(ms)，wall 模式下为 0 表示不限制
+     */
+    protected long getCpuTimeLimit(LanguageStrategy language) {
+        return isCpuTimeLimitMode() ? language.getTimeLimit() : 0L;
+    }
+
+    ExecuteCodeResponse getOutputResponse(List<ExecuteMessage> executeMessageList) {
+        return getOutputResponse(executeMessageList, getCpuTimeLimit());
+    }
+
+    private ExecuteCodeResponse getOutputResponse(List<ExecuteMessage> executeMessageList, long cpuTimeLimit) {
         // 4、整理输出结果
         ExecuteCodeResponse executeCodeResponse = new ExecuteCodeResponse();
         long maxExecTime = 0L;
+        Long maxCpuTime = null;
+        Long maxMemory = null;
         List<String> outputList = new ArrayList<>();
+        List<CaseResult> caseResultList = new ArrayList<>();
+        int finished = 0;
+        boolean wrongAnswer = false;
         for (ExecuteMessage executeMessage : executeMessageList) {
+            Long memory = executeMessage.getMemory();
+            if (memory != null) {
+                maxMemory = maxMemory == null ? memory : Math.max(maxMemory, memory);
+            }
+            Long cpuTime = executeMessage.getCpuTime();
+            if (cpuTime != null) {
+                maxCpuTime = maxCpuTime == null ? cpuTime : Math.max(maxCpuTime, cpuTime);
+                if (cpuTimeLimit > 0 && cpuTime > cpuTimeLimit && StringUtils.isBlank(executeMessage.getErrorMessage())) {
+                    // 正常结束但 CPU 时间超限
+                    executeMessage.setErrorMessage(TIME_OUT_MESSAGE);
+                }
+            }
             String errorMessage = executeMessage.getErrorMessage();
             if (StringUtils.isNotBlank(errorMessage)) {
                 // 执行中出错
@@ -133,28 +451,50 @@ public abstract class CodeSandboxTemplate implements CodeSandbox {
                 executeCodeResponse.setStatus(FAILED.getValue());
                 break;
             }
-            outputList.add(executeMessage.getMessage());
+            CaseResult caseResult = executeMessage.getCaseResult();
+            if (caseResult != null) {
+                caseResultList.add(caseResult);
+            } else {
+                outputList.add(executeMessage.getMessage());
+            }
+            finished++;
 
             Long execTime = Optional.ofNullable(executeMessage.getTime()).orElse(0L);
             maxExecTime = Math.max(maxExecTime, execTime);
+            if (caseResult != null && !CaseResult.ACCEPTED.equals(caseResult.getVerdict())) {
+                // 答案错误，后续用例没有执行
+                wrongAnswer = true;
+                break;
+            }
         }
-        // 正常执行
-        if (outputList.size() == executeMessageList.size()) {
+        // 正常执行（答案错误也是正常执行结束）
+        if (finished == executeMessageList.size() || wrongAnswer) {
             executeCodeResponse.setStatus(SUCCESS.getValue());
         }
         executeCodeResponse.setOutputList(outputList);
 
         JudgeInfo judgeInfo = new JudgeInfo();
+        if (!caseResultList.isEmpty()) {
+            executeCodeResponse.setCaseResultList(caseResultList);
+            if (SUCCESS.getValue().equals(executeCodeResponse.getStatus())) {
+                judgeInfo.setMessage(wrongAnswer ? CaseResult.WRONG_ANSWER : CaseResult.ACCEPTED);
+            }
+        }
 
-        judgeInfo.setMemory(RandomUtil.randomLong(1000L, 5000L));
+        // 各用例内存峰值的最大值，均未测量时为 null
+        judgeInfo.setMemory(maxMemory);
         judgeInfo.setTime(maxExecTime);
+        judgeInfo.setCpuTime(maxCpuTime);
         executeCodeResponse.setJudgeInfo(judgeInfo);
         return executeCodeResponse;
     }
 
-    private void clearFile(File file) {
-        boolean delFileRes = FileUtil.del(file.getParentFile());
-        log.info("Delete File Result: {}", delFileRes);
+    private void clearFile(Workspace workspace) {
+        // 工作目录清空后回收复用
+        try (SandboxMetrics.Stage stage = sandboxMetrics.stage(sandboxType, "clearFile")) {
+            workspaceManager.release(workspace);
+            stage.success();
+        }
     }
 
     private ExecuteCodeResponse handleError(Throwable e) {
@@ -163,6 +503,9 @@ public abstract class CodeSandboxTemplate implements CodeSandbox {
         response.setMessage(e.getMessage());
         response.setStatus(FAILED.getValue());
         response.setJudgeInfo(new JudgeInfo());
+        if (e instanceof CompileException) {
+            response.setCompileDiagnostics(((CompileException) e).getDiagnostics());
+        }
         return response;
     }
 
@@ -1,32 +1,51 @@
 package com.juzi.codesandbox.exec;
 
-import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.ArrayUtil;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.*;
 import com.github.dockerjava.api.model.*;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.command.ExecStartResultCallback;
-import com.juzi.codesandbox.model.ExecuteCodeRequest;
-import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.docker.ContainerCgroupReader;
+import com.juzi.codesandbox.docker.DockerContainerPool;
+import com.juzi.codesandbox.docker.PooledContainer;
 import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.runner.RunnerCodec;
+import com.juzi.codesandbox.runner.RunnerMain;
+import com.juzi.codesandbox.runner.RunnerPool;
+import com.juzi.codesandbox.runner.RunnerResponse;
+import com.juzi.codesandbox.runner.RunnerSecurityManager;
+import com.juzi.codesandbox.utils.DockerUtil;
+import com.juzi.codesandbox.workspace.WorkspaceManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StopWatch;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
-import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+import static com.juzi.codesandbox.utils.DockerUtil.CONTAINER_CODE_PATH;
+import static com.juzi.codesandbox.utils.DockerUtil.CONTAINER_RUNNER_PATH;
 
 /**
  * Docker实现代码沙箱
@@ -37,43 +56,199 @@ import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
 @Component
 public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
 
-    @Value("${oj.docker.host:localhost}")
-    private String DOCKER_HOST;
+    private boolean FIRST_INIT = true;
+
+    /**
+     * 批量执行模式：所有用例随一次 exec 的标准输入发送，由容器内的 RunnerMain 逐个执行并按帧返回结果
+     */
+    @Value("${oj.docker.harness.enabled:false}")
+    private boolean HARNESS_ENABLED;
+
+    /**
+     * 批量执行时容器内 JVM 启动的宽限时间(ms)
+     */
+    private static final long HARNESS_START_GRACE = 10000L;
+
+    /**
+     * 全局共享的 DockerClient
+     */
+    @Resource
+    private DockerClient dockerClient;
+
+    @Resource
+    private DockerContainerPool containerPool;
+
+    @Resource
+    private ContainerCgroupReader cgroupReader;
+
+    @Resource
+    private WorkspaceManager workspaceManager;
+
+    /**
+     * 宿主机上的执行器类目录，位于工作目录的根目录下（bind 模式）
+     */
+    private String runnerPath;
+
+    /**
+     * 执行器类，随编译产物一起复制进容器（copy 模式、池容器）
+     */
+    private Map<String, byte[]> runnerClasses = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        if (!HARNESS_ENABLED) {
+            return;
+        }
+        if (containerPool.isCopyTransfer() || containerPool.isEnabled()) {
+            runnerClasses = RunnerPool.readRunnerClasses();
+        }
+        if (!containerPool.isCopyTransfer()) {
+            runnerPath = RunnerPool.deployRunnerClasses(workspaceManager.getRootDir().getAbsolutePath());
+        }
+    }
 
-    @Value("${oj.docker.api-version:1.43}")
-    private String API_VERSION;
+    @Override
+    protected boolean isWorkspaceRequired() {
+        // copy 模式直接打包内存中的编译产物，不需要宿主机上的文件
+        return !containerPool.isCopyTransfer();
+    }
 
-    private boolean FIRST_INIT = true;
+    @Override
+    protected List<ExecuteMessage> runCode(SandboxSubmission submission) throws IOException {
+        if (!containerPool.isCopyTransfer()) {
+            return super.runCode(submission);
+        }
+        List<String> inputList = submission.getRequest().getInputList();
+        if (containerPool.isEnabled()) {
+            // 池容器跨提交复用，每次提交复制到独立的子目录，归还时清空
+            String dirName = UUID.fastUUID().toString(true);
+            byte[] codeArchive = buildCodeArchive(dirName + "/", toClassFiles(submission.getClassBytes()));
+            return runCodeInPool(dirName, codeArchive, inputList);
+        }
+        return runCodeInContainer(null, buildCodeArchive("", toClassFiles(submission.getClassBytes())), inputList);
+    }
 
     @Override
     protected List<ExecuteMessage> runCode(File userCodeFile, List<String> inputList) {
-        // 3、创建容器，上传编译文件
-        DockerClient dockerClient = createDockerClient();
+        if (containerPool.isEnabled()) {
+            // 池容器不挂载宿主机目录，把本次提交的工作目录复制到容器内的同名子目录
+            File userCodeDir = userCodeFile.getParentFile();
+            byte[] codeArchive = buildCodeArchive(userCodeDir.getName() + "/", readWorkspaceFiles(userCodeDir));
+            return runCodeInPool(userCodeDir.getName(), codeArchive, inputList);
+        }
+        return runCodeInContainer(userCodeFile, null, inputList);
+    }
 
+    /**
+     * 为本次提交创建容器执行，结束后删除容器
+     *
+     * @param userCodeFile 用户代码文件，copy 模式下为 null
+     * @param codeArchive  复制进容器的编译产物，bind 模式下为 null
+     */
+    private List<ExecuteMessage> runCodeInContainer(File userCodeFile, byte[] codeArchive, List<String> inputList) {
+        // 3、创建容器，上传编译文件
         // 3.1 拉取镜像
         String image = "openjdk:8-alpine";
 //        pullImage(dockerClient, image);
 
         // 3.2 创建容器，获取容器ID
         String containerId = createContainer(dockerClient, image, userCodeFile);
+        try {
+            // 3.3 启动容器
+            dockerClient.startContainerCmd(containerId).exec();
+
+            // tmpfs 在容器启动后才挂载，copy 模式在启动后复制
+            String containerRunnerPath = CONTAINER_RUNNER_PATH;
+            if (codeArchive != null) {
+                copyArchive(containerId, codeArchive);
+                containerRunnerPath = CONTAINER_CODE_PATH + "/" + RunnerPool.RUNNER_DIR_NAME;
+            }
 
-        // 3.3 启动容器
-        dockerClient.startContainerCmd(containerId).exec();
+            // 3.4 执行命令：docker exec containerId java -cp /app/code Main args
+            return HARNESS_ENABLED
+                    ? execHarness(dockerClient, containerId, CONTAINER_CODE_PATH, containerRunnerPath, inputList)
+                    : execCmd(dockerClient, containerId, CONTAINER_CODE_PATH, inputList);
+        } finally {
+            // 删除容器（强制删除）
+            dockerClient.removeContainerCmd(containerId).withForce(true).withRemoveVolumes(true).exec();
+        }
+    }
 
-        // 3.4 执行命令：docker exec containerId java -cp /app/code Main args
-        List<ExecuteMessage> execMessageList = execCmd(dockerClient, containerId, inputList);
+    /**
+     * 从容器池租借预热的容器执行，先把编译产物复制到以提交目录名命名的子目录，归还时清空
+     */
+    private List<ExecuteMessage> runCodeInPool(String dirName, byte[] codeArchive, List<String> inputList) {
+        PooledContainer container;
+        try {
+            container = containerPool.lease();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        boolean reusable = false;
+        try {
+            String classPath = CONTAINER_CODE_PATH + "/" + dirName;
+            String containerRunnerPath = classPath + "/" + RunnerPool.RUNNER_DIR_NAME;
+            copyArchive(container.getContainerId(), codeArchive);
+            List<ExecuteMessage> execMessageList = HARNESS_ENABLED
+                    ? execHarness(dockerClient, container.getContainerId(), classPath, containerRunnerPath, inputList)
+                    : execCmd(dockerClient, container.getContainerId(), classPath, inputList);
+            reusable = true;
+            return execMessageList;
+        } finally {
+            containerPool.release(container, reusable);
+        }
+    }
 
-        // 删除容器（强制删除）
-        dockerClient.removeContainerCmd(containerId).withForce(true).exec();
-        return execMessageList;
+    /**
+     * 把编译产物（批量执行时加上执行器类）打包为 tar 归档
+     *
+     * @param prefix 归档内的目录前缀，为空或以 / 结尾
+     * @param files  相对路径 => 内容
+     */
+    private byte[] buildCodeArchive(String prefix, Map<String, byte[]> files) {
+        Map<String, byte[]> archiveFiles = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            archiveFiles.put(prefix + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, byte[]> entry : runnerClasses.entrySet()) {
+            archiveFiles.put(prefix + RunnerPool.RUNNER_DIR_NAME + "/" + entry.getKey(), entry.getValue());
+        }
+        return DockerUtil.buildArchive(archiveFiles);
     }
 
-    private DockerClient createDockerClient() {
-        DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                .withDockerHost(DOCKER_HOST)
-                .withApiVersion(API_VERSION)
-                .build();
-        return DockerClientBuilder.getInstance(config).build();
+    /**
+     * 类的全限定名 => 字节码 转为 class 文件的相对路径 => 字节码
+     */
+    private static Map<String, byte[]> toClassFiles(Map<String, byte[]> classBytes) {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : classBytes.entrySet()) {
+            files.put(entry.getKey().replace('.', '/') + ".class", entry.getValue());
+        }
+        return files;
+    }
+
+    /**
+     * 读取工作目录中的全部文件：相对路径 => 内容
+     */
+    private static Map<String, byte[]> readWorkspaceFiles(File userCodeDir) {
+        String basePath = userCodeDir.getAbsolutePath() + File.separator;
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (File file : FileUtil.loopFiles(userCodeDir)) {
+            String relativePath = file.getAbsolutePath().substring(basePath.length());
+            files.put(relativePath.replace(File.separatorChar, '/'), FileUtil.readBytes(file));
+        }
+        return files;
+    }
+
+    /**
+     * 把 tar 归档解压到容器的代码目录，不经过宿主机文件系统
+     */
+    private void copyArchive(String containerId, byte[] codeArchive) {
+        dockerClient.copyArchiveToContainerCmd(containerId)
+                .withRemotePath(CONTAINER_CODE_PATH)
+                .withTarInputStream(new ByteArrayInputStream(codeArchive))
+                .exec();
     }
 
     private void pullImage(DockerClient dockerClient, String image) {
@@ -99,22 +274,21 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
 
     private String createContainer(DockerClient dockerClient, String image, File userCodeFile) {
         CreateContainerCmd containerCmd = dockerClient.createContainerCmd(image);
-        // 创建容器配置
-        HostConfig hostConfig = new HostConfig();
-        // 限制内存
-        hostConfig.withMemory(100 * 1000 * 1000L);
-        hostConfig.withMemorySwap(0L);
-        // 设置CPU核数
-        hostConfig.withCpuCount(1L);
-        // 限制用户使用 root 权限写文件
-        hostConfig.withReadonlyRootfs(true);
-        // 开启Linux安全配置
-        String linuxSecurityConfig = ResourceUtil.readUtf8Str("linux/security_config.json");
-        hostConfig.withSecurityOpts(Collections.singletonList("seccomp=" + linuxSecurityConfig));
-        // TODO 设置容器挂载目录
-        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-//        hostConfig.setBinds(new Bind(userCodeParentPath, new Volume("/app/code")));
-        hostConfig.setBinds(new Bind("/home/oj/code/", new Volume("/app/code")));
+        // 创建容器配置：资源限制、只读根目录、seccomp
+        HostConfig hostConfig = DockerUtil.buildSandboxHostConfig();
+        if (userCodeFile == null) {
+            // copy 模式：根目录只读，复制进容器的代码放在大小受限的 tmpfs 中
+            hostConfig.withTmpFs(DockerUtil.buildCodeTmpFs(containerPool.getCodeTmpFsSize()));
+        } else {
+            // 只读挂载本次提交的工作目录，批量执行时另外挂载执行器类目录
+            String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
+            List<Bind> binds = new ArrayList<>();
+            binds.add(new Bind(userCodeParentPath, new Volume(CONTAINER_CODE_PATH), AccessMode.ro));
+            if (HARNESS_ENABLED) {
+                binds.add(new Bind(runnerPath, new Volume(CONTAINER_RUNNER_PATH), AccessMode.ro));
+            }
+            hostConfig.setBinds(binds.toArray(new Bind[0]));
+        }
         CreateContainerResponse response = containerCmd
                 .withHostConfig(hostConfig)
                 // 禁用网络
@@ -129,13 +303,11 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
         return response.getId();
     }
 
-    private List<ExecuteMessage> execCmd(DockerClient dockerClient, String containerId, List<String> inputList) {
+    private List<ExecuteMessage> execCmd(DockerClient dockerClient, String containerId, String classPath, List<String> inputList) {
         List<ExecuteMessage> execMessageList = new ArrayList<>();
 
         StopWatch stopWatch = new StopWatch();
 
-        // 最大内存占用
-        final Long[] maxMemory = {0L};
         final String[] dockerMessage = new String[1];
         final List<String> outputList = new ArrayList<>();
         final String[] errorDockerMessage = new String[1];
@@ -143,7 +315,7 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
 
         for (String inputArgs : inputList) {
             String[] inputArgsArr = inputArgs.split(" ");
-            String[] cmdArr = ArrayUtil.append(new String[]{"java", "-cp", "/app/code", "Main"}, inputArgsArr);
+            String[] cmdArr = ArrayUtil.append(new String[]{"java", "-cp", classPath, "Main"}, inputArgsArr);
             ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
                     .withCmd(cmdArr)
                     .withAttachStderr(true)
@@ -182,49 +354,24 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
                 }
             };
 
-            // 3.5 获取占用的内存
-            StatsCmd statsCmd = dockerClient.statsCmd(containerId);
-            ResultCallback<Statistics> statisticsResultCallback = statsCmd.exec(new ResultCallback<Statistics>() {
-                @Override
-                public void onStart(Closeable closeable) {
-                }
-
-                @Override
-                public void onNext(Statistics statistics) {
-                    Long usageMemory = Optional.ofNullable(statistics.getMemoryStats().getUsage()).orElse(0L);
-                    log.info("memory cost: {}", usageMemory);
-                    maxMemory[0] = Math.max(usageMemory, maxMemory[0]);
-                }
-
-                @Override
-                public void onError(Throwable throwable) {
-                }
-
-                @Override
-                public void onComplete() {
-                }
-
-                @Override
-                public void close() {
-
-                }
-            });
-            statsCmd.exec(statisticsResultCallback);
-
+            // 3.5 内存、CPU 时间直接读取容器 cgroup，不再订阅 stats 流
+            ContainerCgroupReader.Measurement measurement = cgroupReader.start(containerId);
             try {
                 // 执行启动命令
                 stopWatch.start();
                 dockerClient.execStartCmd(execId)
                         .exec(execStartResultCallback)
-                        .awaitCompletion(TIME_OUT, TimeUnit.MILLISECONDS);
+                        .awaitCompletion(getWallTimeLimit(), TimeUnit.MILLISECONDS);
                 stopWatch.stop();
                 // 获取总时间
                 time = stopWatch.getLastTaskTimeMillis();
-                // 关闭统计
-                statsCmd.close();
             } catch (InterruptedException e) {
                 log.error("docker exec error");
                 throw new RuntimeException(e);
+            } finally {
+                // 关闭执行流，归还共享连接池中的连接
+                closeQuietly(execStartResultCallback);
+                measurement.finish();
             }
 
             ExecuteMessage executeMessage = new ExecuteMessage();
@@ -233,7 +380,8 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
             }
             executeMessage.setTime(time);
             executeMessage.setErrorMessage(errorDockerMessage[0]);
-            executeMessage.setMemory(maxMemory[0]);
+            executeMessage.setMemory(measurement.getMemory());
+            executeMessage.setCpuTime(measurement.getCpuTime());
             execMessageList.add(executeMessage);
         }
 
@@ -244,4 +392,98 @@ public class JavaDockerCodeSandbox extends CodeSandboxTemplate {
         return execMessageList;
     }
 
+    /**
+     * 一次 exec 执行全部用例：启动容器内的 RunnerMain（harness 模式），标准输入写入用例数和所有用例请求，
+     * 标准输出按帧返回每个用例的输出、错误、退出码、耗时和内存。用例需要回收执行器（如超时）时提前结束。
+     */
+    private List<ExecuteMessage> execHarness(DockerClient dockerClient, String containerId, String classPath,
+                                             String containerRunnerPath, List<String> inputList) {
+        byte[] requests;
+        try {
+            ByteArrayOutputStream requestBuffer = new ByteArrayOutputStream();
+            DataOutputStream requestOutput = new DataOutputStream(requestBuffer);
+            requestOutput.writeInt(inputList.size());
+            for (String inputArgs : inputList) {
+                RunnerCodec.writeRequest(requestOutput, classPath, Arrays.asList(inputArgs.split(" ")), null,
+                        getWallTimeLimit(), getCpuTimeLimit(), OUTPUT_LIMIT);
+            }
+            requestOutput.flush();
+            requests = requestBuffer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                .withCmd("java", "-Dfile.encoding=UTF-8",
+                        "-cp", containerRunnerPath,
+                        "-Djava.security.manager=" + RunnerSecurityManager.class.getName(),
+                        RunnerMain.class.getName(), RunnerMain.HARNESS_MODE)
+                .withAttachStderr(true)
+                .withAttachStdin(true)
+                .withAttachStdout(true)
+                .exec();
+        String execId = execCreateCmdResponse.getId();
+        log.info("create harness exec ID：{}", execId);
+
+        ByteArrayOutputStream responseBuffer = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorBuffer = new ByteArrayOutputStream();
+        ResultCallback.Adapter<Frame> execCallback = new ResultCallback.Adapter<Frame>() {
+            @Override
+            public void onNext(Frame frame) {
+                if (StreamType.STDERR.equals(frame.getStreamType())) {
+                    errorBuffer.write(frame.getPayload(), 0, frame.getPayload().length);
+                } else {
+                    responseBuffer.write(frame.getPayload(), 0, frame.getPayload().length);
+                }
+            }
+        };
+        try {
+            boolean completed = dockerClient.execStartCmd(execId)
+                    .withStdIn(new ByteArrayInputStream(requests))
+                    .exec(execCallback)
+                    .awaitCompletion(getWallTimeLimit() * inputList.size() + HARNESS_START_GRACE, TimeUnit.MILLISECONDS);
+            if (!completed) {
+                log.error("harness exec time out: {}", execId);
+            }
+        } catch (InterruptedException e) {
+            log.error("docker exec error");
+            throw new RuntimeException(e);
+        } finally {
+            closeQuietly(execCallback);
+        }
+        if (errorBuffer.size() > 0) {
+            log.warn("harness error message：{}", new String(errorBuffer.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        // 按帧解析已完成的用例
+        List<ExecuteMessage> execMessageList = new ArrayList<>();
+        DataInputStream responseInput = new DataInputStream(new ByteArrayInputStream(responseBuffer.toByteArray()));
+        try {
+            RunnerCodec.readReady(responseInput);
+            while (execMessageList.size() < inputList.size()) {
+                RunnerResponse response = RunnerCodec.readResponse(responseInput, false);
+                execMessageList.add(response.getExecuteMessage());
+                if (response.isRecycle()) {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // 容器内 JVM 异常退出或整体超时，剩余用例视为超时
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setErrorMessage(TIME_OUT_MESSAGE);
+            execMessageList.add(executeMessage);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return execMessageList;
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.warn("close docker stream error", e);
+        }
+    }
+
 }
@@ -1,26 +1,23 @@
 package com.juzi.codesandbox.exec;
 
-import cn.hutool.core.util.StrUtil;
+import com.juzi.codesandbox.judge.OutputChecker;
+import com.juzi.codesandbox.language.LanguageStrategy;
 import com.juzi.codesandbox.model.ExecuteMessage;
 import com.juzi.codesandbox.utils.ProcessUtil;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-
-import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+import java.util.Collections;
 
 /**
+ * 交互式（ACM 模式）原生代码沙箱，用例输入通过标准输入写入，同时支持其他语言
+ *
  * @author codejuzi
  */
-@Slf4j
 @Component
-public class JavaNativeAcmCodeSandbox extends CodeSandboxTemplate {
+public class JavaNativeAcmCodeSandbox extends JavaNativeCodeSandbox {
 
     // todo 上线换成实际的path "/root/ju-oj/security"
     @Value("${oj.sandbox.security-manager-path:/Users/codejuzi/Documents/CodeWorkSpace/Projects/JuOj/code-sandbox/src/main/resources/security}")
@@ -30,43 +27,28 @@ public class JavaNativeAcmCodeSandbox extends CodeSandboxTemplate {
     private String SECURITY_CLASS_NAME;
 
     @Override
-    protected List<ExecuteMessage> runCode(File userCodeFile, List<String> inputList) throws IOException {
-        // 3、执行代码
+    protected boolean supportsLanguage(LanguageStrategy language) {
+        return true;
+    }
+
+    @Override
+    protected Process startProcess(String userCodeParentPath, String input) throws IOException {
         // 此处OS X / Linux下是使用 `:` 分割不同类，windows下是使用 `;` 分割不同类名
         String runCmdPattern = "java -Xmx156m -Dfile.encoding=UTF-8 -cp %s" + File.pathSeparator + "%s -Djava.security.manager=%s Main";
-        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-        List<ExecuteMessage> executeMessageList = new ArrayList<>();
-        StopWatch stopWatch = new StopWatch();
-        for (String inputArgs : inputList) {
-            String runCmd = String.format(runCmdPattern, userCodeParentPath,
-                    SECURITY_MANAGER_CLASS_PATH, SECURITY_CLASS_NAME);
+        String runCmd = String.format(runCmdPattern, userCodeParentPath,
+                SECURITY_MANAGER_CLASS_PATH, SECURITY_CLASS_NAME);
+        return Runtime.getRuntime().exec(runCmd);
+    }
 
-            stopWatch.start();
-            Process runProcess = Runtime.getRuntime().exec(runCmd);
-            // 超时控制
-            Thread timeOutThread = new Thread(() -> {
-                try {
-                    Thread.sleep(TIME_OUT);
-                    log.warn("run code is time out, interrupt");
-                    runProcess.destroy();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }, "time_out_thread");
-            timeOutThread.start();
-            ExecuteMessage executeMessage = ProcessUtil.getInteractProcessMessage(runProcess, inputArgs); // 交互式
-            stopWatch.stop();
-            if (!timeOutThread.isAlive()) {
-                executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
-                executeMessage.setErrorMessage("Time out");
-            }
-            log.info("execute message: {}", executeMessage);
-            executeMessageList.add(executeMessage);
-            if (StrUtil.isNotBlank(executeMessage.getErrorMessage())) {
-                // 已经有用例失败了
-                break;
-            }
-        }
-        return executeMessageList;
+    @Override
+    protected ExecuteMessage getProcessMessage(Process runProcess, String input, OutputChecker outputChecker)
+            throws IOException {
+        return ProcessUtil.getInteractProcessMessage(runProcess, input, OUTPUT_LIMIT, outputChecker); // 交互式
+    }
+
+    @Override
+    protected ExecuteMessage runInRunner(String userCodeParentPath, String input) throws IOException {
+        return runnerPool.execute(userCodeParentPath, Collections.emptyList(), input,
+                getWallTimeLimit(), getCpuTimeLimit(), OUTPUT_LIMIT);
     }
 }
@@ -1,26 +1,22 @@
 package com.juzi.codesandbox.exec;
 
-import cn.hutool.core.util.StrUtil;
+import com.juzi.codesandbox.judge.OutputChecker;
 import com.juzi.codesandbox.model.ExecuteMessage;
 import com.juzi.codesandbox.utils.ProcessUtil;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
-
 /**
  * @author codejuzi
  */
-@Slf4j
 @Component
-public class JavaNativeArgsCodeSandbox extends CodeSandboxTemplate {
+public class JavaNativeArgsCodeSandbox extends JavaNativeCodeSandbox {
 
     // todo 上线换成实际的path "/root/ju-oj/security"
     @Value("${oj.sandbox.security-manager-path:/Users/codejuzi/Documents/CodeWorkSpace/Project/JuOj/code-sandbox/src/main/resources/security}")
@@ -30,43 +26,24 @@ public class JavaNativeArgsCodeSandbox extends CodeSandboxTemplate {
     private String SECURITY_CLASS_NAME;
 
     @Override
-    protected List<ExecuteMessage> runCode(File userCodeFile, List<String> inputList) throws IOException {
-        // 3、执行代码
+    protected Process startProcess(String userCodeParentPath, String input) throws IOException {
         // 此处OS X / Linux下是使用 `:` 分割不同类，windows下是使用 `;` 分割不同类名
         String runCmdPattern = "java -Xmx156m -Dfile.encoding=UTF-8 -cp %s" + File.pathSeparator + "%s -Djava.security.manager=%s Main %s";
-        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
-        List<ExecuteMessage> executeMessageList = new ArrayList<>();
-        StopWatch stopWatch = new StopWatch();
-        for (String inputArgs : inputList) {
-            String runCmd = String.format(runCmdPattern, userCodeParentPath,
-                    SECURITY_MANAGER_CLASS_PATH, SECURITY_CLASS_NAME, inputArgs);
+        String runCmd = String.format(runCmdPattern, userCodeParentPath,
+                SECURITY_MANAGER_CLASS_PATH, SECURITY_CLASS_NAME, input);
+        return Runtime.getRuntime().exec(runCmd);
+    }
+
+    @Override
+    protected ExecuteMessage getProcessMessage(Process runProcess, String input, OutputChecker outputChecker) {
+        return ProcessUtil.getRunProcessMessage("Run Code", runProcess, getWallTimeLimit(), OUTPUT_LIMIT, outputChecker);
+    }
 
-            stopWatch.start();
-            Process runProcess = Runtime.getRuntime().exec(runCmd);
-            // 超时控制
-            Thread timeOutThread = new Thread(() -> {
-                try {
-                    Thread.sleep(TIME_OUT);
-                    log.warn("run code is time out, interrupt");
-                    runProcess.destroy();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }, "time_out_thread");
-            timeOutThread.start();
-            ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage("Run Code", runProcess);
-            stopWatch.stop();
-            if (!timeOutThread.isAlive()) {
-                executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
-                executeMessage.setErrorMessage("Time out");
-            }
-            log.info("execute message: {}", executeMessage);
-            executeMessageList.add(executeMessage);
-            if (StrUtil.isNotBlank(executeMessage.getErrorMessage())) {
-                // 已经有用例失败了
-                break;
-            }
-        }
-        return executeMessageList;
+    @Override
+    protected ExecuteMessage runInRunner(String userCodeParentPath, String input) throws IOException {
+        // 与命令行一致，按空白拆分参数
+        String trimmedInput = input.trim();
+        List<String> args = trimmedInput.isEmpty() ? Collections.emptyList() : Arrays.asList(trimmedInput.split("\\s+"));
+        return runnerPool.execute(userCodeParentPath, args, null, getWallTimeLimit(), getCpuTimeLimit(), OUTPUT_LIMIT);
     }
 }
@@ -0,0 +1,345 @@
+package com.juzi.codesandbox.exec;
+
+import cn.hutool.core.util.StrUtil;
+import com.juzi.codesandbox.judge.OutputChecker;
+import com.juzi.codesandbox.language.JavaLanguage;
+import com.juzi.codesandbox.language.LanguageStrategy;
+import com.juzi.codesandbox.model.CaseResult;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.runner.RunnerPool;
+import com.juzi.codesandbox.utils.ProcessUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StopWatch;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+
+/**
+ * Java 原生代码沙箱：每个测试用例启动一个 JVM 进程执行
+ * <p>
+ * 默认按输入顺序逐个执行；开启并行模式后，用例分发到共享线程池并发执行，
+ * 输出顺序与 inputList 保持一致，任一用例出错时取消其余用例。
+ * 开启常驻执行器（oj.sandbox.runner.enabled）后，用例交给常驻 JVM 池执行，不再单独启动进程。
+ * 支持其他语言（C、C++、Go、Python）的沙箱由 {@link LanguageStrategy} 启动进程，用例输入通过标准输入写入。
+ * 请求指定期望输出时，读取输出的同时比较，不一致时杀掉进程，并且不再执行后续用例。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+public abstract class JavaNativeCodeSandbox extends CodeSandboxTemplate {
+
+    /**
+     * 是否并行执行测试用例
+     */
+    @Value("${oj.sandbox.parallel.enabled:false}")
+    private boolean PARALLEL_ENABLED;
+
+    /**
+     * 单次提交最多同时执行的用例数
+     */
+    @Value("${oj.sandbox.parallel.max-per-submission:4}")
+    private int MAX_PARALLELISM;
+
+    @Resource
+    private ExecutorService testCaseExecutor;
+
+    @Resource
+    private ProcessWatchdog processWatchdog;
+
+    @Resource
+    private ResourceSampler resourceSampler;
+
+    @Resource
+    protected RunnerPool runnerPool;
+
+    @Resource
+    private JavaLanguage javaLanguage;
+
+    /**
+     * 启动执行用户代码的进程
+     *
+     * @param userCodeParentPath 用户代码目录
+     * @param input              用例输入
+     * @return 进程
+     */
+    protected abstract Process startProcess(String userCodeParentPath, String input) throws IOException;
+
+    /**
+     * 等待进程结束并获取执行信息
+     *
+     * @param runProcess    进程
+     * @param input         用例输入
+     * @param outputChecker stdout 的检查器，未指定期望输出时为 null
+     * @return 执行信息
+     */
+    protected abstract ExecuteMessage getProcessMessage(Process runProcess, String input,
+                                                        OutputChecker outputChecker) throws IOException;
+
+    /**
+     * 在常驻执行器中执行用例
+     *
+     * @param userCodeParentPath 用户代码目录
+     * @param input              用例输入
+     * @return 执行信息
+     */
+    protected abstract ExecuteMessage runInRunner(String userCodeParentPath, String input) throws IOException;
+
+    @Override
+    protected List<ExecuteMessage> runCode(SandboxSubmission submission) throws IOException {
+        ExecuteCodeRequest request = submission.getRequest();
+        return runCode(submission.getUserCodeFile(), submission.getLanguage(), request.getInputList(),
+                index -> OutputChecker.create(request, index));
+    }
+
+    @Override
+    protected List<ExecuteMessage> runCode(File userCodeFile, List<String> inputList) throws IOException {
+        return runCode(userCodeFile, javaLanguage, inputList, index -> null);
+    }
+
+    private List<ExecuteMessage> runCode(File userCodeFile, LanguageStrategy language, List<String> inputList,
+                                         IntFunction<OutputChecker> checkerFactory) throws IOException {
+        // 3、执行代码
+        String userCodeParentPath = userCodeFile.getParentFile().getAbsolutePath();
+        if (PARALLEL_ENABLED && MAX_PARALLELISM > 1 && inputList.size() > 1) {
+            return runCodeParallel(userCodeParentPath, language, inputList, checkerFactory);
+        }
+        List<ExecuteMessage> executeMessageList = new ArrayList<>();
+        CaseGroup caseGroup = new CaseGroup();
+        for (int i = 0; i < inputList.size(); i++) {
+            ExecuteMessage executeMessage = runCase(userCodeParentPath, language, inputList.get(i),
+                    checkerFactory.apply(i), i, caseGroup);
+            executeMessageList.add(executeMessage);
+            if (isFailed(executeMessage)) {
+                // 已经有用例失败了
+                break;
+            }
+        }
+        return executeMessageList;
+    }
+
+    /**
+     * 用例出错或答案错误
+     */
+    private static boolean isFailed(ExecuteMessage executeMessage) {
+        CaseResult caseResult = executeMessage.getCaseResult();
+        return StrUtil.isNotBlank(executeMessage.getErrorMessage())
+                || caseResult != null && !CaseResult.ACCEPTED.equals(caseResult.getVerdict());
+    }
+
+    /**
+     * 并行执行用例，同时执行的用例数不超过 MAX_PARALLELISM
+     * <p>
+     * 某个用例出错时取消其后的用例，其前仍在执行的用例继续执行完（其中出错的用例成为新的出错位置），
+     * 返回按输入顺序连续的结果，以编号最小的出错用例结尾，与顺序执行的结果一致
+     */
+    private List<ExecuteMessage> runCodeParallel(String userCodeParentPath, LanguageStrategy language,
+                                                 List<String> inputList, IntFunction<OutputChecker> checkerFactory)
+            throws IOException {
+        int total = inputList.size();
+        int parallelism = Math.min(MAX_PARALLELISM, total);
+        ExecuteMessage[] results = new ExecuteMessage[total];
+        // 只有经 completionService 或 future 取回的用例结果对当前线程可见
+        boolean[] done = new boolean[total];
+        CaseGroup caseGroup = new CaseGroup();
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(testCaseExecutor);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        int submitted = 0;
+        int completed = 0;
+        int failedIndex = -1;
+        boolean finished = false;
+        try {
+            for (; submitted < parallelism; submitted++) {
+                futures.add(submitCase(completionService, userCodeParentPath, language, inputList, checkerFactory, submitted, results, caseGroup));
+            }
+            while (completed < submitted) {
+                int index = completionService.take().get();
+                completed++;
+                done[index] = true;
+                if (isFailed(results[index])) {
+                    failedIndex = index;
+                    break;
+                }
+                if (submitted < total) {
+                    futures.add(submitCase(completionService, userCodeParentPath, language, inputList, checkerFactory, submitted++, results, caseGroup));
+                }
+            }
+            if (failedIndex >= 0) {
+                // 快速失败：取消出错用例之后的用例，之前的用例都已提交，等待其执行完
+                cancelAfter(failedIndex, caseGroup, futures);
+                for (int i = 0; i < failedIndex; i++) {
+                    if (done[i]) {
+                        continue;
+                    }
+                    futures.get(i).get();
+                    done[i] = true;
+                    if (isFailed(results[i])) {
+                        failedIndex = i;
+                        cancelAfter(failedIndex, caseGroup, futures);
+                        break;
+                    }
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (!finished) {
+                // 取消全部用例并杀掉仍在执行的进程
+                cancelAfter(-1, caseGroup, futures);
+            }
+        }
+
+        // 按输入顺序返回，出错时以编号最小的出错用例结尾
+        int count = failedIndex >= 0 ? failedIndex + 1 : total;
+        List<ExecuteMessage> executeMessageList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            executeMessageList.add(results[i]);
+        }
+        return executeMessageList;
+    }
+
+    /**
+     * 取消编号大于 index 的用例
+     */
+    private static void cancelAfter(int index, CaseGroup caseGroup, List<Future<Integer>> futures) {
+        caseGroup.cancelAfter(index);
+        for (int i = index + 1; i < futures.size(); i++) {
+            futures.get(i).cancel(true);
+        }
+    }
+
+    private Future<Integer> submitCase(CompletionService<Integer> completionService, String userCodeParentPath,
+                                       LanguageStrategy language, List<String> inputList,
+                                       IntFunction<OutputChecker> checkerFactory, int index,
+                                       ExecuteMessage[] results, CaseGroup caseGroup) {
+        return completionService.submit(() -> {
+            results[index] = runCase(userCodeParentPath, language, inputList.get(index),
+                    checkerFactory.apply(index), index, caseGroup);
+            return index;
+        });
+    }
+
+    /**
+     * 执行单个用例
+     */
+    private ExecuteMessage runCase(String userCodeParentPath, LanguageStrategy language, String input,
+                                   OutputChecker outputChecker, int index, CaseGroup caseGroup) throws IOException {
+        boolean java = isJavaLanguage(language);
+        if (java && runnerPool.isEnabled()) {
+            // 常驻执行器自行控制超时，快速失败时不再启动新的用例
+            if (caseGroup.isCancelled(index)) {
+                ExecuteMessage executeMessage = new ExecuteMessage();
+                executeMessage.setErrorMessage("Cancelled");
+                return executeMessage;
+            }
+            ExecuteMessage executeMessage = runInRunner(userCodeParentPath, input);
+            if (outputChecker != null && StrUtil.isBlank(executeMessage.getErrorMessage())) {
+                // 常驻执行器返回完整输出，执行结束后再比较
+                executeMessage.setCaseResult(outputChecker.check(executeMessage.getMessage()));
+                executeMessage.setMessage(null);
+            }
+            log.info("execute message: {}", executeMessage);
+            return executeMessage;
+        }
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        File userCodeDir = new File(userCodeParentPath);
+        Process runProcess = java ? startProcess(userCodeParentPath, input) : language.startProcess(userCodeDir);
+        caseGroup.register(index, runProcess);
+        // 超时控制：墙钟时间由看门狗控制，CPU 时间由采样线程控制
+        ProcessWatchdog.Deadline deadline = processWatchdog.watch(runProcess,
+                java ? getWallTimeLimit() : getWallTimeLimit(language));
+        ResourceSampler.Sample sample = resourceSampler.watch(runProcess,
+                java ? getCpuTimeLimit() : getCpuTimeLimit(language));
+        try {
+            ExecuteMessage executeMessage = java ? getProcessMessage(runProcess, input, outputChecker)
+                    : getLanguageProcessMessage(runProcess, language, userCodeDir, input, outputChecker);
+            stopWatch.stop();
+            sample.stop();
+            executeMessage.setMemory(sample.getPeakMemory());
+            executeMessage.setCpuTime(sample.getCpuTime());
+            if (deadline.isTimedOut() || sample.isCpuTimeExceeded()) {
+                executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
+                executeMessage.setErrorMessage(TIME_OUT_MESSAGE);
+            }
+            log.info("execute message: {}", executeMessage);
+            return executeMessage;
+        } finally {
+            deadline.cancel();
+            sample.stop();
+            caseGroup.unregister(runProcess);
+        }
+    }
+
+    /**
+     * 获取其他语言进程的执行信息，没有错误输出但异常退出（如段错误）时也视为出错
+     */
+    private ExecuteMessage getLanguageProcessMessage(Process runProcess, LanguageStrategy language, File userCodeDir,
+                                                     String input, OutputChecker outputChecker) throws IOException {
+        ExecuteMessage executeMessage = ProcessUtil.getInteractProcessMessage(runProcess,
+                language.buildInput(userCodeDir, input), OUTPUT_LIMIT, outputChecker);
+        Integer exitValue = executeMessage.getExitValue();
+        // 输出不一致时进程是被杀掉的
+        if (StrUtil.isBlank(executeMessage.getErrorMessage()) && exitValue != null && exitValue != 0
+                && !isFailed(executeMessage)) {
+            executeMessage.setErrorMessage("Runtime Error, exit value: " + exitValue);
+        }
+        return executeMessage;
+    }
+
+    /**
+     * 同一次提交中正在执行的用例进程（进程 -> 用例编号），取消时销毁编号大于出错位置的进程
+     */
+    private static class CaseGroup {
+
+        private final Map<Process, Integer> runningProcesses = new ConcurrentHashMap<>();
+
+        private volatile int cancelledAfter = Integer.MAX_VALUE;
+
+        void register(int index, Process process) {
+            runningProcesses.put(process, index);
+            if (isCancelled(index)) {
+                ProcessUtil.destroyTree(process);
+            }
+        }
+
+        void unregister(Process process) {
+            runningProcesses.remove(process);
+        }
+
+        synchronized void cancelAfter(int index) {
+            cancelledAfter = Math.min(cancelledAfter, index);
+            runningProcesses.forEach((process, processIndex) -> {
+                if (isCancelled(processIndex)) {
+                    ProcessUtil.destroyTree(process);
+                }
+            });
+        }
+
+        boolean isCancelled(int index) {
+            return index > cancelledAfter;
+        }
+    }
+}
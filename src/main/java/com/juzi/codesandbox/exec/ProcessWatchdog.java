@@ -0,0 +1,121 @@
+package com.juzi.codesandbox.exec;
+
+import com.juzi.codesandbox.utils.ProcessUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程超时看门狗：所有用例进程共用一个定时线程，到期销毁进程，进程提前结束时取消定时
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class ProcessWatchdog {
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * 尚未到期也未取消的定时数
+     */
+    private final AtomicInteger activeDeadlines = new AtomicInteger();
+
+    /**
+     * 累计超时被销毁的进程数
+     */
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    public ProcessWatchdog() {
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "process_watchdog_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 取消的定时立即从队列移除，避免大量提前结束的用例堆积在队列中
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 监控进程，超过 timeoutMillis 仍未结束则强制销毁
+     *
+     * @param process       进程
+     * @param timeoutMillis 超时时间(ms)
+     * @return 定时，进程结束后需调用 cancel
+     */
+    public Deadline watch(Process process, long timeoutMillis) {
+        Deadline deadline = new Deadline(process);
+        activeDeadlines.incrementAndGet();
+        deadline.future = scheduler.schedule(deadline::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+        return deadline;
+    }
+
+    public int getActiveDeadlines() {
+        return activeDeadlines.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+
+    /**
+     * 单个进程的超时定时
+     */
+    public class Deadline {
+
+        private final Process process;
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        private volatile boolean timedOut = false;
+
+        private volatile ScheduledFuture<?> future;
+
+        private Deadline(Process process) {
+            this.process = process;
+        }
+
+        private void expire() {
+            if (finished.compareAndSet(false, true)) {
+                activeDeadlines.decrementAndGet();
+                if (process.isAlive()) {
+                    timedOut = true;
+                    timedOutCount.incrementAndGet();
+                    log.warn("run code is time out, destroy process");
+                    ProcessUtil.destroyTree(process);
+                }
+            }
+        }
+
+        /**
+         * 进程已结束，取消定时
+         */
+        public void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                activeDeadlines.decrementAndGet();
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * 进程是否因超时被销毁
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+}
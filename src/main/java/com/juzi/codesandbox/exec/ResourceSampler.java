@@ -0,0 +1,286 @@
+package com.juzi.codesandbox.exec;
+
+import com.juzi.codesandbox.utils.ProcessUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源采样：所有用例进程、容器共用一个采样线程，按固定间隔读取各自的 {@link Source}
+ * <p>
+ * 原生进程读取 /proc/&lt;pid&gt;/status 中的 VmHWM（峰值常驻内存）和 /proc/&lt;pid&gt;/stat 中的 utime + stime（CPU 时间），
+ * CPU 时间超过限制时销毁进程。进程退出后会被 JDK 立即回收，/proc/&lt;pid&gt; 随之消失，所以只能在进程存活期间采样，
+ * 结果为最后一次采样到的值；非 Linux 系统或拿不到 pid 时不采样。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class ResourceSampler {
+
+    private static final String VM_HWM = "VmHWM:";
+
+    /**
+     * /proc/&lt;pid&gt;/stat 中 utime（第 14 个字段）、stime（第 15 个字段）相对 state 字段的下标
+     */
+    private static final int UTIME_INDEX = 11;
+
+    private static final int STIME_INDEX = 12;
+
+    /**
+     * 采样间隔(ms)
+     */
+    @Value("${oj.sandbox.sampler.interval:10}")
+    private long SAMPLE_INTERVAL;
+
+    /**
+     * 每秒时钟滴答数（getconf CLK_TCK），/proc/&lt;pid&gt;/stat 中的 CPU 时间以此为单位
+     */
+    @Value("${oj.sandbox.sampler.clock-ticks:100}")
+    private long CLOCK_TICKS;
+
+    private final Set<Sample> activeSamples = ConcurrentHashMap.newKeySet();
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "resource_sampler_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sampleAll, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 开始采样进程，进程结束后需调用 stop
+     *
+     * @param process 进程
+     * @return 采样结果
+     */
+    public Sample watch(Process process) {
+        return watch(process, 0L);
+    }
+
+    /**
+     * 开始采样进程，CPU 时间超过 cpuTimeLimit 时销毁进程，进程结束后需调用 stop
+     *
+     * @param process      进程
+     * @param cpuTimeLimit CPU 时间限制(ms)，不大于 0 时不限制
+     * @return 采样结果
+     */
+    public Sample watch(Process process, long cpuTimeLimit) {
+        long pid = getPid(process);
+        if (pid < 0) {
+            return new Sample(null, process, cpuTimeLimit);
+        }
+        return watch(new ProcSource(Paths.get("/proc", String.valueOf(pid))), process, cpuTimeLimit);
+    }
+
+    /**
+     * 开始采样，结束后需调用 stop
+     *
+     * @param source 采样来源
+     * @return 采样结果
+     */
+    public Sample watch(Source source) {
+        return watch(source, null, 0L);
+    }
+
+    private Sample watch(Source source, Process process, long cpuTimeLimit) {
+        Sample sample = new Sample(source, process, cpuTimeLimit);
+        // 先采样一次，覆盖执行时间短于采样间隔的进程
+        if (sample.sample()) {
+            activeSamples.add(sample);
+        }
+        return sample;
+    }
+
+    public int getActiveSamples() {
+        return activeSamples.size();
+    }
+
+    private void sampleAll() {
+        for (Sample sample : activeSamples) {
+            if (!sample.sample()) {
+                activeSamples.remove(sample);
+            }
+        }
+    }
+
+    /**
+     * 获取进程 pid：JDK 9+ 使用 Process.pid()，JDK 8 读取 UNIXProcess 的 pid 字段
+     *
+     * @return pid，获取不到时返回 -1
+     */
+    static long getPid(Process process) {
+        try {
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // JDK 8
+        }
+        try {
+            java.lang.reflect.Field pidField = process.getClass().getDeclaredField("pid");
+            pidField.setAccessible(true);
+            return pidField.getInt(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * 采样来源
+     */
+    public interface Source {
+
+        /**
+         * @return 当前（或峰值）内存(KB)，不支持时返回 null
+         * @throws NoSuchFileException 采样对象已经结束
+         */
+        Long readMemory() throws IOException;
+
+        /**
+         * @return 累计 CPU 时间(ms)，不支持时返回 null
+         * @throws NoSuchFileException 采样对象已经结束
+         */
+        Long readCpuTime() throws IOException;
+    }
+
+    /**
+     * 原生进程采样来源
+     */
+    private class ProcSource implements Source {
+
+        private final Path statusPath;
+
+        private final Path statPath;
+
+        private ProcSource(Path procPath) {
+            this.statusPath = procPath.resolve("status");
+            this.statPath = procPath.resolve("stat");
+        }
+
+        @Override
+        public Long readMemory() throws IOException {
+            for (String line : Files.readAllLines(statusPath, StandardCharsets.UTF_8)) {
+                if (line.startsWith(VM_HWM)) {
+                    // VmHWM:     12345 kB
+                    return Long.parseLong(line.substring(VM_HWM.length()).replace("kB", "").trim());
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Long readCpuTime() throws IOException {
+            String stat = new String(Files.readAllBytes(statPath), StandardCharsets.UTF_8);
+            // 进程名可能包含空格，从最后一个 ')' 之后开始按空格切分，第 1 个字段为 state（总第 3 个字段）
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            long ticks = Long.parseLong(fields[UTIME_INDEX]) + Long.parseLong(fields[STIME_INDEX]);
+            return ticks * 1000 / CLOCK_TICKS;
+        }
+    }
+
+    /**
+     * 单个进程、容器的采样结果
+     */
+    public class Sample {
+
+        private final Source source;
+
+        private final Process process;
+
+        private final long cpuTimeLimit;
+
+        /**
+         * 峰值内存(KB)，未采样到时为 null
+         */
+        private volatile Long peakMemory;
+
+        /**
+         * CPU 时间(ms)，未采样到时为 null
+         */
+        private volatile Long cpuTime;
+
+        private volatile boolean cpuTimeExceeded = false;
+
+        private Sample(Source source, Process process, long cpuTimeLimit) {
+            this.source = source;
+            this.process = process;
+            this.cpuTimeLimit = cpuTimeLimit;
+        }
+
+        /**
+         * @return 是否仍可采样
+         */
+        private boolean sample() {
+            if (source == null) {
+                return false;
+            }
+            try {
+                Long memory = source.readMemory();
+                if (memory != null) {
+                    Long current = peakMemory;
+                    peakMemory = current == null ? memory : Math.max(current, memory);
+                }
+                Long value = source.readCpuTime();
+                if (value != null) {
+                    cpuTime = value;
+                    if (cpuTimeLimit > 0 && value > cpuTimeLimit && !cpuTimeExceeded && process != null) {
+                        cpuTimeExceeded = true;
+                        log.warn("run code cpu time exceeded, destroy process");
+                        ProcessUtil.destroyTree(process);
+                    }
+                }
+                return true;
+            } catch (NoSuchFileException e) {
+                return false;
+            } catch (IOException | RuntimeException e) {
+                log.debug("sample {} error: {}", source, e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * 停止采样
+         */
+        public void stop() {
+            activeSamples.remove(this);
+        }
+
+        public Long getPeakMemory() {
+            return peakMemory;
+        }
+
+        public Long getCpuTime() {
+            return cpuTime;
+        }
+
+        /**
+         * 进程是否因 CPU 时间超限被销毁
+         */
+        public boolean isCpuTimeExceeded() {
+            return cpuTimeExceeded;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.juzi.codesandbox.exec;
+
+import com.juzi.codesandbox.language.LanguageStrategy;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.workspace.Workspace;
+import lombok.Data;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * 已完成准备阶段（保存、编译）的提交，等待执行
+ *
+ * @author codejuzi
+ */
+@Data
+public class SandboxSubmission {
+
+    /**
+     * 执行代码请求
+     */
+    private final ExecuteCodeRequest request;
+
+    /**
+     * 编程语言
+     */
+    private final LanguageStrategy language;
+
+    /**
+     * 提交的工作目录，只在内存中编译、执行时为 null
+     */
+    private Workspace workspace;
+
+    /**
+     * 用户代码文件
+     */
+    private File userCodeFile;
+
+    /**
+     * 编译产物：Java 为类的全限定名 => 字节码，其他语言为可执行文件名 => 内容
+     */
+    private Map<String, byte[]> classBytes;
+
+    /**
+     * 编译信息
+     */
+    private ExecuteMessage compileMessage;
+}
@@ -0,0 +1,105 @@
+package com.juzi.codesandbox.job;
+
+import com.juzi.codesandbox.admission.AdmissionRejectedException;
+import com.juzi.codesandbox.exec.CodeSandboxTemplate;
+import com.juzi.codesandbox.model.BatchExecuteResult;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.juzi.codesandbox.model.JudgeInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.BUSY;
+
+/**
+ * 批量执行流水线（用于重判）
+ * <p>
+ * 所有批量请求共享准备（保存、编译）和执行两个线程池，一个提交执行时下一个提交同时编译；
+ * 每个批量请求在途的提交数有上限，每个提交在进入流水线前等待执行许可（与单个执行共用并发上限，
+ * 不占用等待队列、不设排队超时），沙箱繁忙时生产者阻塞形成背压，结果按完成顺序逐个回调。
+ * 未被接纳的提交（服务关闭时中断）以繁忙状态和建议的重试间隔返回，而不是执行失败。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class BatchExecutePipeline {
+
+    /**
+     * 单个批量请求同时在途（编译中 + 执行中）的提交数，0 表示CPU核数的两倍
+     */
+    @Value("${oj.sandbox.batch.max-in-flight:0}")
+    private int MAX_IN_FLIGHT;
+
+    @Resource
+    private ExecutorService batchPrepareExecutor;
+
+    @Resource
+    private ExecutorService batchRunExecutor;
+
+    /**
+     * 结果回调
+     */
+    @FunctionalInterface
+    public interface ResultConsumer {
+
+        void accept(BatchExecuteResult result) throws IOException;
+    }
+
+    /**
+     * 执行批量请求，阻塞直到全部完成；回调在调用线程中执行
+     *
+     * @param codeSandbox    代码沙箱
+     * @param requestList    执行代码请求列表
+     * @param resultConsumer 结果回调，按完成顺序调用
+     */
+    public void execute(CodeSandboxTemplate codeSandbox, List<ExecuteCodeRequest> requestList,
+                        ResultConsumer resultConsumer) throws IOException {
+        int maxInFlight = MAX_IN_FLIGHT > 0 ? MAX_IN_FLIGHT : Runtime.getRuntime().availableProcessors() * 2;
+        BlockingQueue<BatchExecuteResult> completedQueue = new LinkedBlockingQueue<>();
+        int inFlight = 0;
+        try {
+            for (int i = 0; i < requestList.size(); i++) {
+                if (inFlight >= maxInFlight) {
+                    resultConsumer.accept(completedQueue.take());
+                    inFlight--;
+                }
+                int index = i;
+                codeSandbox.executePipelined(requestList.get(i), batchPrepareExecutor, batchRunExecutor)
+                        .whenComplete((response, e) -> completedQueue.add(e == null
+                                ? new BatchExecuteResult(index, response, null)
+                                : busyResult(index, e)));
+                inFlight++;
+            }
+            while (inFlight > 0) {
+                resultConsumer.accept(completedQueue.take());
+                inFlight--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("batch execute interrupted, {} submissions still in flight", inFlight);
+        }
+    }
+
+    private static BatchExecuteResult busyResult(int index, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        ExecuteCodeResponse response = new ExecuteCodeResponse();
+        response.setOutputList(Collections.emptyList());
+        response.setMessage(cause.getMessage());
+        response.setStatus(BUSY.getValue());
+        response.setJudgeInfo(new JudgeInfo());
+        long retryAfterSeconds = cause instanceof AdmissionRejectedException
+                ? ((AdmissionRejectedException) cause).getRetryAfterSeconds() : 1L;
+        return new BatchExecuteResult(index, response, retryAfterSeconds);
+    }
+}
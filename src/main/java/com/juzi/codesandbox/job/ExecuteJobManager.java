@@ -0,0 +1,108 @@
+package com.juzi.codesandbox.job;
+
+import cn.hutool.core.lang.UUID;
+import com.juzi.codesandbox.exec.CodeSandbox;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.juzi.codesandbox.model.ExecuteJobStatusEnum.FAILED;
+import static com.juzi.codesandbox.model.ExecuteJobStatusEnum.SUCCEED;
+import static com.juzi.codesandbox.model.ExecuteJobStatusEnum.WAITING;
+
+/**
+ * 异步执行任务管理：提交后立即返回任务ID，结果在内存中保留 JOB_TTL 后清理
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class ExecuteJobManager {
+
+    /**
+     * 任务完成后结果保留时间(ms)
+     */
+    @Value("${oj.sandbox.async.job-ttl:600000}")
+    private long JOB_TTL;
+
+    private final Map<String, ExecuteJob> jobMap = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService cleanExecutor;
+
+    @PostConstruct
+    public void init() {
+        cleanExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "execute_job_clean_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleanExecutor.scheduleWithFixedDelay(this::cleanExpiredJobs, JOB_TTL, JOB_TTL / 10 + 1, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleanExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交异步执行任务，不等待执行许可：需要排队时任务保持等待中状态，由执行线程等待许可；
+     * 等待队列已满时抛出 AdmissionRejectedException，执行容量已满时抛出 RejectedExecutionException
+     *
+     * @param codeSandbox        代码沙箱
+     * @param executeCodeRequest 执行代码请求
+     * @return 任务
+     */
+    public ExecuteJob submit(CodeSandbox codeSandbox, ExecuteCodeRequest executeCodeRequest) {
+        ExecuteJob job = new ExecuteJob();
+        job.setJobId(UUID.fastUUID().toString(true));
+        job.setStatus(WAITING.getValue());
+        job.setSubmitTime(System.currentTimeMillis());
+        CompletableFuture<ExecuteJob> jobFuture = new CompletableFuture<>();
+        job.setFuture(jobFuture);
+
+        codeSandbox.executeAsync(executeCodeRequest).whenComplete((response, e) -> {
+            if (e != null) {
+                log.error("execute job {} error", job.getJobId(), e);
+                job.setMessage(e.getMessage());
+                job.setStatus(FAILED.getValue());
+            } else {
+                job.setResponse(response);
+                job.setStatus(SUCCEED.getValue());
+            }
+            job.setFinishTime(System.currentTimeMillis());
+            jobFuture.complete(job);
+        });
+        jobMap.put(job.getJobId(), job);
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务，不存在或已过期时返回 null
+     */
+    public ExecuteJob getJob(String jobId) {
+        return jobMap.get(jobId);
+    }
+
+    public int getJobCount() {
+        return jobMap.size();
+    }
+
+    private void cleanExpiredJobs() {
+        long expireTime = System.currentTimeMillis() - JOB_TTL;
+        jobMap.values().removeIf(job -> job.getFinishTime() != null && job.getFinishTime() < expireTime);
+    }
+}
@@ -0,0 +1,153 @@
+package com.juzi.codesandbox.judge;
+
+import com.juzi.codesandbox.model.CaseResult;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * exact 模式：逐字节比较，\r\n 视为 \n，忽略末尾的换行
+ * <p>
+ * 换行先记下不比较，遇到后续内容时再比较，输出结束时剩余的换行即为末尾换行
+ *
+ * @author codejuzi
+ */
+public class ExactOutputChecker extends OutputChecker {
+
+    private final byte[] expected;
+
+    /**
+     * 已比较一致的期望输出字节数
+     */
+    private int position = 0;
+
+    private boolean pendingCr = false;
+
+    private int pendingNewlines = 0;
+
+    private long line = 1;
+
+    /**
+     * 当前实际输出行已比较一致的内容，用于结果片段
+     */
+    private final byte[] lineBuffer = new byte[EXCERPT_LIMIT * 4];
+
+    private int lineLength = 0;
+
+    /**
+     * 不一致处是实际输出的换行，即实际输出的当前行提前结束
+     */
+    private boolean lineEndedEarly = false;
+
+    private CaseResult result;
+
+    public ExactOutputChecker(String expected) {
+        String normalized = expected.replace("\r\n", "\n");
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        this.expected = normalized.substring(0, end).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean write(byte[] buffer, int offset, int length) {
+        if (result != null) {
+            return false;
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (!accept(b)) {
+                if (position >= expected.length && pendingNewlines > 0) {
+                    // 期望输出已经结束，实际输出还有后续的行
+                    result = wrongAnswer(line + pendingNewlines, "", lineRest(buffer, i, end));
+                } else {
+                    // 实际输出片段：当前行已一致的部分 + 不一致处到行尾
+                    String actual = new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8)
+                            + (lineEndedEarly ? "" : lineRest(buffer, i, end));
+                    result = wrongAnswer(line, expectedLine(), actual);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CaseResult finish() {
+        if (result == null) {
+            // 末尾单独的 \r 与末尾换行一样忽略
+            result = position == expected.length ? accepted()
+                    : wrongAnswer(line, expectedLine(), new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private boolean accept(byte b) {
+        if (pendingCr) {
+            pendingCr = false;
+            if (b != '\n' && !content((byte) '\r')) {
+                return false;
+            }
+        }
+        if (b == '\r') {
+            pendingCr = true;
+            return true;
+        }
+        if (b == '\n') {
+            pendingNewlines++;
+            return true;
+        }
+        return content(b);
+    }
+
+    private boolean content(byte b) {
+        for (; pendingNewlines > 0; pendingNewlines--) {
+            if (!compare((byte) '\n')) {
+                lineEndedEarly = true;
+                return false;
+            }
+        }
+        return compare(b);
+    }
+
+    private boolean compare(byte b) {
+        if (position >= expected.length || expected[position] != b) {
+            return false;
+        }
+        position++;
+        if (b == '\n') {
+            line++;
+            lineLength = 0;
+        } else if (lineLength < lineBuffer.length) {
+            lineBuffer[lineLength++] = b;
+        }
+        return true;
+    }
+
+    /**
+     * 缓冲区中从 start 到行尾的内容
+     */
+    private String lineRest(byte[] buffer, int start, int end) {
+        int tail = start;
+        while (tail < end && buffer[tail] != '\n' && tail - start < lineBuffer.length) {
+            tail++;
+        }
+        return new String(buffer, start, tail - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 期望输出中第一处不一致所在的行
+     */
+    private String expectedLine() {
+        int start = position;
+        while (start > 0 && expected[start - 1] != '\n') {
+            start--;
+        }
+        int end = position;
+        while (end < expected.length && expected[end] != '\n' && end - start < lineBuffer.length) {
+            end++;
+        }
+        return new String(expected, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package com.juzi.codesandbox.judge;
+
+import cn.hutool.core.util.HexUtil;
+import com.juzi.codesandbox.model.CaseResult;
+import com.juzi.codesandbox.model.OutputCompareModeEnum;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 按期望输出的 SHA-256 比较：边读取边计算规范化后输出的哈希，输出结束后比较
+ * <p>
+ * exact 模式下 \r\n 换成 \n 并去掉末尾换行；whitespace 模式下单词以单个空格连接
+ *
+ * @author codejuzi
+ */
+public class HashOutputChecker extends OutputChecker {
+
+    private final String expectedHash;
+
+    private final boolean tokenMode;
+
+    private final MessageDigest digest;
+
+    private boolean pendingCr = false;
+
+    private int pendingNewlines = 0;
+
+    private boolean inToken = false;
+
+    private boolean anyToken = false;
+
+    private CaseResult result;
+
+    public HashOutputChecker(String expectedHash, OutputCompareModeEnum compareMode) {
+        this.expectedHash = expectedHash.trim().toLowerCase();
+        this.tokenMode = compareMode == OutputCompareModeEnum.WHITESPACE;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 哈希只能在输出结束后比较，总是返回 true
+     */
+    @Override
+    public boolean write(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (tokenMode) {
+                acceptToken(buffer[i]);
+            } else {
+                acceptExact(buffer[i]);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CaseResult finish() {
+        if (result == null) {
+            String actualHash = HexUtil.encodeHexStr(digest.digest());
+            result = expectedHash.equals(actualHash) ? accepted() : wrongAnswer(null, expectedHash, actualHash);
+        }
+        return result;
+    }
+
+    private void acceptExact(byte b) {
+        if (pendingCr) {
+            pendingCr = false;
+            if (b != '\n') {
+                content((byte) '\r');
+            }
+        }
+        if (b == '\r') {
+            pendingCr = true;
+        } else if (b == '\n') {
+            pendingNewlines++;
+        } else {
+            content(b);
+        }
+    }
+
+    private void content(byte b) {
+        for (; pendingNewlines > 0; pendingNewlines--) {
+            digest.update((byte) '\n');
+        }
+        digest.update(b);
+    }
+
+    private void acceptToken(byte b) {
+        if (isWhitespace(b)) {
+            inToken = false;
+            return;
+        }
+        if (!inToken) {
+            inToken = true;
+            if (anyToken) {
+                digest.update((byte) ' ');
+            }
+            anyToken = true;
+        }
+        digest.update(b);
+    }
+}
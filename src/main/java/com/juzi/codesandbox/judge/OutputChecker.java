@@ -0,0 +1,138 @@
+package com.juzi.codesandbox.judge;
+
+import com.juzi.codesandbox.model.CaseResult;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.OutputCompareModeEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 输出检查器：读取进程输出的同时与期望输出比较，发现不一致后不再需要后续输出
+ * <p>
+ * 每个用例一个实例，由读取输出的线程调用 {@link #write}，进程结束后调用 {@link #finish}
+ *
+ * @author codejuzi
+ */
+public abstract class OutputChecker {
+
+    /**
+     * 结果片段的最大字符数
+     */
+    static final int EXCERPT_LIMIT = 64;
+
+    /**
+     * float 模式默认的允许误差
+     */
+    private static final double DEFAULT_FLOAT_TOLERANCE = 1e-6;
+
+    /**
+     * 检查一段输出
+     *
+     * @return false 表示已经不一致，调用方可以停止读取并杀掉进程
+     */
+    public abstract boolean write(byte[] buffer, int offset, int length);
+
+    /**
+     * 输出结束，给出比较结果
+     */
+    public abstract CaseResult finish();
+
+    /**
+     * 检查完整的输出，用于无法边执行边比较的执行方式（常驻执行器、容器）
+     */
+    public CaseResult check(String output) {
+        if (output != null) {
+            byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+            write(bytes, 0, bytes.length);
+        }
+        return finish();
+    }
+
+    /**
+     * 请求是否指定了期望输出
+     */
+    public static boolean isRequired(ExecuteCodeRequest request) {
+        return request.getExpectedOutputList() != null || request.getExpectedOutputHashList() != null;
+    }
+
+    /**
+     * 检查期望输出相关的参数，不合法时抛出 IllegalArgumentException
+     */
+    public static void validate(ExecuteCodeRequest request) {
+        if (!isRequired(request)) {
+            return;
+        }
+        OutputCompareModeEnum compareMode = getCompareMode(request);
+        List<String> expectedList = request.getExpectedOutputList() != null
+                ? request.getExpectedOutputList() : request.getExpectedOutputHashList();
+        int inputSize = request.getInputList() == null ? 0 : request.getInputList().size();
+        if (expectedList.size() != inputSize) {
+            throw new IllegalArgumentException("Expected output size " + expectedList.size()
+                    + " does not match input size " + inputSize);
+        }
+        if (request.getExpectedOutputList() == null && compareMode == OutputCompareModeEnum.FLOAT) {
+            throw new IllegalArgumentException("Compare mode float does not support expected output hashes");
+        }
+    }
+
+    /**
+     * 创建第 index 个用例的检查器
+     *
+     * @return 未指定期望输出时为 null
+     */
+    public static OutputChecker create(ExecuteCodeRequest request, int index) {
+        if (!isRequired(request)) {
+            return null;
+        }
+        OutputCompareModeEnum compareMode = getCompareMode(request);
+        if (request.getExpectedOutputList() == null) {
+            return new HashOutputChecker(request.getExpectedOutputHashList().get(index), compareMode);
+        }
+        String expected = request.getExpectedOutputList().get(index);
+        switch (compareMode) {
+            case WHITESPACE:
+                return new TokenOutputChecker(expected, -1);
+            case FLOAT:
+                Double tolerance = request.getFloatTolerance();
+                return new TokenOutputChecker(expected, tolerance == null ? DEFAULT_FLOAT_TOLERANCE : tolerance);
+            default:
+                return new ExactOutputChecker(expected);
+        }
+    }
+
+    private static OutputCompareModeEnum getCompareMode(ExecuteCodeRequest request) {
+        if (request.getCompareMode() == null) {
+            return OutputCompareModeEnum.EXACT;
+        }
+        OutputCompareModeEnum compareMode = OutputCompareModeEnum.getEnumByValue(request.getCompareMode());
+        if (compareMode == null) {
+            throw new IllegalArgumentException("Unsupported compare mode: " + request.getCompareMode()
+                    + ", supported: " + OutputCompareModeEnum.getValues());
+        }
+        return compareMode;
+    }
+
+    static CaseResult accepted() {
+        CaseResult caseResult = new CaseResult();
+        caseResult.setVerdict(CaseResult.ACCEPTED);
+        return caseResult;
+    }
+
+    static CaseResult wrongAnswer(Long line, String expected, String actual) {
+        CaseResult caseResult = new CaseResult();
+        caseResult.setVerdict(CaseResult.WRONG_ANSWER);
+        caseResult.setLine(line);
+        caseResult.setExpected(excerpt(expected));
+        caseResult.setActual(excerpt(actual));
+        return caseResult;
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0b;
+    }
+
+    private static String excerpt(String text) {
+        return text.length() > EXCERPT_LIMIT ? text.substring(0, EXCERPT_LIMIT) + "..." : text;
+    }
+}
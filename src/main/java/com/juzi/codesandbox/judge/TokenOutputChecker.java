@@ -0,0 +1,228 @@
+package com.juzi.codesandbox.judge;
+
+import com.juzi.codesandbox.model.CaseResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * whitespace、float 模式：忽略空白，逐个比较以空白分隔的单词；float 模式下两边都是数值时按误差比较
+ *
+ * @author codejuzi
+ */
+public class TokenOutputChecker extends OutputChecker {
+
+    /**
+     * 十进制数值，不接受 NaN、Infinity、十六进制等 Double.parseDouble 支持的其他写法
+     */
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    /**
+     * 数值前缀的状态，与 NUMBER_PATTERN 对应：符号、整数部分、小数点、小数部分、指数标记、指数符号、指数部分
+     */
+    private static final int NUMBER_START = 0;
+
+    private static final int NUMBER_SIGN = 1;
+
+    private static final int NUMBER_INT = 2;
+
+    private static final int NUMBER_DOT = 3;
+
+    private static final int NUMBER_FRACTION = 4;
+
+    private static final int NUMBER_EXP = 5;
+
+    private static final int NUMBER_EXP_SIGN = 6;
+
+    private static final int NUMBER_EXP_INT = 7;
+
+    private static final int NOT_NUMBER = -1;
+
+    private final List<String> expectedTokens;
+
+    /**
+     * 允许的绝对误差或相对误差，小于 0 时按字符串比较
+     */
+    private final double tolerance;
+
+    /**
+     * 下一个要比较的期望单词下标
+     */
+    private int index = 0;
+
+    private byte[] token = new byte[64];
+
+    private int tokenLength = 0;
+
+    /**
+     * 当前单词作为数值前缀的状态，float 模式下仍是数值前缀的单词不提前截断
+     */
+    private int numberState = NUMBER_START;
+
+    /**
+     * 单词的小数点前是否有数字，区分 "1." 与 "."
+     */
+    private boolean numberHasIntDigits = false;
+
+    private long line = 1;
+
+    private long tokenLine = 1;
+
+    private CaseResult result;
+
+    public TokenOutputChecker(String expected, double tolerance) {
+        String trimmed = expected.trim();
+        this.expectedTokens = trimmed.isEmpty() ? Collections.emptyList() : Arrays.asList(trimmed.split("\\s+"));
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public boolean write(byte[] buffer, int offset, int length) {
+        if (result != null) {
+            return false;
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (isWhitespace(b)) {
+                if (tokenLength > 0 && !endToken()) {
+                    return false;
+                }
+                if (b == '\n') {
+                    line++;
+                }
+                continue;
+            }
+            if (tokenLength == 0) {
+                tokenLine = line;
+                numberState = NUMBER_START;
+                numberHasIntDigits = false;
+            }
+            if (tolerance >= 0) {
+                numberState = nextNumberState(numberState, b);
+            }
+            if (tokenLength >= getMaxTokenLength() && !isPendingNumber()) {
+                // 单词已经比期望的长得多，不必读完
+                result = wrongAnswer(tokenLine, getExpectedToken(), getToken());
+                return false;
+            }
+            if (tokenLength == token.length) {
+                token = Arrays.copyOf(token, token.length * 2);
+            }
+            token[tokenLength++] = b;
+        }
+        return true;
+    }
+
+    @Override
+    public CaseResult finish() {
+        if (result == null && (tokenLength == 0 || endToken())) {
+            result = index < expectedTokens.size() ? wrongAnswer(line, expectedTokens.get(index), "") : accepted();
+        }
+        return result;
+    }
+
+    private boolean endToken() {
+        String expected = getExpectedToken();
+        String actual = getToken();
+        tokenLength = 0;
+        index++;
+        if (index > expectedTokens.size() || !matches(expected, actual)) {
+            result = wrongAnswer(tokenLine, expected, actual);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean matches(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        if (tolerance < 0 || !NUMBER_PATTERN.matcher(expected).matches() || !NUMBER_PATTERN.matcher(actual).matches()) {
+            return false;
+        }
+        // 写法不同但数值相等，如 1.5 与 1.50000，不受 double 精度影响
+        try {
+            if (new BigDecimal(expected).compareTo(new BigDecimal(actual)) == 0) {
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            // 指数超出 int 范围，按 double 比较
+        }
+        double expectedValue = Double.parseDouble(expected);
+        double diff = Math.abs(Double.parseDouble(actual) - expectedValue);
+        return diff <= tolerance || diff <= tolerance * Math.abs(expectedValue);
+    }
+
+    /**
+     * float 模式下当前单词仍可能是数值、期望单词也是数值时，数值比较不看长度，不能提前截断
+     */
+    private boolean isPendingNumber() {
+        return tolerance >= 0 && numberState != NOT_NUMBER
+                && NUMBER_PATTERN.matcher(getExpectedToken()).matches();
+    }
+
+    private int nextNumberState(int state, byte b) {
+        boolean digit = b >= '0' && b <= '9';
+        switch (state) {
+            case NUMBER_START:
+                if (b == '+' || b == '-') {
+                    return NUMBER_SIGN;
+                }
+                // fall through
+            case NUMBER_SIGN:
+                if (digit) {
+                    numberHasIntDigits = true;
+                    return NUMBER_INT;
+                }
+                return b == '.' ? NUMBER_DOT : NOT_NUMBER;
+            case NUMBER_INT:
+                if (digit) {
+                    return NUMBER_INT;
+                }
+                if (b == '.') {
+                    return NUMBER_DOT;
+                }
+                return b == 'e' || b == 'E' ? NUMBER_EXP : NOT_NUMBER;
+            case NUMBER_DOT:
+                if (digit) {
+                    return NUMBER_FRACTION;
+                }
+                return numberHasIntDigits && (b == 'e' || b == 'E') ? NUMBER_EXP : NOT_NUMBER;
+            case NUMBER_FRACTION:
+                if (digit) {
+                    return NUMBER_FRACTION;
+                }
+                return b == 'e' || b == 'E' ? NUMBER_EXP : NOT_NUMBER;
+            case NUMBER_EXP:
+                if (b == '+' || b == '-') {
+                    return NUMBER_EXP_SIGN;
+                }
+                // fall through
+            case NUMBER_EXP_SIGN:
+            case NUMBER_EXP_INT:
+                return digit ? NUMBER_EXP_INT : NOT_NUMBER;
+            default:
+                return NOT_NUMBER;
+        }
+    }
+
+    /**
+     * 期望输出已经结束时为空串
+     */
+    private String getExpectedToken() {
+        return index < expectedTokens.size() ? expectedTokens.get(index) : "";
+    }
+
+    private int getMaxTokenLength() {
+        return getExpectedToken().length() * 4 + EXCERPT_LIMIT;
+    }
+
+    private String getToken() {
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+}
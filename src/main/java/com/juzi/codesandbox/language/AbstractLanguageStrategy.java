@@ -0,0 +1,256 @@
+package com.juzi.codesandbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import com.juzi.codesandbox.compile.CompileException;
+import com.juzi.codesandbox.model.CompileDiagnostic;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.utils.ProcessUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.annotation.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_DIR_NAME;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+
+/**
+ * 通过外部进程编译、执行的语言
+ *
+ * @author codejuzi
+ */
+@Slf4j
+public abstract class AbstractLanguageStrategy implements LanguageStrategy {
+
+    /**
+     * 编译器诊断行：文件:行:列: [类型: ]信息，gcc、g++、go 均为此格式
+     */
+    private static final Pattern DIAGNOSTIC_PATTERN =
+            Pattern.compile("^\\S+?:(\\d+):(\\d+): (?:(fatal error|error|warning|note): )?(.*)$");
+
+    /**
+     * 隔离命令中的用户ID占位符，每次执行替换为从 {@link RunUserPool} 分配的用户ID
+     */
+    static final String RUN_UID_PLACEHOLDER = "{uid}";
+
+    /**
+     * 执行用户代码前的隔离命令：默认进入新的网络命名空间（无网络）和 PID 命名空间（只能看到、杀掉自己的进程），
+     * 并切换到本次执行独占的无特权用户
+     */
+    @Value("${oj.sandbox.language.native.isolation-command:unshare,--net,--pid,--fork,--mount-proc,--,setpriv,--reuid={uid},--regid={uid},--clear-groups,--}")
+    private List<String> ISOLATION_COMMAND;
+
+    @Resource
+    private RunUserPool runUserPool;
+
+    /**
+     * 进程数限制（RLIMIT_NPROC），按用户计算，每次执行使用独立的用户，只限制本次执行
+     */
+    @Value("${oj.sandbox.language.native.max-processes:64}")
+    private long MAX_PROCESSES;
+
+    /**
+     * 单个文件大小限制(byte)（RLIMIT_FSIZE）
+     */
+    @Value("${oj.sandbox.language.native.max-file-size:16777216}")
+    private long MAX_FILE_SIZE;
+
+    /**
+     * 打开文件数限制（RLIMIT_NOFILE）
+     */
+    @Value("${oj.sandbox.language.native.max-open-files:64}")
+    private long MAX_OPEN_FILES;
+
+    private volatile boolean available = true;
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 执行工具命令（如 gcc --version）检查工具链，失败时标记为不可用
+     */
+    protected boolean probe(String... command) {
+        try {
+            Process process = new ProcessBuilder(command).start();
+            ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage(getName() + " Probe", process);
+            available = executeMessage.getExitValue() != null && executeMessage.getExitValue() == 0;
+        } catch (IOException e) {
+            available = false;
+        }
+        if (!available) {
+            log.warn("{} toolchain is not available: {}", getName(), String.join(" ", command));
+        }
+        return available;
+    }
+
+    /**
+     * 在工作目录中执行编译命令，失败时抛出 {@link CompileException}
+     *
+     * @param workDir     工作目录
+     * @param command     编译命令
+     * @param environment 额外的环境变量
+     */
+    protected void runCompiler(File workDir, List<String> command, Map<String, String> environment) {
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(workDir);
+        processBuilder.environment().putAll(environment);
+        Process compileProcess;
+        try {
+            compileProcess = processBuilder.start();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage("Compile Code", compileProcess);
+        if (TIME_OUT_MESSAGE.equals(executeMessage.getErrorMessage())) {
+            throw new CompileException("Compile Time out");
+        }
+        if (executeMessage.getExitValue() == null || executeMessage.getExitValue() != 0) {
+            throw new CompileException("Compile Error!", parseDiagnostics(executeMessage.getErrorMessage()));
+        }
+    }
+
+    /**
+     * 读取工作目录中的编译产物
+     */
+    protected static Map<String, byte[]> readArtifact(File workDir, String name) {
+        return Collections.singletonMap(name, FileUtil.readBytes(new File(workDir, name)));
+    }
+
+    /**
+     * 检查隔离命令能否执行（如服务不是以 root 运行时 unshare、setpriv 会失败），失败时标记为不可用
+     */
+    protected boolean probeIsolation() {
+        int uid = acquireRunUid();
+        try {
+            return probe(buildRunCommand(false, uid, "true").toArray(new String[0]));
+        } finally {
+            releaseRunUid(uid);
+        }
+    }
+
+    /**
+     * 在隔离命令和资源限制下启动进程
+     *
+     * @param limitMemory 是否限制虚拟内存（RLIMIT_AS）
+     */
+    protected Process startIsolated(File workDir, boolean limitMemory, String... command) throws IOException {
+        return startIsolated(new ProcessBuilder().directory(workDir), limitMemory, command);
+    }
+
+    /**
+     * 在隔离命令和资源限制下启动进程，分配的用户ID在进程结束后归还
+     *
+     * @param processBuilder 工作目录、环境变量已设置的 ProcessBuilder
+     * @param limitMemory    是否限制虚拟内存（RLIMIT_AS）
+     */
+    protected Process startIsolated(ProcessBuilder processBuilder, boolean limitMemory, String... command)
+            throws IOException {
+        int uid = acquireRunUid();
+        Process process;
+        try {
+            process = processBuilder.command(buildRunCommand(limitMemory, uid, command)).start();
+        } catch (IOException | RuntimeException e) {
+            releaseRunUid(uid);
+            throw e;
+        }
+        ProcessUtil.onExit(process, () -> releaseRunUid(uid));
+        return process;
+    }
+
+    /**
+     * 隔离命令 + prlimit 资源限制 + 执行命令
+     *
+     * @param uid 替换隔离命令中用户ID占位符的用户ID，小于 0 时不替换
+     */
+    protected List<String> buildRunCommand(boolean limitMemory, int uid, String... command) {
+        List<String> runCommand = new ArrayList<>();
+        if (ISOLATION_COMMAND != null) {
+            ISOLATION_COMMAND.stream().filter(StringUtils::isNotBlank)
+                    .map(item -> uid < 0 ? item : item.replace(RUN_UID_PLACEHOLDER, String.valueOf(uid)))
+                    .forEach(runCommand::add);
+        }
+        runCommand.add("prlimit");
+        addLimit(runCommand, "--as", limitMemory ? getMemoryLimit() : 0);
+        addLimit(runCommand, "--nproc", MAX_PROCESSES);
+        addLimit(runCommand, "--fsize", MAX_FILE_SIZE);
+        addLimit(runCommand, "--nofile", MAX_OPEN_FILES);
+        runCommand.add("--");
+        Collections.addAll(runCommand, command);
+        return runCommand;
+    }
+
+    /**
+     * 隔离命令需要用户ID时从用户ID池分配，否则返回 -1
+     */
+    private int acquireRunUid() {
+        if (runUserPool == null || ISOLATION_COMMAND == null
+                || ISOLATION_COMMAND.stream().noneMatch(item -> item.contains(RUN_UID_PLACEHOLDER))) {
+            return -1;
+        }
+        return runUserPool.acquire();
+    }
+
+    private void releaseRunUid(int uid) {
+        if (uid >= 0) {
+            runUserPool.release(uid);
+        }
+    }
+
+    private static void addLimit(List<String> runCommand, String option, long limit) {
+        if (limit > 0) {
+            runCommand.add(option + "=" + limit);
+        }
+    }
+
+    /**
+     * 工具链文件所在目录，未配置时为 tmp_code/.toolchain
+     */
+    protected static File resolveToolchainDir(String toolchainDir, String language) {
+        File root = StringUtils.isBlank(toolchainDir)
+                ? new File(System.getProperty("user.dir") + File.separator + GLOBAL_CODE_DIR_NAME, ".toolchain")
+                : new File(toolchainDir);
+        return FileUtil.mkdir(new File(root, language));
+    }
+
+    /**
+     * 解析编译器输出，无法解析时整段作为一条诊断
+     */
+    static List<CompileDiagnostic> parseDiagnostics(String output) {
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        if (StringUtils.isBlank(output)) {
+            return diagnostics;
+        }
+        for (String line : output.split("\n")) {
+            Matcher matcher = DIAGNOSTIC_PATTERN.matcher(line);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String kind = matcher.group(3);
+            CompileDiagnostic diagnostic = new CompileDiagnostic();
+            diagnostic.setKind(kind == null || kind.startsWith("fatal") ? "ERROR" : kind.toUpperCase());
+            diagnostic.setLine(Long.parseLong(matcher.group(1)));
+            diagnostic.setColumn(Long.parseLong(matcher.group(2)));
+            diagnostic.setMessage(matcher.group(4));
+            diagnostics.add(diagnostic);
+        }
+        if (diagnostics.isEmpty()) {
+            CompileDiagnostic diagnostic = new CompileDiagnostic();
+            diagnostic.setKind("ERROR");
+            diagnostic.setLine(-1L);
+            diagnostic.setColumn(-1L);
+            diagnostic.setMessage(output);
+            diagnostics.add(diagnostic);
+        }
+        return diagnostics;
+    }
+}
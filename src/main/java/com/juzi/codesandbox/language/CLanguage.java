@@ -0,0 +1,71 @@
+package com.juzi.codesandbox.language;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * C
+ *
+ * @author codejuzi
+ */
+@Component
+public class CLanguage extends GccLanguage {
+
+    @Value("${oj.sandbox.language.c.compiler:gcc}")
+    private String COMPILER;
+
+    @Value("${oj.sandbox.language.c.compile-options:-O2,-std=c11}")
+    private List<String> COMPILE_OPTIONS;
+
+    @Value("${oj.sandbox.language.c.link-options:-lm}")
+    private List<String> LINK_OPTIONS;
+
+    @Value("${oj.sandbox.language.c.time-limit:10000}")
+    private long TIME_LIMIT;
+
+    @Value("${oj.sandbox.language.c.memory-limit:268435456}")
+    private long MEMORY_LIMIT;
+
+    @Override
+    public String getName() {
+        return "c";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Collections.singletonList("gcc");
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return "main.c";
+    }
+
+    @Override
+    protected String getCompiler() {
+        return COMPILER;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return COMPILE_OPTIONS;
+    }
+
+    @Override
+    protected List<String> getLinkOptions() {
+        return LINK_OPTIONS;
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_LIMIT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+}
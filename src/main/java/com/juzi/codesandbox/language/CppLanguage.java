@@ -0,0 +1,139 @@
+package com.juzi.codesandbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * C++
+ * <p>
+ * 预热时按相同的编译参数预编译 bits/stdc++.h，放在额外的头文件搜索目录中，
+ * g++ 查找该头文件时优先使用预编译结果，省去每次解析整个标准库
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class CppLanguage extends GccLanguage {
+
+    private static final String PRECOMPILED_HEADER = "bits/stdc++.h";
+
+    @Value("${oj.sandbox.language.cpp.compiler:g++}")
+    private String COMPILER;
+
+    @Value("${oj.sandbox.language.cpp.compile-options:-O2,-std=c++17}")
+    private List<String> COMPILE_OPTIONS;
+
+    @Value("${oj.sandbox.language.cpp.link-options:}")
+    private List<String> LINK_OPTIONS;
+
+    /**
+     * 是否预编译 bits/stdc++.h
+     */
+    @Value("${oj.sandbox.language.cpp.precompiled-header:true}")
+    private boolean PRECOMPILED_HEADER_ENABLED;
+
+    @Value("${oj.sandbox.language.cpp.time-limit:10000}")
+    private long TIME_LIMIT;
+
+    @Value("${oj.sandbox.language.cpp.memory-limit:268435456}")
+    private long MEMORY_LIMIT;
+
+    @Value("${oj.sandbox.language.toolchain-dir:}")
+    private String TOOLCHAIN_DIR;
+
+    /**
+     * 预编译头可用后为其所在目录
+     */
+    private volatile File precompiledHeaderDir;
+
+    @Override
+    public String getName() {
+        return "cpp";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Arrays.asList("c++", "g++");
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return "main.cpp";
+    }
+
+    @Override
+    protected String getCompiler() {
+        return COMPILER;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return COMPILE_OPTIONS;
+    }
+
+    @Override
+    protected List<String> getLinkOptions() {
+        return LINK_OPTIONS;
+    }
+
+    @Override
+    protected List<String> getIncludeOptions() {
+        File dir = precompiledHeaderDir;
+        return dir == null ? Collections.emptyList() : Collections.singletonList("-I" + dir.getAbsolutePath());
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_LIMIT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+
+    @Override
+    public void warmUp() {
+        if (!probe(COMPILER, "--version") || !probeIsolation() || !PRECOMPILED_HEADER_ENABLED) {
+            return;
+        }
+        File dir = resolveToolchainDir(TOOLCHAIN_DIR, getName());
+        File wrapper = new File(dir, "stdc++.h");
+        FileUtil.writeString("#include <" + PRECOMPILED_HEADER + ">\n", wrapper, StandardCharsets.UTF_8);
+        File output = new File(dir, PRECOMPILED_HEADER + ".gch");
+        FileUtil.mkParentDirs(output);
+        List<String> command = new ArrayList<>();
+        command.add(COMPILER);
+        command.addAll(COMPILE_OPTIONS);
+        command.add("-x");
+        command.add("c++-header");
+        command.add(wrapper.getName());
+        command.add("-o");
+        command.add(output.getAbsolutePath());
+        try {
+            runCompiler(dir, command, Collections.emptyMap());
+            precompiledHeaderDir = dir;
+            log.info("precompiled header: {}", output);
+        } catch (RuntimeException e) {
+            log.warn("precompile {} error: {}", PRECOMPILED_HEADER, e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("precompiledHeader", precompiledHeaderDir != null);
+        return stats;
+    }
+}
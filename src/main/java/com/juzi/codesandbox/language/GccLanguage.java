@@ -0,0 +1,62 @@
+package com.juzi.codesandbox.language;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * gcc / g++ 编译为本地可执行文件的语言
+ *
+ * @author codejuzi
+ */
+public abstract class GccLanguage extends AbstractLanguageStrategy {
+
+    protected static final String EXECUTABLE_NAME = "main";
+
+    /**
+     * 编译器命令
+     */
+    protected abstract String getCompiler();
+
+    /**
+     * 链接参数，放在源文件之后
+     */
+    protected abstract List<String> getLinkOptions();
+
+    /**
+     * 额外的头文件搜索目录，如预编译头所在目录
+     */
+    protected List<String> getIncludeOptions() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, byte[]> compile(File sourceFile) {
+        File workDir = sourceFile.getParentFile();
+        List<String> command = new ArrayList<>();
+        command.add(getCompiler());
+        command.addAll(getCompileOptions());
+        command.addAll(getIncludeOptions());
+        command.add("-o");
+        command.add(EXECUTABLE_NAME);
+        command.add(sourceFile.getName());
+        command.addAll(getLinkOptions());
+        runCompiler(workDir, command, Collections.emptyMap());
+        return readArtifact(workDir, EXECUTABLE_NAME);
+    }
+
+    @Override
+    public Process startProcess(File workDir) throws IOException {
+        return startIsolated(workDir, true, "./" + EXECUTABLE_NAME);
+    }
+
+    @Override
+    public void warmUp() {
+        if (probe(getCompiler(), "--version")) {
+            probeIsolation();
+        }
+    }
+}
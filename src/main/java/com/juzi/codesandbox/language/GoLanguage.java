@@ -0,0 +1,167 @@
+package com.juzi.codesandbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Go
+ * <p>
+ * 构建缓存（GOCACHE）放在工具链目录中，预热时构建一个引用常用标准库的程序，
+ * 之后的构建直接复用已编译的标准库
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class GoLanguage extends AbstractLanguageStrategy {
+
+    private static final String EXECUTABLE_NAME = "main";
+
+    private static final String SOURCE_FILE_NAME = "main.go";
+
+    private static final String WARM_UP_SOURCE = String.join("\n",
+            "package main",
+            "",
+            "import (",
+            "\t\"bufio\"",
+            "\t\"fmt\"",
+            "\t\"math\"",
+            "\t\"os\"",
+            "\t\"sort\"",
+            "\t\"strconv\"",
+            "\t\"strings\"",
+            ")",
+            "",
+            "func main() {",
+            "\treader := bufio.NewReader(os.Stdin)",
+            "\tline, _ := reader.ReadString('\\n')",
+            "\tfields := strings.Fields(line)",
+            "\tsort.Strings(fields)",
+            "\tn, _ := strconv.Atoi(\"1\")",
+            "\tfmt.Println(fields, n, math.MaxInt32)",
+            "}",
+            "");
+
+    @Value("${oj.sandbox.language.go.command:go}")
+    private String COMMAND;
+
+    @Value("${oj.sandbox.language.go.compile-options:}")
+    private List<String> COMPILE_OPTIONS;
+
+    @Value("${oj.sandbox.language.go.time-limit:10000}")
+    private long TIME_LIMIT;
+
+    /**
+     * 通过 GOMEMLIMIT 限制，Go 运行时会预留较大的虚拟地址空间，不能限制虚拟内存
+     */
+    @Value("${oj.sandbox.language.go.memory-limit:268435456}")
+    private long MEMORY_LIMIT;
+
+    @Value("${oj.sandbox.language.toolchain-dir:}")
+    private String TOOLCHAIN_DIR;
+
+    private volatile Map<String, String> buildEnvironment;
+
+    @Override
+    public String getName() {
+        return "go";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Collections.singletonList("golang");
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return SOURCE_FILE_NAME;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return COMPILE_OPTIONS;
+    }
+
+    @Override
+    public Map<String, byte[]> compile(File sourceFile) {
+        File workDir = sourceFile.getParentFile();
+        List<String> command = new ArrayList<>();
+        command.add(COMMAND);
+        command.add("build");
+        command.addAll(COMPILE_OPTIONS);
+        command.add("-o");
+        command.add(EXECUTABLE_NAME);
+        command.add(sourceFile.getName());
+        runCompiler(workDir, command, getBuildEnvironment());
+        return readArtifact(workDir, EXECUTABLE_NAME);
+    }
+
+    @Override
+    public Process startProcess(File workDir) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder().directory(workDir);
+        processBuilder.environment().put("GOMEMLIMIT", String.valueOf(MEMORY_LIMIT));
+        processBuilder.environment().put("GOMAXPROCS", "1");
+        return startIsolated(processBuilder, false, "./" + EXECUTABLE_NAME);
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_LIMIT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+
+    @Override
+    public void warmUp() {
+        if (!probe(COMMAND, "version") || !probeIsolation()) {
+            return;
+        }
+        File warmUpDir = FileUtil.mkdir(new File(resolveToolchainDir(TOOLCHAIN_DIR, getName()), "warm-up"));
+        File sourceFile = FileUtil.writeString(WARM_UP_SOURCE, new File(warmUpDir, SOURCE_FILE_NAME),
+                StandardCharsets.UTF_8);
+        try {
+            compile(sourceFile);
+            log.info("go build cache: {}", getBuildEnvironment().get("GOCACHE"));
+        } catch (RuntimeException e) {
+            log.warn("warm up go build cache error: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buildCache", getBuildEnvironment().get("GOCACHE"));
+        return stats;
+    }
+
+    /**
+     * 构建使用固定的缓存目录，不依赖运行用户的 HOME
+     */
+    private Map<String, String> getBuildEnvironment() {
+        Map<String, String> environment = buildEnvironment;
+        if (environment == null) {
+            File dir = resolveToolchainDir(TOOLCHAIN_DIR, getName());
+            environment = new LinkedHashMap<>();
+            environment.put("GOCACHE", new File(dir, "cache").getAbsolutePath());
+            environment.put("GOPATH", new File(dir, "path").getAbsolutePath());
+            environment.put("GO111MODULE", "off");
+            environment.put("CGO_ENABLED", "0");
+            buildEnvironment = environment;
+        }
+        return environment;
+    }
+}
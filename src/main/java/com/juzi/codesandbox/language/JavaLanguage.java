@@ -0,0 +1,108 @@
+package com.juzi.codesandbox.language;
+
+import cn.hutool.core.io.FileUtil;
+import com.juzi.codesandbox.compile.CompileException;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.utils.ProcessUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_FILE_NAME;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+
+/**
+ * Java：默认在进程内编译（见 {@link com.juzi.codesandbox.compile.InMemoryJavaCompiler}），
+ * 这里是 javac 进程编译；执行由各沙箱自行控制（安全管理器、常驻执行器、容器）
+ *
+ * @author codejuzi
+ */
+@Component
+public class JavaLanguage extends AbstractLanguageStrategy {
+
+    public static final String NAME = "java";
+
+    /**
+     * 额外的编译参数，如 -source,8,-target,8
+     */
+    @Value("${oj.sandbox.compiler.options:}")
+    private List<String> COMPILE_OPTIONS;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Collections.singletonList("java8");
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return GLOBAL_CODE_FILE_NAME;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return COMPILE_OPTIONS;
+    }
+
+    /**
+     * @return 类的全限定名 => 字节码
+     */
+    @Override
+    public Map<String, byte[]> compile(File sourceFile) {
+        String compileCmd = String.format("javac -encoding utf-8 %s %s",
+                StringUtils.join(COMPILE_OPTIONS, " "), sourceFile.getAbsolutePath());
+        Process compileProcess;
+        try {
+            compileProcess = Runtime.getRuntime().exec(compileCmd);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage("Compile Code", compileProcess);
+        if (executeMessage.getExitValue() != 0) {
+            throw new CompileException("Compile Error!");
+        }
+        // 读取javac生成的class文件
+        File userCodeParentFile = sourceFile.getParentFile();
+        String basePath = userCodeParentFile.getAbsolutePath() + File.separator;
+        Map<String, byte[]> classBytes = new LinkedHashMap<>();
+        for (File classFile : FileUtil.loopFiles(userCodeParentFile, file -> file.getName().endsWith(".class"))) {
+            String relativePath = classFile.getAbsolutePath().substring(basePath.length());
+            String className = relativePath.substring(0, relativePath.length() - ".class".length())
+                    .replace(File.separatorChar, '.');
+            classBytes.put(className, FileUtil.readBytes(classFile));
+        }
+        return classBytes;
+    }
+
+    @Override
+    public String getArtifactPath(String name) {
+        return name.replace('.', File.separatorChar) + ".class";
+    }
+
+    @Override
+    public Process startProcess(File workDir) throws IOException {
+        return new ProcessBuilder("java", "-Xmx256m", "-Dfile.encoding=UTF-8", "-cp", ".", "Main")
+                .directory(workDir).start();
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_OUT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return 256 * 1024 * 1024L;
+    }
+}
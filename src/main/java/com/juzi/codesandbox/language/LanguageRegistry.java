@@ -0,0 +1,114 @@
+package com.juzi.codesandbox.language;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 支持的编程语言：按名称、别名查找，启动时在后台预热各语言的工具链
+ * <p>
+ * 除 Java 外的语言直接在宿主机上执行，只有隔离命令和 prlimit 资源限制，默认关闭
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class LanguageRegistry {
+
+    @Resource
+    private List<LanguageStrategy> languageStrategies;
+
+    /**
+     * 是否启用除 Java 外的语言
+     */
+    @Value("${oj.sandbox.language.native.enabled:false}")
+    private boolean NATIVE_ENABLED;
+
+    /**
+     * 名称、别名（小写） => 语言
+     */
+    private final Map<String, LanguageStrategy> languageMap = new LinkedHashMap<>();
+
+    private ExecutorService warmUpExecutor;
+
+    @PostConstruct
+    public void init() {
+        for (LanguageStrategy language : languageStrategies) {
+            languageMap.put(language.getName().toLowerCase(), language);
+            for (String alias : language.getAliases()) {
+                languageMap.putIfAbsent(alias.toLowerCase(), language);
+            }
+        }
+        // 预热（预编译头、构建缓存、启动解释器）较慢，不阻塞启动
+        warmUpExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "language_warm_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (LanguageStrategy language : languageStrategies) {
+            if (!isEnabled(language)) {
+                continue;
+            }
+            warmUpExecutor.execute(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    language.warmUp();
+                    log.info("{} warmed up in {} ms, available: {}", language.getName(),
+                            System.currentTimeMillis() - start, language.isAvailable());
+                } catch (Exception e) {
+                    log.warn("warm up {} error: {}", language.getName(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        warmUpExecutor.shutdownNow();
+        languageStrategies.forEach(LanguageStrategy::destroy);
+    }
+
+    /**
+     * 查找语言，未指定时为 Java
+     *
+     * @param name 请求中的 language，忽略大小写
+     * @return 语言
+     * @throws IllegalArgumentException 不支持、未启用或工具链不可用
+     */
+    public LanguageStrategy resolve(String name) {
+        if (StringUtils.isBlank(name)) {
+            name = JavaLanguage.NAME;
+        }
+        LanguageStrategy language = languageMap.get(name.trim().toLowerCase());
+        if (language == null) {
+            throw new IllegalArgumentException("Unsupported language: " + name);
+        }
+        if (!isEnabled(language)) {
+            throw new IllegalArgumentException("Language " + language.getName()
+                    + " is disabled, set oj.sandbox.language.native.enabled to run it on the host");
+        }
+        if (!language.isAvailable()) {
+            throw new IllegalArgumentException("Language " + language.getName() + " is not available");
+        }
+        return language;
+    }
+
+    public boolean isEnabled(LanguageStrategy language) {
+        return NATIVE_ENABLED || JavaLanguage.NAME.equals(language.getName());
+    }
+
+    public Collection<LanguageStrategy> getLanguages() {
+        return languageStrategies;
+    }
+}
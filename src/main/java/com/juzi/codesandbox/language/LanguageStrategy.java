@@ -0,0 +1,100 @@
+package com.juzi.codesandbox.language;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编程语言：源文件命名、编译和执行方式、资源默认值
+ *
+ * @author codejuzi
+ */
+public interface LanguageStrategy {
+
+    /**
+     * 语言名称，即请求中的 language
+     */
+    String getName();
+
+    /**
+     * 语言别名，如 c++、py
+     */
+    List<String> getAliases();
+
+    /**
+     * 源文件名
+     */
+    String getSourceFileName();
+
+    /**
+     * 编译参数，同时参与编译产物缓存的键
+     */
+    List<String> getCompileOptions();
+
+    /**
+     * 编译源文件
+     *
+     * @param sourceFile 工作目录中的源文件
+     * @return 编译产物：名称 => 内容，解释型语言为空
+     * @throws com.juzi.codesandbox.compile.CompileException 编译失败
+     */
+    Map<String, byte[]> compile(File sourceFile);
+
+    /**
+     * 编译产物在工作目录中的相对路径
+     */
+    default String getArtifactPath(String name) {
+        return name;
+    }
+
+    /**
+     * 启动执行进程，用例输入通过标准输入写入
+     *
+     * @param workDir 工作目录
+     * @return 进程
+     */
+    Process startProcess(File workDir) throws IOException;
+
+    /**
+     * 写入进程标准输入的内容，预先启动的解释器需要先读入工作目录
+     */
+    default String buildInput(File workDir, String input) {
+        return input;
+    }
+
+    /**
+     * 单个用例默认的时间限制(ms)
+     */
+    long getTimeLimit();
+
+    /**
+     * 单个用例默认的内存限制(byte)
+     */
+    long getMemoryLimit();
+
+    /**
+     * 预热工具链：检查编译器、解释器是否可用，并准备预编译头、构建缓存、预先启动的进程等，在后台线程中执行
+     */
+    default void warmUp() {
+    }
+
+    /**
+     * 工具链是否可用，预热完成前视为可用
+     */
+    boolean isAvailable();
+
+    /**
+     * 工具链运行状态，用于监控
+     */
+    default Map<String, Object> getStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 释放预先启动的进程等资源
+     */
+    default void destroy() {
+    }
+}
@@ -0,0 +1,145 @@
+package com.juzi.codesandbox.language;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Python
+ * <p>
+ * 解释器进程在隔离命令和资源限制下预先启动并完成初始化，阻塞读取第一行（工作目录），
+ * 再在该目录中执行 main.py，其余的标准输入留给用户代码
+ *
+ * @author codejuzi
+ */
+@Component
+public class PythonLanguage extends AbstractLanguageStrategy {
+
+    private static final String SOURCE_FILE_NAME = "main.py";
+
+    private static final String BOOTSTRAP = String.join("\n",
+            "import os, sys",
+            "work_dir = sys.stdin.readline().rstrip('\\n')",
+            "os.chdir(work_dir)",
+            "sys.argv = ['" + SOURCE_FILE_NAME + "']",
+            "sys.path[0] = work_dir",
+            "with open('" + SOURCE_FILE_NAME + "', 'rb') as source:",
+            "    code = compile(source.read(), '" + SOURCE_FILE_NAME + "', 'exec')",
+            "del os, work_dir, source",
+            "exec(code, {'__name__': '__main__', '__builtins__': __builtins__})",
+            "");
+
+    @Value("${oj.sandbox.language.python.command:python3}")
+    private String COMMAND;
+
+    /**
+     * 预先启动、等待执行的解释器进程数，0 表示每次执行时启动
+     */
+    @Value("${oj.sandbox.language.python.warm-pool-size:2}")
+    private int WARM_POOL_SIZE;
+
+    /**
+     * 解释执行较慢，默认时间限制为编译型语言的两倍
+     */
+    @Value("${oj.sandbox.language.python.time-limit:20000}")
+    private long TIME_LIMIT;
+
+    @Value("${oj.sandbox.language.python.memory-limit:268435456}")
+    private long MEMORY_LIMIT;
+
+    private volatile WarmProcessPool processPool;
+
+    @Override
+    public String getName() {
+        return "python";
+    }
+
+    @Override
+    public List<String> getAliases() {
+        return Arrays.asList("python3", "py");
+    }
+
+    @Override
+    public String getSourceFileName() {
+        return SOURCE_FILE_NAME;
+    }
+
+    @Override
+    public List<String> getCompileOptions() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 解释执行，语法错误在执行时报告
+     */
+    @Override
+    public Map<String, byte[]> compile(File sourceFile) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Process startProcess(File workDir) throws IOException {
+        return getProcessPool().take();
+    }
+
+    @Override
+    public String buildInput(File workDir, String input) {
+        return workDir.getAbsolutePath() + "\n" + input;
+    }
+
+    @Override
+    public long getTimeLimit() {
+        return TIME_LIMIT;
+    }
+
+    @Override
+    public long getMemoryLimit() {
+        return MEMORY_LIMIT;
+    }
+
+    @Override
+    public void warmUp() {
+        if (probe(COMMAND, "--version") && probeIsolation()) {
+            getProcessPool().refill();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        WarmProcessPool pool = processPool;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmIdle", pool == null ? 0 : pool.getIdleCount());
+        stats.put("warmHits", pool == null ? 0L : pool.getHits());
+        stats.put("warmMisses", pool == null ? 0L : pool.getMisses());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        WarmProcessPool pool = processPool;
+        if (pool != null) {
+            pool.destroy();
+        }
+    }
+
+    private WarmProcessPool getProcessPool() {
+        WarmProcessPool pool = processPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = processPool;
+                if (pool == null) {
+                    processPool = pool = new WarmProcessPool(getName(),
+                            () -> startIsolated(new ProcessBuilder(), true, COMMAND, "-c", BOOTSTRAP), WARM_POOL_SIZE);
+                }
+            }
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,69 @@
+package com.juzi.codesandbox.language;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+
+/**
+ * 宿主机上执行用户代码的用户ID池
+ * <p>
+ * 每次执行分配一个独立的用户ID（组ID相同），进程结束后归还：不同执行之间不能互相发送信号、
+ * 不能访问对方的进程，按用户计算的进程数限制（RLIMIT_NPROC）也不再被并发执行共用。
+ * 分配按顺序轮转，刚归还的用户ID要等整个范围轮转一遍后才会再次分配。
+ *
+ * @author codejuzi
+ */
+@Component
+public class RunUserPool {
+
+    /**
+     * 起始用户ID，范围内的用户ID不应被宿主机上的其他用户使用
+     */
+    @Value("${oj.sandbox.language.native.run-uid-start:60000}")
+    private int UID_START;
+
+    /**
+     * 用户ID数量，即同时在宿主机上执行的进程数上限
+     */
+    @Value("${oj.sandbox.language.native.run-uid-count:1000}")
+    private int UID_COUNT;
+
+    private final BitSet inUse = new BitSet();
+
+    private int next = 0;
+
+    /**
+     * 分配用户ID
+     *
+     * @return 用户ID
+     * @throws IllegalStateException 范围内的用户ID都在使用中
+     */
+    public synchronized int acquire() {
+        for (int i = 0; i < UID_COUNT; i++) {
+            int offset = (next + i) % UID_COUNT;
+            if (!inUse.get(offset)) {
+                inUse.set(offset);
+                next = (offset + 1) % UID_COUNT;
+                return UID_START + offset;
+            }
+        }
+        throw new IllegalStateException("No free run uid in [" + UID_START + ", " + (UID_START + UID_COUNT) + ")");
+    }
+
+    /**
+     * 归还用户ID
+     *
+     * @param uid 用户ID
+     */
+    public synchronized void release(int uid) {
+        int offset = uid - UID_START;
+        if (offset >= 0 && offset < UID_COUNT) {
+            inUse.clear(offset);
+        }
+    }
+
+    public synchronized int getInUseCount() {
+        return inUse.cardinality();
+    }
+}
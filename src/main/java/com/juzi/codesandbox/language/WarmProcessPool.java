@@ -0,0 +1,125 @@
+package com.juzi.codesandbox.language;
+
+import com.juzi.codesandbox.utils.ProcessUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预先启动的进程池
+ * <p>
+ * 进程启动后阻塞在标准输入上等待任务，每个进程只使用一次；取走后在后台补充，
+ * 执行时不再承担解释器启动、初始化的开销。池为空时直接启动新进程。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+public class WarmProcessPool {
+
+    private final ProcessStarter processStarter;
+
+    private final int size;
+
+    private final LinkedBlockingDeque<Process> idleProcesses = new LinkedBlockingDeque<>();
+
+    /**
+     * 补充进程的线程，等待中的补充任务最多一个
+     */
+    private final ExecutorService refillExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * 启动进程
+     */
+    @FunctionalInterface
+    public interface ProcessStarter {
+
+        Process start() throws IOException;
+    }
+
+    public WarmProcessPool(String name, ProcessStarter processStarter, int size) {
+        this.processStarter = processStarter;
+        this.size = size;
+        this.refillExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1), r -> {
+            Thread thread = new Thread(r, name + "_warm_thread");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * 取出一个已启动的进程
+     */
+    public Process take() throws IOException {
+        Process process;
+        while ((process = idleProcesses.pollFirst()) != null && !process.isAlive()) {
+            // 意外退出的进程直接丢弃
+        }
+        refill();
+        if (process == null) {
+            misses.incrementAndGet();
+            return processStarter.start();
+        }
+        hits.incrementAndGet();
+        return process;
+    }
+
+    /**
+     * 在后台把空闲进程补充到 size 个
+     */
+    public void refill() {
+        if (closed || size <= 0) {
+            return;
+        }
+        refillExecutor.execute(() -> {
+            while (!closed && idleProcesses.size() < size) {
+                try {
+                    idleProcesses.offerLast(processStarter.start());
+                } catch (IOException e) {
+                    log.warn("start warm process error: {}", e.getMessage());
+                    return;
+                }
+            }
+            if (closed) {
+                destroyIdle();
+            }
+        });
+    }
+
+    public void destroy() {
+        closed = true;
+        refillExecutor.shutdownNow();
+        destroyIdle();
+    }
+
+    private void destroyIdle() {
+        Process process;
+        while ((process = idleProcesses.pollFirst()) != null) {
+            ProcessUtil.destroyTree(process);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleProcesses.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,135 @@
+package com.juzi.codesandbox.metrics;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+
+/**
+ * 沙箱执行各阶段的耗时与错误指标
+ * <p>
+ * 阶段耗时记录在 sandbox.stage，单个用例的执行耗时记录在 sandbox.case，
+ * 编译错误、超时、运行错误计入 sandbox.errors，均按沙箱类型打标签。
+ *
+ * @author codejuzi
+ */
+@Component
+public class SandboxMetrics {
+
+    public static final String STAGE_TIMER = "sandbox.stage";
+
+    public static final String CASE_TIMER = "sandbox.case";
+
+    public static final String ERROR_COUNTER = "sandbox.errors";
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String ERROR_COMPILE = "compile_error";
+
+    public static final String ERROR_TIMEOUT = "timeout";
+
+    public static final String ERROR_RUNTIME = "runtime_error";
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 开始记录一个阶段，调用 {@link Stage#success()} 后结束时记为成功，否则记为失败
+     *
+     * @param sandbox 沙箱类型
+     * @param stage   阶段名称
+     */
+    public Stage stage(String sandbox, String stage) {
+        return new Stage(sandbox, stage, System.nanoTime());
+    }
+
+    /**
+     * 记录各用例的执行耗时，并按第一个出错的用例计入一次超时或运行错误
+     *
+     * @param sandbox            沙箱类型
+     * @param executeMessageList 各用例的执行信息
+     */
+    public void recordCases(String sandbox, List<ExecuteMessage> executeMessageList) {
+        String errorType = null;
+        for (ExecuteMessage executeMessage : executeMessageList) {
+            String errorMessage = executeMessage.getErrorMessage();
+            String outcome = StringUtils.isBlank(errorMessage) ? OUTCOME_SUCCESS
+                    : TIME_OUT_MESSAGE.equals(errorMessage) ? ERROR_TIMEOUT : ERROR_RUNTIME;
+            if (errorType == null && !OUTCOME_SUCCESS.equals(outcome)) {
+                errorType = outcome;
+            }
+            Long time = executeMessage.getTime();
+            if (time != null) {
+                Timer.builder(CASE_TIMER)
+                        .description("Execution time of a single test case")
+                        .tag("sandbox", sandbox)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(time, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (errorType != null) {
+            recordError(sandbox, errorType);
+        }
+    }
+
+    /**
+     * 计入一次错误
+     *
+     * @param sandbox 沙箱类型
+     * @param type    错误类型
+     */
+    public void recordError(String sandbox, String type) {
+        Counter.builder(ERROR_COUNTER)
+                .description("Submissions failed by compile errors, timeouts or runtime errors")
+                .tag("sandbox", sandbox)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 一次阶段计时，结束时记录耗时
+     */
+    public final class Stage implements AutoCloseable {
+
+        private final String sandbox;
+
+        private final String stage;
+
+        private final long startNanos;
+
+        private boolean success;
+
+        private Stage(String sandbox, String stage, long startNanos) {
+            this.sandbox = sandbox;
+            this.stage = stage;
+            this.startNanos = startNanos;
+        }
+
+        public void success() {
+            this.success = true;
+        }
+
+        @Override
+        public void close() {
+            Timer.builder(STAGE_TIMER)
+                    .description("Time spent in each stage of a sandbox execution")
+                    .tag("sandbox", sandbox)
+                    .tag("stage", stage)
+                    .tag("outcome", success ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
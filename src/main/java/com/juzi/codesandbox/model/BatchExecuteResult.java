@@ -0,0 +1,35 @@
+package com.juzi.codesandbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 批量执行中单个提交的结果
+ *
+ * @author codejuzi
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExecuteResult implements Serializable {
+
+    private static final long serialVersionUID = 2781920376345611478L;
+
+    /**
+     * 对应请求在批量请求中的下标
+     */
+    private Integer index;
+
+    /**
+     * 执行代码响应
+     */
+    private ExecuteCodeResponse response;
+
+    /**
+     * 提交未被接纳（状态为繁忙）时建议的重试间隔(s)，其他情况为 null
+     */
+    private Long retryAfterSeconds;
+}
@@ -0,0 +1,40 @@
+package com.juzi.codesandbox.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 单个用例与期望输出的比较结果
+ *
+ * @author codejuzi
+ */
+@Data
+public class CaseResult implements Serializable {
+
+    private static final long serialVersionUID = -3164927702357520461L;
+
+    public static final String ACCEPTED = "Accepted";
+
+    public static final String WRONG_ANSWER = "Wrong Answer";
+
+    /**
+     * 判定结果：Accepted、Wrong Answer
+     */
+    private String verdict;
+
+    /**
+     * 第一处不一致所在的输出行号，从 1 开始；按哈希比较时为 null
+     */
+    private Long line;
+
+    /**
+     * 第一处不一致的期望内容片段（行或单词），按哈希比较时为期望的哈希
+     */
+    private String expected;
+
+    /**
+     * 第一处不一致的实际内容片段，按哈希比较时为实际输出的哈希
+     */
+    private String actual;
+}
@@ -16,7 +16,11 @@ import java.util.stream.Collectors;
 public enum CodeSandboxStatusEnum {
 
     SUCCESS("成功", 0),
-    FAILED("出错", 1);
+    FAILED("出错", 1),
+    /**
+     * 沙箱繁忙未执行，可稍后重试（批量执行中未被接纳的提交）
+     */
+    BUSY("繁忙", 2);
 
 
     private final String text;
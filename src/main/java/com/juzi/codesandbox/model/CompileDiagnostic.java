@@ -0,0 +1,36 @@
+package com.juzi.codesandbox.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 编译诊断信息
+ *
+ * @author codejuzi
+ */
+@Data
+public class CompileDiagnostic implements Serializable {
+
+    private static final long serialVersionUID = 4206327393185066711L;
+
+    /**
+     * 诊断类型：ERROR、WARNING、NOTE 等
+     */
+    private String kind;
+
+    /**
+     * 行号，从 1 开始，未知时为 -1
+     */
+    private Long line;
+
+    /**
+     * 列号，从 1 开始，未知时为 -1
+     */
+    private Long column;
+
+    /**
+     * 诊断信息
+     */
+    private String message;
+}
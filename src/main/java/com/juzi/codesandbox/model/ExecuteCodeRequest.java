@@ -32,4 +32,28 @@ public class ExecuteCodeRequest implements Serializable {
      */
     private String language;
 
+    /**
+     * 期望输出，与 inputList 一一对应；指定后在沙箱内边执行边比较，不再返回 outputList
+     */
+    private List<String> expectedOutputList;
+
+    /**
+     * 期望输出的 SHA-256（十六进制），与 inputList 一一对应，用于不便传输完整期望输出的情况；
+     * 哈希按比较模式规范化后的输出计算：exact 为 \r\n 换成 \n 并去掉末尾换行，whitespace 为单词以单个空格连接。
+     * 执行结束后才能比较，不支持 float 模式
+     */
+    private List<String> expectedOutputHashList;
+
+    /**
+     * 输出比较模式，默认 exact
+     *
+     * @see OutputCompareModeEnum
+     */
+    private String compareMode;
+
+    /**
+     * float 模式下数值的允许误差（绝对误差或相对误差），默认 1e-6
+     */
+    private Double floatTolerance;
+
 }
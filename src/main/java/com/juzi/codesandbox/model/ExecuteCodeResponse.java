@@ -14,10 +14,15 @@ import java.util.List;
 public class ExecuteCodeResponse implements Serializable {
 
     /**
-     * 执行程序实际输出信息
+     * 执行程序实际输出信息，请求指定了期望输出时为空
      */
     private List<String> outputList;
 
+    /**
+     * 请求指定了期望输出时各用例的比较结果，在第一个答案错误的用例处结束
+     */
+    private List<CaseResult> caseResultList;
+
     /**
      * 执行代码信息、内存、耗时等
      */
@@ -34,4 +39,9 @@ public class ExecuteCodeResponse implements Serializable {
      * @see CodeSandboxStatusEnum
      */
     private Integer status;
+
+    /**
+     * 编译失败时的编译诊断信息
+     */
+    private List<CompileDiagnostic> compileDiagnostics;
 }
@@ -0,0 +1,56 @@
+package com.juzi.codesandbox.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步执行任务
+ *
+ * @author codejuzi
+ */
+@Data
+public class ExecuteJob implements Serializable {
+
+    private static final long serialVersionUID = -3587215740346981202L;
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态
+     *
+     * @see ExecuteJobStatusEnum
+     */
+    private volatile Integer status;
+
+    /**
+     * 执行结果，任务完成后才有值
+     */
+    private volatile ExecuteCodeResponse response;
+
+    /**
+     * 任务失败原因
+     */
+    private volatile String message;
+
+    /**
+     * 提交时间
+     */
+    private Long submitTime;
+
+    /**
+     * 完成时间
+     */
+    private volatile Long finishTime;
+
+    /**
+     * 任务完成时结束的 future（不返回给调用方）
+     */
+    @JsonIgnore
+    private transient CompletableFuture<ExecuteJob> future;
+}
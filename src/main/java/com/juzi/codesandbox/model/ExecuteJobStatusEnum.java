@@ -0,0 +1,47 @@
+package com.juzi.codesandbox.model;
+
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 异步执行任务状态枚举
+ *
+ * @author codejuzi
+ */
+@Getter
+public enum ExecuteJobStatusEnum {
+
+    WAITING("等待中", 0),
+    SUCCEED("已完成", 1),
+    FAILED("失败", 2);
+
+
+    private final String text;
+
+    private final Integer value;
+
+    ExecuteJobStatusEnum(String text, Integer value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    public static List<Integer> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    public static ExecuteJobStatusEnum getEnumByValue(Integer value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (ExecuteJobStatusEnum anEnum : ExecuteJobStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
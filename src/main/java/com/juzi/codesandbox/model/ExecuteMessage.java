@@ -26,12 +26,22 @@ public class ExecuteMessage {
     private String errorMessage;
 
     /**
-     * 耗时
+     * 耗时（墙钟时间，ms）
      */
     private Long time;
 
     /**
-     * 内存情况
+     * CPU 时间（user + sys，ms），未测量时为 null
+     */
+    private Long cpuTime;
+
+    /**
+     * 内存峰值(KB)，未测量时为 null
      */
     private Long memory;
+
+    /**
+     * 与期望输出的比较结果，未指定期望输出时为 null
+     */
+    private CaseResult caseResult;
 }
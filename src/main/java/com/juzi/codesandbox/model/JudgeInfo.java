@@ -19,6 +19,11 @@ public class JudgeInfo {
      */
     private Long time;
 
+    /**
+     * 消耗 CPU 时间(ms)，未测量时为 null
+     */
+    private Long cpuTime;
+
     /**
      * 消耗内存(KB)
      */
@@ -0,0 +1,47 @@
+package com.juzi.codesandbox.model;
+
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 输出比较模式枚举
+ *
+ * @author codejuzi
+ */
+@Getter
+public enum OutputCompareModeEnum {
+
+    EXACT("逐字节比较（忽略换行符差异与末尾空行）", "exact"),
+    WHITESPACE("忽略空白，逐个比较以空白分隔的单词", "whitespace"),
+    FLOAT("忽略空白，数值按误差比较", "float");
+
+
+    private final String text;
+
+    private final String value;
+
+    OutputCompareModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    public static OutputCompareModeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (OutputCompareModeEnum anEnum : OutputCompareModeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
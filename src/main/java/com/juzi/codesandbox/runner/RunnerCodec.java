@@ -0,0 +1,96 @@
+package com.juzi.codesandbox.runner;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 宿主与执行 JVM（RunnerMain）之间的帧编解码
+ *
+ * @author codejuzi
+ */
+public class RunnerCodec {
+
+    private RunnerCodec() {
+    }
+
+    /**
+     * 写入一个用例请求
+     *
+     * @param out          输出流
+     * @param classPath    用户代码 class 所在目录（执行 JVM 视角）
+     * @param args         main 方法参数
+     * @param input        标准输入，为 null 时按参数模式执行
+     * @param timeLimit    墙钟时间限制(ms)
+     * @param cpuTimeLimit CPU 时间限制(ms)，不大于 0 时不限制
+     * @param outputLimit  单个输出流最多保留的字节数
+     */
+    public static void writeRequest(DataOutputStream out, String classPath, List<String> args, String input,
+                                    long timeLimit, long cpuTimeLimit, long outputLimit) throws IOException {
+        writeString(out, classPath);
+        out.writeInt(args.size());
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        RunnerMain.writeBytes(out, input == null ? new byte[0] : normalizeInput(input).getBytes(StandardCharsets.UTF_8));
+        out.writeLong(timeLimit);
+        out.writeLong(cpuTimeLimit);
+        out.writeLong(outputLimit);
+    }
+
+    /**
+     * 读取一个用例结果
+     *
+     * @param in          输入流
+     * @param interactive 是否为标准输入模式，该模式下总是返回 stderr；参数模式下正常退出时不返回 stderr，与原生进程一致
+     * @return 用例结果
+     */
+    public static RunnerResponse readResponse(DataInputStream in, boolean interactive) throws IOException {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setExitValue(in.readInt());
+        executeMessage.setTime(in.readLong());
+        executeMessage.setCpuTime(in.readLong());
+        // 执行器上报字节数，统一换算为 KB
+        executeMessage.setMemory(in.readLong() / 1024);
+        String stdout = RunnerMain.readString(in);
+        String stderr = RunnerMain.readString(in);
+        String errorMessage = RunnerMain.readString(in);
+        boolean recycle = in.readBoolean();
+        executeMessage.setMessage(trimOutput(stdout));
+        if (!errorMessage.isEmpty()) {
+            executeMessage.setErrorMessage(errorMessage);
+        } else if (interactive || executeMessage.getExitValue() != 0) {
+            executeMessage.setErrorMessage(trimOutput(stderr));
+        }
+        return new RunnerResponse(executeMessage, recycle);
+    }
+
+    /**
+     * 读取执行 JVM 启动完成的握手
+     */
+    public static void readReady(DataInputStream in) throws IOException {
+        if (in.readInt() != RunnerMain.READY) {
+            throw new IOException("Unexpected runner handshake");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        RunnerMain.writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String normalizeInput(String input) {
+        return input.endsWith("\n") ? input : input + "\n";
+    }
+
+    /**
+     * 按行拼接输出（\n 分隔，不含末尾换行），与 ProcessUtil 一致
+     */
+    private static String trimOutput(String output) {
+        output = output.replace("\r\n", "\n");
+        return output.endsWith("\n") ? output.substring(0, output.length() - 1) : output;
+    }
+}
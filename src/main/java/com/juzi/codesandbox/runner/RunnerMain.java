@@ -0,0 +1,305 @@
+package com.juzi.codesandbox.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * 常驻执行 JVM 的入口
+ * <p>
+ * 通过 stdin / stdout 与宿主通信，每次请求在新的类加载器中加载用户的 Main，
+ * 将 System.in / out / err 重定向到本次请求的输入输出后，在用户线程组中执行 main 方法，
+ * 执行后恢复系统属性、默认 Locale / 时区。
+ * 超时、输出超限仍未结束、内存溢出或残留用户线程时，回复后退出，由宿主重建执行器。
+ * <p>
+ * 以 harness 参数启动时先读取用例数，执行完所有用例（或需要回收）后退出，用于容器内一次 exec 执行全部用例。
+ * <p>
+ * 该类由执行 JVM 加载，只能依赖 JDK。
+ *
+ * @author codejuzi
+ */
+public class RunnerMain {
+
+    /**
+     * 启动完成后写给宿主的握手标识
+     */
+    public static final int READY = 0x4A4F4A52;
+
+    /**
+     * 批量执行模式参数
+     */
+    public static final String HARNESS_MODE = "harness";
+
+    /**
+     * 与 CodeSandboxConstants 中的错误信息一致：执行器运行在用户 JVM 中，只依赖 JDK
+     */
+    public static final String TIME_OUT_MESSAGE = "Time out";
+
+    public static final String OUTPUT_LIMIT_EXCEEDED = "Output Limit Exceeded";
+
+    private static final String MAIN_CLASS_NAME = "Main";
+
+    /**
+     * 等待用户线程结束的轮询间隔(ms)
+     */
+    private static final long POLL_INTERVAL = 10L;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static int runIndex = 0;
+
+    public static void main(String[] args) throws IOException {
+        DataInputStream requestInput = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream responseOutput = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        // 安全管理器已禁止用户代码修改，这里再恢复一次，保证后续执行不受影响
+        Properties originalProperties = (Properties) System.getProperties().clone();
+        Locale originalDisplayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        Locale originalFormatLocale = Locale.getDefault(Locale.Category.FORMAT);
+        Locale originalLocale = Locale.getDefault();
+        TimeZone originalTimeZone = TimeZone.getDefault();
+
+        responseOutput.writeInt(READY);
+        responseOutput.flush();
+        // 批量执行模式下用例数已知，不依赖输入流关闭
+        int remainingCases = args.length > 0 && HARNESS_MODE.equals(args[0]) ? requestInput.readInt() : -1;
+        while (remainingCases != 0) {
+            String classPath;
+            try {
+                classPath = readString(requestInput);
+            } catch (EOFException e) {
+                // 宿主关闭了通道
+                return;
+            }
+            int argCount = requestInput.readInt();
+            String[] userArgs = new String[argCount];
+            for (int i = 0; i < argCount; i++) {
+                userArgs[i] = readString(requestInput);
+            }
+            byte[] input = readBytes(requestInput);
+            long timeLimit = requestInput.readLong();
+            long cpuTimeLimit = requestInput.readLong();
+            long outputLimit = requestInput.readLong();
+
+            boolean recycle;
+            try {
+                recycle = run(classPath, userArgs, input, timeLimit, cpuTimeLimit, outputLimit, responseOutput);
+            } finally {
+                System.setIn(originalIn);
+                System.setOut(originalOut);
+                System.setErr(originalErr);
+                System.setProperties((Properties) originalProperties.clone());
+                Locale.setDefault(originalLocale);
+                Locale.setDefault(Locale.Category.DISPLAY, originalDisplayLocale);
+                Locale.setDefault(Locale.Category.FORMAT, originalFormatLocale);
+                TimeZone.setDefault(originalTimeZone);
+            }
+            responseOutput.flush();
+            if (recycle) {
+                System.exit(0);
+            }
+            if (remainingCases > 0) {
+                remainingCases--;
+            }
+        }
+        responseOutput.flush();
+        System.exit(0);
+    }
+
+    /**
+     * 执行一次用户代码并写回结果
+     *
+     * @param timeLimit    墙钟时间限制(ms)
+     * @param cpuTimeLimit CPU 时间限制(ms)，不大于 0 时不限制
+     * @return 执行器是否需要回收
+     */
+    private static boolean run(String classPath, String[] userArgs, byte[] input, long timeLimit, long cpuTimeLimit,
+                               long outputLimit, DataOutputStream responseOutput) throws IOException {
+        CappedOutputStream stdout = new CappedOutputStream(outputLimit);
+        CappedOutputStream stderr = new CappedOutputStream(outputLimit);
+        System.setIn(new ByteArrayInputStream(input));
+        System.setOut(new PrintStream(stdout, true, "UTF-8"));
+        System.setErr(new PrintStream(stderr, true, "UTF-8"));
+        RunnerSecurityManager.exitStatus = null;
+
+        ThreadGroup group = new ThreadGroup(RunnerSecurityManager.USER_THREAD_GROUP, "user_code_" + (++runIndex));
+        Throwable[] failure = new Throwable[1];
+        // 用户主线程的 CPU 时间(ns)，主线程结束时记录
+        long[] cpuNanos = {-1L};
+        boolean cpuTimeExceeded = false;
+        Thread userThread = null;
+        List<MemoryPoolMXBean> heapPools = getHeapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long startTime = System.currentTimeMillis();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{new File(classPath).toURI().toURL()},
+                ClassLoader.getSystemClassLoader().getParent())) {
+            Method mainMethod = classLoader.loadClass(MAIN_CLASS_NAME).getMethod("main", String[].class);
+            userThread = new Thread(group, () -> {
+                try {
+                    mainMethod.invoke(null, (Object) userArgs);
+                } catch (InvocationTargetException e) {
+                    failure[0] = e.getCause();
+                } catch (Throwable e) {
+                    failure[0] = e;
+                } finally {
+                    cpuNanos[0] = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+                }
+            }, "main");
+            // 默认是系统类加载器，用户代码可以借此加载执行器自身的类
+            userThread.setContextClassLoader(classLoader);
+            userThread.setDaemon(true);
+            userThread.start();
+
+            // 等待用户代码（含其创建的线程）结束，超时或输出超限时停止等待
+            long deadline = startTime + timeLimit;
+            while (group.activeCount() > 0 && System.currentTimeMillis() < deadline
+                    && !stdout.isLimitExceeded() && !stderr.isLimitExceeded()) {
+                if (cpuTimeLimit > 0 && THREAD_MX_BEAN.getThreadCpuTime(userThread.getId()) > cpuTimeLimit * 1000_000L) {
+                    cpuTimeExceeded = true;
+                    break;
+                }
+                try {
+                    userThread.join(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            failure[0] = e;
+        }
+        long time = System.currentTimeMillis() - startTime;
+        long cpuTime = cpuNanos[0];
+        if (cpuTime < 0 && userThread != null) {
+            // 主线程仍在执行
+            cpuTime = THREAD_MX_BEAN.getThreadCpuTime(userThread.getId());
+        }
+        cpuTime = Math.max(cpuTime, 0L) / 1000_000L;
+        // 堆内存峰值（含执行器自身占用）
+        long memory = 0L;
+        for (MemoryPoolMXBean heapPool : heapPools) {
+            memory += heapPool.getPeakUsage().getUsed();
+        }
+
+        boolean alive = group.activeCount() > 0;
+        String errorMessage = "";
+        int exitValue = 0;
+        boolean recycle = alive;
+        if (stdout.isLimitExceeded() || stderr.isLimitExceeded()) {
+            errorMessage = OUTPUT_LIMIT_EXCEEDED;
+            exitValue = 1;
+        } else if (alive || cpuTimeExceeded) {
+            errorMessage = TIME_OUT_MESSAGE;
+            exitValue = 1;
+        } else if (RunnerSecurityManager.exitStatus != null) {
+            exitValue = RunnerSecurityManager.exitStatus;
+        } else if (failure[0] != null) {
+            exitValue = 1;
+            StringWriter stackTrace = new StringWriter();
+            failure[0].printStackTrace(new PrintWriter(stackTrace));
+            stderr.write(("Exception in thread \"main\" " + stackTrace).getBytes(StandardCharsets.UTF_8));
+            // 内存溢出后堆状态不可信
+            recycle = failure[0] instanceof VirtualMachineError;
+        }
+
+        responseOutput.writeInt(exitValue);
+        responseOutput.writeLong(time);
+        responseOutput.writeLong(cpuTime);
+        responseOutput.writeLong(memory);
+        writeBytes(responseOutput, stdout.toByteArray());
+        writeBytes(responseOutput, stderr.toByteArray());
+        writeBytes(responseOutput, errorMessage.getBytes(StandardCharsets.UTF_8));
+        responseOutput.writeBoolean(recycle);
+        return recycle;
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools() {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>(ManagementFactory.getMemoryPoolMXBeans());
+        heapPools.removeIf(pool -> pool.getType() != MemoryType.HEAP || !pool.isValid());
+        return heapPools;
+    }
+
+    public static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 最多保留 limit 字节的输出流，超出部分丢弃
+     */
+    static class CappedOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final long limit;
+
+        private volatile boolean limitExceeded = false;
+
+        CappedOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            long remaining = limit - buffer.size();
+            if (len > remaining) {
+                buffer.write(b, off, (int) Math.max(remaining, 0));
+                limitExceeded = true;
+                return;
+            }
+            buffer.write(b, off, len);
+        }
+
+        boolean isLimitExceeded() {
+            return limitExceeded;
+        }
+
+        synchronized byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.juzi.codesandbox.runner;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.StrUtil;
+import com.juzi.codesandbox.exec.ProcessWatchdog;
+import com.juzi.codesandbox.model.ExecuteMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_DIR_NAME;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+
+/**
+ * 常驻执行 JVM 池
+ * <p>
+ * 执行 JVM 只加载 RunnerMain 与 RunnerSecurityManager（启动时从应用 classpath 复制到 tmp_code/.runner），
+ * 每个用例租借一个执行器，在隔离的类加载器中执行用户代码，省去每个用例启动 JVM 的开销。
+ * 执行器达到最大执行次数、超时或状态异常时销毁，并由后台线程补足到池大小。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class RunnerPool {
+
+    public static final String RUNNER_DIR_NAME = ".runner";
+
+    /**
+     * 执行 JVM 需要的类，只能依赖 JDK
+     */
+    private static final Class<?>[] RUNNER_CLASSES = {
+            RunnerMain.class,
+            RunnerMain.CappedOutputStream.class,
+            RunnerSecurityManager.class,
+            RunnerSecurityManager.ExitException.class
+    };
+
+    /**
+     * 执行器自身超时的宽限时间(ms)，超过时间限制 + 宽限仍未回复则销毁执行器
+     */
+    private static final long KILL_GRACE = 2000L;
+
+    @Value("${oj.sandbox.runner.enabled:false}")
+    private boolean ENABLED;
+
+    /**
+     * 执行器数量，0 表示CPU核数
+     */
+    @Value("${oj.sandbox.runner.size:0}")
+    private int POOL_SIZE;
+
+    /**
+     * 单个执行器最多执行的用例数，达到后回收重建
+     */
+    @Value("${oj.sandbox.runner.max-runs:200}")
+    private int MAX_RUNS;
+
+    /**
+     * 执行 JVM 的启动参数，空格分隔
+     */
+    @Value("${oj.sandbox.runner.jvm-options:-Xmx256m}")
+    private String JVM_OPTIONS;
+
+    /**
+     * 租借执行器的最长等待时间(ms)
+     */
+    @Value("${oj.sandbox.runner.lease-timeout:30000}")
+    private long LEASE_TIMEOUT;
+
+    /**
+     * 执行 JVM 启动的最长等待时间(ms)
+     */
+    @Value("${oj.sandbox.runner.start-timeout:10000}")
+    private long START_TIMEOUT;
+
+    private final LinkedBlockingDeque<RunnerWorker> idleWorkers = new LinkedBlockingDeque<>();
+
+    /**
+     * 执行器总数（含正在启动、租借中的执行器）
+     */
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private final AtomicLong totalRuns = new AtomicLong();
+
+    private final AtomicLong recycledWorkers = new AtomicLong();
+
+    @Resource
+    private ProcessWatchdog processWatchdog;
+
+    private ScheduledExecutorService maintainExecutor;
+
+    private String runnerClassPath;
+
+    private volatile boolean closed = false;
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED) {
+            return;
+        }
+        if (POOL_SIZE <= 0) {
+            POOL_SIZE = Runtime.getRuntime().availableProcessors();
+        }
+        runnerClassPath = deployRunnerClasses();
+        maintainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "runner_pool_maintain_thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 启动后在后台预热，不阻塞应用启动
+        maintainExecutor.execute(this::replenish);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!ENABLED) {
+            return;
+        }
+        closed = true;
+        maintainExecutor.shutdownNow();
+        RunnerWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            removeWorker(worker);
+        }
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 租借执行器执行一次用户代码
+     *
+     * @param classPath    用户代码 class 所在目录
+     * @param args         main 方法参数
+     * @param input        标准输入，为 null 时按参数模式执行
+     * @param timeLimit    墙钟时间限制(ms)
+     * @param cpuTimeLimit CPU 时间限制(ms)，不大于 0 时不限制
+     * @param outputLimit  单个输出流最多保留的字节数
+     * @return 执行信息
+     */
+    public ExecuteMessage execute(String classPath, List<String> args, String input,
+                                  long timeLimit, long cpuTimeLimit, long outputLimit) throws IOException {
+        RunnerWorker worker;
+        try {
+            worker = lease();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        ProcessWatchdog.Deadline deadline = processWatchdog.watch(worker.getProcess(), timeLimit + KILL_GRACE);
+        try {
+            return worker.run(classPath, args, input, timeLimit, cpuTimeLimit, outputLimit);
+        } catch (IOException e) {
+            if (!deadline.isTimedOut()) {
+                throw e;
+            }
+            ExecuteMessage executeMessage = new ExecuteMessage();
+            executeMessage.setExitValue(1);
+            executeMessage.setTime(timeLimit);
+            executeMessage.setErrorMessage(TIME_OUT_MESSAGE);
+            return executeMessage;
+        } finally {
+            deadline.cancel();
+            totalRuns.incrementAndGet();
+            release(worker);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleWorkers.size();
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getTotalRuns() {
+        return totalRuns.get();
+    }
+
+    public long getRecycledWorkers() {
+        return recycledWorkers.get();
+    }
+
+    /**
+     * 租借一个可用执行器，池满时最多等待 LEASE_TIMEOUT
+     */
+    private RunnerWorker lease() throws InterruptedException, IOException {
+        long deadline = System.currentTimeMillis() + LEASE_TIMEOUT;
+        while (true) {
+            RunnerWorker worker = idleWorkers.pollFirst();
+            if (worker == null && tryReserve()) {
+                // 池未满，直接新建
+                return createWorker();
+            }
+            if (worker == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                worker = remaining > 0 ? idleWorkers.pollFirst(remaining, TimeUnit.MILLISECONDS) : null;
+                if (worker == null) {
+                    throw new IllegalStateException("No runner available in " + LEASE_TIMEOUT + " ms");
+                }
+            }
+            if (!worker.getProcess().isAlive()) {
+                removeWorker(worker);
+                continue;
+            }
+            return worker;
+        }
+    }
+
+    /**
+     * 归还执行器，不可复用或达到最大执行次数时销毁并在后台补充
+     */
+    private void release(RunnerWorker worker) {
+        worker.setRunCount(worker.getRunCount() + 1);
+        if (closed) {
+            removeWorker(worker);
+            return;
+        }
+        if (!worker.isReusable() || worker.getRunCount() >= MAX_RUNS || !worker.getProcess().isAlive()) {
+            log.info("recycle runner, run count: {}, reusable: {}", worker.getRunCount(), worker.isReusable());
+            recycledWorkers.incrementAndGet();
+            removeWorker(worker);
+            maintainExecutor.execute(this::replenish);
+            return;
+        }
+        idleWorkers.offerFirst(worker);
+    }
+
+    private void replenish() {
+        while (!closed && tryReserve()) {
+            try {
+                idleWorkers.offerLast(createWorker());
+            } catch (Exception e) {
+                log.error("replenish runner error", e);
+                return;
+            }
+        }
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int count = totalCount.get();
+            if (count >= POOL_SIZE) {
+                return false;
+            }
+            if (totalCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 启动执行 JVM 并等待握手，调用前必须已通过 tryReserve 占位
+     */
+    private RunnerWorker createWorker() throws IOException {
+        Process process = null;
+        try {
+            List<String> command = new ArrayList<>();
+            command.add("java");
+            command.addAll(StrUtil.splitTrim(JVM_OPTIONS, ' '));
+            command.add("-Dfile.encoding=UTF-8");
+            command.add("-cp");
+            command.add(runnerClassPath);
+            command.add("-Djava.security.manager=" + RunnerSecurityManager.class.getName());
+            command.add(RunnerMain.class.getName());
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            RunnerWorker worker = new RunnerWorker(process);
+            ProcessWatchdog.Deadline deadline = processWatchdog.watch(process, START_TIMEOUT);
+            try {
+                worker.awaitReady();
+            } finally {
+                deadline.cancel();
+            }
+            log.info("create runner, total: {}", totalCount.get());
+            return worker;
+        } catch (IOException | RuntimeException e) {
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            totalCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void removeWorker(RunnerWorker worker) {
+        worker.destroy();
+        totalCount.decrementAndGet();
+    }
+
+    /**
+     * 将执行 JVM 需要的类复制到 tmp_code/.runner，执行 JVM 的 classpath 不包含应用的其他类
+     *
+     * @return 执行器 classpath
+     */
+    public static String deployRunnerClasses() {
+        return deployRunnerClasses(System.getProperty("user.dir") + File.separator + GLOBAL_CODE_DIR_NAME);
+    }
+
+    /**
+     * 将执行 JVM 需要的类复制到 parentPath/.runner
+     *
+     * @param parentPath 父目录
+     * @return 执行器 classpath
+     */
+    public static String deployRunnerClasses(String parentPath) {
+        String runnerPath = parentPath + File.separator + RUNNER_DIR_NAME;
+        for (Map.Entry<String, byte[]> entry : readRunnerClasses().entrySet()) {
+            FileUtil.writeBytes(entry.getValue(), runnerPath + File.separator + entry.getKey());
+        }
+        return runnerPath;
+    }
+
+    /**
+     * 读取执行 JVM 需要的类
+     *
+     * @return class 文件相对 classpath 的路径 => 字节码
+     */
+    public static Map<String, byte[]> readRunnerClasses() {
+        Map<String, byte[]> runnerClasses = new LinkedHashMap<>();
+        for (Class<?> runnerClass : RUNNER_CLASSES) {
+            String resourceName = runnerClass.getName().replace('.', '/') + ".class";
+            try (InputStream is = RunnerPool.class.getClassLoader().getResourceAsStream(resourceName)) {
+                if (is == null) {
+                    throw new IllegalStateException("Runner class not found: " + resourceName);
+                }
+                runnerClasses.put(resourceName, IoUtil.readBytes(is));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return runnerClasses;
+    }
+}
@@ -0,0 +1,22 @@
+package com.juzi.codesandbox.runner;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 执行 JVM 返回的单个用例结果
+ *
+ * @author codejuzi
+ */
+@Data
+@AllArgsConstructor
+public class RunnerResponse {
+
+    private ExecuteMessage executeMessage;
+
+    /**
+     * 执行 JVM 是否已退出、需要回收
+     */
+    private boolean recycle;
+}
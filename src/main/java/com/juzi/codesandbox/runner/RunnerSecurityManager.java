@@ -0,0 +1,198 @@
+package com.juzi.codesandbox.runner;
+
+import java.io.FileDescriptor;
+import java.io.FilePermission;
+import java.lang.reflect.ReflectPermission;
+import java.net.SocketPermission;
+import java.security.AccessController;
+import java.security.Permission;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PropertyPermission;
+import java.util.Set;
+
+/**
+ * 常驻执行 JVM 的安全管理器，替代 UserCodeSecurityManager
+ * <p>
+ * 只限制用户代码线程（USER_THREAD_GROUP 及其子线程组中的线程），执行器自身不受影响：
+ * 禁止执行命令、写删文件、网络连接、替换标准流、直接写文件描述符、替换安全管理器，
+ * 禁止绕过访问检查的反射、获取其他类加载器，以及修改系统属性、默认 Locale / 时区等会影响后续执行的全局状态，
+ * System.exit 转换为 ExitException 并记录退出码。
+ * <p>
+ * 该类由执行 JVM 加载，只能依赖 JDK。
+ *
+ * @author codejuzi
+ */
+public class RunnerSecurityManager extends SecurityManager {
+
+    /**
+     * 用户代码线程的根线程组
+     */
+    static final ThreadGroup USER_THREAD_GROUP = new ThreadGroup("user_code");
+
+    /**
+     * 本次执行中用户代码调用 System.exit 的退出码，未调用时为 null
+     */
+    static volatile Integer exitStatus;
+
+    /**
+     * 用户代码禁止的 RuntimePermission（exitVM.* 另行判断）
+     */
+    private static final Set<String> DENIED_RUNTIME_PERMISSIONS = new HashSet<>(Arrays.asList(
+            "setIO", "setSecurityManager", "createSecurityManager", "writeFileDescriptor"));
+
+    /**
+     * 只禁止用户代码直接使用的 RuntimePermission，JDK 在 doPrivileged 中使用时放行
+     */
+    private static final Set<String> PRIVILEGED_RUNTIME_PERMISSIONS = new HashSet<>(Arrays.asList(
+            "setContextClassLoader", "getClassLoader", "createClassLoader",
+            "shutdownHooks", "setDefaultUncaughtExceptionHandler", "setFactory"));
+
+    /**
+     * JDK 及执行器自身的包，其余的类（用户代码只能位于默认包）都视为用户代码
+     */
+    private static final String[] TRUSTED_PACKAGES = {
+            "java.", "javax.", "jdk.", "sun.", "com.sun.", RunnerSecurityManager.class.getPackage().getName() + "."};
+
+    /**
+     * 检查所有权限
+     *
+     * @param perm permission
+     */
+    @Override
+    public void checkPermission(Permission perm) {
+        if (!isUserThread()) {
+            return;
+        }
+        if (perm instanceof FilePermission) {
+            String actions = perm.getActions();
+            if (actions.contains("execute") || actions.contains("write") || actions.contains("delete")) {
+                throw new SecurityException("权限异常：" + perm);
+            }
+        } else if (perm instanceof SocketPermission) {
+            throw new SecurityException("权限异常：" + perm);
+        } else if (perm instanceof RuntimePermission) {
+            String name = perm.getName();
+            if (DENIED_RUNTIME_PERMISSIONS.contains(name) || name.startsWith("exitVM")
+                    || PRIVILEGED_RUNTIME_PERMISSIONS.contains(name) && !isPrivileged()) {
+                throw new SecurityException("权限异常：" + perm);
+            }
+        } else if (perm instanceof ReflectPermission) {
+            // suppressAccessChecks：setAccessible 后可改写执行器的静态字段
+            if (!isPrivileged()) {
+                throw new SecurityException("权限异常：" + perm);
+            }
+        } else if (perm instanceof PropertyPermission) {
+            // 系统属性、默认 Locale / 时区在同一执行器的后续执行中仍然生效
+            if (perm.getActions().contains("write") && !isPrivileged()) {
+                throw new SecurityException("权限异常：" + perm);
+            }
+        }
+    }
+
+    @Override
+    public void checkPermission(Permission perm, Object context) {
+        checkPermission(perm);
+    }
+
+    /**
+     * 用户代码调用 System.exit 时记录退出码并中止当前线程
+     *
+     * @param status the exit status.
+     */
+    @Override
+    public void checkExit(int status) {
+        if (isUserThread()) {
+            exitStatus = status;
+            throw new ExitException(status);
+        }
+    }
+
+    /**
+     * 禁止直接写标准输出的文件描述符（执行器与宿主的通信通道）
+     *
+     * @param fd the system-dependent file descriptor.
+     */
+    @Override
+    public void checkWrite(FileDescriptor fd) {
+        if (isUserThread()) {
+            throw new SecurityException("checkWrite 权限异常：" + fd);
+        }
+    }
+
+    /**
+     * 用户代码只能操作用户线程组内的线程
+     *
+     * @param t the thread to be checked.
+     */
+    @Override
+    public void checkAccess(Thread t) {
+        ThreadGroup group = t.getThreadGroup();
+        if (isUserThread() && group != null && !USER_THREAD_GROUP.parentOf(group)) {
+            throw new SecurityException("checkAccess 权限异常：" + t.getName());
+        }
+    }
+
+    /**
+     * 用户代码只能在用户线程组内创建线程
+     *
+     * @param g the thread group to be checked.
+     */
+    @Override
+    public void checkAccess(ThreadGroup g) {
+        if (isUserThread() && !USER_THREAD_GROUP.parentOf(g)) {
+            throw new SecurityException("checkAccess 权限异常：" + g.getName());
+        }
+    }
+
+    /**
+     * 调用栈中最近的 AccessController.doPrivileged 之上没有用户代码的类，即 JDK 自身的特权操作
+     * （如 lambda、正则初始化时的 setAccessible）
+     */
+    private boolean isPrivileged() {
+        for (Class<?> cls : getClassContext()) {
+            if (cls == AccessController.class) {
+                return true;
+            }
+            if (!isTrustedClass(cls)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按包名判断，不能调用 getClassLoader（会再次触发权限检查）
+     */
+    private static boolean isTrustedClass(Class<?> cls) {
+        String name = cls.getName();
+        for (String trustedPackage : TRUSTED_PACKAGES) {
+            if (name.startsWith(trustedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUserThread() {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        return group != null && USER_THREAD_GROUP.parentOf(group);
+    }
+
+    /**
+     * 用户代码调用 System.exit
+     */
+    public static class ExitException extends SecurityException {
+
+        private final int status;
+
+        public ExitException(int status) {
+            super("System.exit(" + status + ")");
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.juzi.codesandbox.runner;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 常驻执行 JVM，同一时间只被一个用例租借
+ *
+ * @author codejuzi
+ */
+public class RunnerWorker {
+
+    @Getter
+    private final Process process;
+
+    @Getter
+    private final long createTime;
+
+    private final DataOutputStream requestOutput;
+
+    private final DataInputStream responseInput;
+
+    /**
+     * 已执行的用例数
+     */
+    @Getter
+    @Setter
+    private volatile int runCount;
+
+    /**
+     * 执行器是否仍可复用，执行器要求回收或通信出错后为 false
+     */
+    @Getter
+    private volatile boolean reusable = true;
+
+    RunnerWorker(Process process) {
+        this.process = process;
+        this.createTime = System.currentTimeMillis();
+        this.requestOutput = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.responseInput = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * 等待执行 JVM 启动完成
+     */
+    void awaitReady() throws IOException {
+        RunnerCodec.readReady(responseInput);
+    }
+
+    /**
+     * 执行一次用户代码
+     *
+     * @param classPath    用户代码 class 所在目录
+     * @param args         main 方法参数
+     * @param input        标准输入，为 null 时按参数模式执行
+     * @param timeLimit    墙钟时间限制(ms)
+     * @param cpuTimeLimit CPU 时间限制(ms)，不大于 0 时不限制
+     * @param outputLimit  单个输出流最多保留的字节数
+     * @return 执行信息
+     */
+    ExecuteMessage run(String classPath, List<String> args, String input, long timeLimit, long cpuTimeLimit,
+                       long outputLimit) throws IOException {
+        try {
+            RunnerCodec.writeRequest(requestOutput, classPath, args, input, timeLimit, cpuTimeLimit, outputLimit);
+            requestOutput.flush();
+            RunnerResponse response = RunnerCodec.readResponse(responseInput, input != null);
+            if (response.isRecycle()) {
+                reusable = false;
+            }
+            return response.getExecuteMessage();
+        } catch (IOException e) {
+            reusable = false;
+            throw e;
+        }
+    }
+
+    void destroy() {
+        process.destroyForcibly();
+    }
+}
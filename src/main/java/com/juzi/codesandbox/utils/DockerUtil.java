@@ -0,0 +1,82 @@
+package com.juzi.codesandbox.utils;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.github.dockerjava.api.model.HostConfig;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Docker 沙箱容器工具类
+ *
+ * @author codejuzi
+ */
+public class DockerUtil {
+
+    /**
+     * 容器内代码挂载目录
+     */
+    public static final String CONTAINER_CODE_PATH = "/app/code";
+
+    /**
+     * 容器内执行器类挂载目录
+     */
+    public static final String CONTAINER_RUNNER_PATH = "/app/runner";
+
+    /**
+     * 构建沙箱容器的资源限制和安全配置
+     *
+     * @return host config
+     */
+    public static HostConfig buildSandboxHostConfig() {
+        HostConfig hostConfig = new HostConfig();
+        // 限制内存
+        hostConfig.withMemory(100 * 1000 * 1000L);
+        hostConfig.withMemorySwap(0L);
+        // 设置CPU核数
+        hostConfig.withCpuCount(1L);
+        // 限制用户使用 root 权限写文件
+        hostConfig.withReadonlyRootfs(true);
+        // 开启Linux安全配置
+        String linuxSecurityConfig = ResourceUtil.readUtf8Str("linux/security_config.json");
+        hostConfig.withSecurityOpts(Collections.singletonList("seccomp=" + linuxSecurityConfig));
+        return hostConfig;
+    }
+
+    /**
+     * 代码目录的 tmpfs 挂载：大小受限、不可执行，随容器删除，不占用宿主机磁盘
+     *
+     * @param sizeBytes tmpfs 大小上限(byte)
+     * @return 挂载点 => 挂载参数，用于 HostConfig#withTmpFs
+     */
+    public static Map<String, String> buildCodeTmpFs(long sizeBytes) {
+        return Collections.singletonMap(CONTAINER_CODE_PATH, "rw,noexec,nosuid,size=" + sizeBytes + ",mode=1777");
+    }
+
+    /**
+     * 在内存中构建 tar 归档，用于 copyArchiveToContainerCmd
+     *
+     * @param files 归档内的相对路径（以 / 分隔）=> 文件内容
+     * @return tar 归档
+     */
+    public static byte[] buildArchive(Map<String, byte[]> files) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(buffer)) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                tar.putArchiveEntry(entry);
+                tar.write(file.getValue());
+                tar.closeArchiveEntry();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
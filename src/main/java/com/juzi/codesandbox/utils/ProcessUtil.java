@@ -1,22 +1,95 @@
 package com.juzi.codesandbox.utils;
 
+import com.juzi.codesandbox.judge.OutputChecker;
 import com.juzi.codesandbox.model.ExecuteMessage;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.StopWatch;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.OUTPUT_LIMIT;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.OUTPUT_LIMIT_EXCEEDED;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
 
 /**
  * 程序进程执行工具类
+ * <p>
+ * 进程运行期间并发读取 stdout、stderr，避免输出填满管道缓冲区后进程阻塞；
+ * 每个输出流最多保留 outputLimit 字节，超过后立即杀掉进程。
+ * 指定输出检查器时 stdout 不再保留，读取的同时与期望输出比较，不一致时立即杀掉进程。
  *
  * @author codejuzi
  */
 @Slf4j
 public class ProcessUtil {
 
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 进程结束后等待输出读取完毕的最长时间(ms)
+     */
+    private static final long DRAIN_TIMEOUT = 1000L;
+
+    private static final AtomicInteger DRAIN_THREAD_INDEX = new AtomicInteger();
+
+    /**
+     * 读取进程输出的线程池，虚拟线程模式下替换为虚拟线程池：
+     * 管道读取是阻塞的文件 IO，虚拟线程阻塞在上面时 JDK 会临时增加载体线程补偿，不会耗尽载体线程
+     */
+    private static volatile ExecutorService drainExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "process_drain_thread_" + DRAIN_THREAD_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Process.onExit()（JDK 9+），不支持时为 null
+     */
+    private static final Method ON_EXIT = findMethod(Process.class, "onExit");
+
+    /**
+     * Process.descendants()（JDK 9+），不支持时为 null
+     */
+    private static final Method DESCENDANTS = findMethod(Process.class, "descendants");
+
+    /**
+     * ProcessHandle.destroyForcibly()（JDK 9+），不支持时为 null
+     */
+    private static final Method HANDLE_DESTROY_FORCIBLY = findHandleDestroyForcibly();
+
+    /**
+     * 读取缓冲区，读取线程复用
+     */
+    private static final ThreadLocal<byte[]> READ_BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * 替换读取进程输出的线程池，已提交的读取任务在原线程池中执行完
+     *
+     * @param executor 线程池
+     * @return 原线程池
+     */
+    public static ExecutorService useDrainExecutor(ExecutorService executor) {
+        ExecutorService previous = drainExecutor;
+        drainExecutor = executor;
+        return previous;
+    }
+
     /**
      * 获取进程执行信息
      *
@@ -25,29 +98,81 @@ public class ProcessUtil {
      * @return 执行信息
      */
     public static ExecuteMessage getRunProcessMessage(String processType, Process runProcess) {
+        return getRunProcessMessage(processType, runProcess, TIME_OUT, OUTPUT_LIMIT);
+    }
+
+    /**
+     * 获取进程执行信息，超时未结束或输出超限时强制销毁进程
+     *
+     * @param processType   进程类型
+     * @param runProcess    进程
+     * @param timeoutMillis 超时时间(ms)
+     * @param outputLimit   单个输出流最多保留的字节数
+     * @return 执行信息
+     */
+    public static ExecuteMessage getRunProcessMessage(String processType, Process runProcess,
+                                                      long timeoutMillis, long outputLimit) {
+        return getRunProcessMessage(processType, runProcess, timeoutMillis, outputLimit, null);
+    }
+
+    /**
+     * 获取进程执行信息，超时未结束、输出超限或输出与期望不一致时强制销毁进程
+     *
+     * @param processType   进程类型
+     * @param runProcess    进程
+     * @param timeoutMillis 超时时间(ms)
+     * @param outputLimit   单个输出流最多保留的字节数
+     * @param outputChecker stdout 的检查器，为 null 时保留 stdout
+     * @return 执行信息
+     */
+    public static ExecuteMessage getRunProcessMessage(String processType, Process runProcess, long timeoutMillis,
+                                                      long outputLimit, OutputChecker outputChecker) {
         ExecuteMessage executeMessage = new ExecuteMessage();
         StopWatch stopWatch = new StopWatch();
 
+        stopWatch.start();
+        // 进程运行期间持续读取输出
+        StreamDrainer stdoutDrainer = new StreamDrainer(runProcess.getInputStream(), runProcess, outputLimit, outputChecker);
+        StreamDrainer stderrDrainer = new StreamDrainer(runProcess.getErrorStream(), runProcess, outputLimit, null);
+        Future<?> stdoutFuture = drainExecutor.submit(stdoutDrainer);
+        Future<?> stderrFuture = drainExecutor.submit(stderrDrainer);
         try {
-            stopWatch.start();
             // 等待Process执行结束，得到退出状态码
-            int exitValue = runProcess.waitFor();
+            if (!awaitExit(runProcess, timeoutMillis)) {
+                log.warn("{} Time out!", processType);
+                destroyTree(runProcess);
+                awaitExit(runProcess, Long.MAX_VALUE);
+                executeMessage.setExitValue(runProcess.exitValue());
+                executeMessage.setErrorMessage(TIME_OUT_MESSAGE);
+                stopWatch.stop();
+                executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
+                return executeMessage;
+            }
+            int exitValue = runProcess.exitValue();
             executeMessage.setExitValue(exitValue);
+            awaitDrain(stdoutFuture, stdoutDrainer);
+            awaitDrain(stderrFuture, stderrDrainer);
 
-            // 正常编译，退出
-            if (exitValue == 0) {
+            if (stdoutDrainer.isLimitExceeded() || stderrDrainer.isLimitExceeded()) {
+                log.error("{} Failed! {}", processType, OUTPUT_LIMIT_EXCEEDED);
+                executeMessage.setErrorMessage(OUTPUT_LIMIT_EXCEEDED);
+            }
+            // 正常编译，退出；输出不一致时进程被杀掉，不算出错
+            else if (exitValue == 0 || stdoutDrainer.isMismatched()) {
                 log.info("{} Success!", processType);
             }
             // 出现异常
             else {
                 log.error("{} Failed! ExitValue: {}", processType, exitValue);
-                executeMessage.setErrorMessage(getMessage(runProcess.getErrorStream()));
+                executeMessage.setErrorMessage(stderrDrainer.getMessage());
             }
-            executeMessage.setMessage(getMessage(runProcess.getInputStream()));
+            stdoutDrainer.fillMessage(executeMessage);
             stopWatch.stop();
             executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
-        } catch (IOException | InterruptedException e) {
+        } catch (InterruptedException e) {
             log.error(processType + "failed：", e);
+            destroyTree(runProcess);
+            Thread.currentThread().interrupt();
         }
         return executeMessage;
     }
@@ -60,67 +185,305 @@ public class ProcessUtil {
      * @return 执行信息
      */
     public static ExecuteMessage getInteractProcessMessage(Process runProcess, String input) throws IOException {
-        ExecuteMessage executeMessage = new ExecuteMessage();
+        return getInteractProcessMessage(runProcess, input, OUTPUT_LIMIT);
+    }
+
+    /**
+     * 执行交互式进程并获取信息，输出超限时强制销毁进程
+     *
+     * @param runProcess  进程
+     * @param input       输入
+     * @param outputLimit 单个输出流最多保留的字节数
+     * @return 执行信息
+     */
+    public static ExecuteMessage getInteractProcessMessage(Process runProcess, String input, long outputLimit) throws IOException {
+        return getInteractProcessMessage(runProcess, input, outputLimit, null);
+    }
 
-        StringReader inputReader = new StringReader(input);
-        BufferedReader inputBufferedReader = new BufferedReader(inputReader);
+    /**
+     * 执行交互式进程并获取信息，输出超限或与期望不一致时强制销毁进程
+     *
+     * @param runProcess    进程
+     * @param input         输入
+     * @param outputLimit   单个输出流最多保留的字节数
+     * @param outputChecker stdout 的检查器，为 null 时保留 stdout
+     * @return 执行信息
+     */
+    public static ExecuteMessage getInteractProcessMessage(Process runProcess, String input, long outputLimit,
+                                                           OutputChecker outputChecker) throws IOException {
+        ExecuteMessage executeMessage = new ExecuteMessage();
 
         //计时
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
+        // 先开始读取输出，再写入输入，避免双方都阻塞在管道上
+        StreamDrainer stdoutDrainer = new StreamDrainer(runProcess.getInputStream(), runProcess, outputLimit, outputChecker);
+        StreamDrainer stderrDrainer = new StreamDrainer(runProcess.getErrorStream(), runProcess, outputLimit, null);
+        Future<?> stdoutFuture = drainExecutor.submit(stdoutDrainer);
+        Future<?> stderrFuture = drainExecutor.submit(stderrDrainer);
+
         //输入（模拟控制台输入）
-        PrintWriter consoleInput = new PrintWriter(runProcess.getOutputStream());
-        String line;
-        while ((line = inputBufferedReader.readLine()) != null) {
-            consoleInput.println(line);
+        try (OutputStream consoleInput = runProcess.getOutputStream()) {
+            String normalizedInput = input.endsWith("\n") ? input : input + "\n";
+            consoleInput.write(normalizedInput.getBytes(StandardCharsets.UTF_8));
             consoleInput.flush();
+        } catch (IOException e) {
+            // 进程未读取输入就已退出（或被杀掉），以实际输出为准
+            log.warn("write input to process error: {}", e.getMessage());
         }
-        consoleInput.close();
 
-        //获取输出
-        BufferedReader userCodeOutput = new BufferedReader(new InputStreamReader(runProcess.getInputStream()));
-        List<String> outputList = new ArrayList<>();
-        String outputLine;
-        while ((outputLine = userCodeOutput.readLine()) != null) {
-            outputList.add(outputLine);
-        }
-        userCodeOutput.close();
-
-        //获取错误输出
-        BufferedReader errorOutput = new BufferedReader(new InputStreamReader(runProcess.getErrorStream()));
-        List<String> errorList = new ArrayList<>();
-        String errorLine;
-        while ((errorLine = errorOutput.readLine()) != null) {
-            errorList.add(errorLine);
+        //等待进程结束（正常退出或被超时、超限杀掉），再等待剩余输出读取完毕
+        try {
+            awaitExit(runProcess, Long.MAX_VALUE);
+            executeMessage.setExitValue(runProcess.exitValue());
+            awaitDrain(stdoutFuture, stdoutDrainer);
+            awaitDrain(stderrFuture, stderrDrainer);
+        } catch (InterruptedException e) {
+            destroyTree(runProcess);
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
         }
-        errorOutput.close();
 
         stopWatch.stop();
         executeMessage.setTime(stopWatch.getLastTaskTimeMillis());
-        executeMessage.setMessage(StringUtils.join(outputList, "\n"));
-        executeMessage.setErrorMessage(StringUtils.join(errorList, "\n"));
+        stdoutDrainer.fillMessage(executeMessage);
+        if (stdoutDrainer.isLimitExceeded() || stderrDrainer.isLimitExceeded()) {
+            executeMessage.setErrorMessage(OUTPUT_LIMIT_EXCEEDED);
+        } else if (!stdoutDrainer.isMismatched()) {
+            executeMessage.setErrorMessage(stderrDrainer.getMessage());
+        }
         runProcess.destroy();
 
         return executeMessage;
     }
 
     /**
-     * 获取流is的输出
+     * 等待进程结束
+     * <p>
+     * JDK 9+ 通过 onExit() 返回的 CompletableFuture 等待：Process.waitFor 内部是 Object.wait，
+     * 在虚拟线程中会占住载体线程，而 CompletableFuture.get 只挂起虚拟线程。低版本 JDK 退回 waitFor。
+     *
+     * @param process       进程
+     * @param timeoutMillis 超时时间(ms)
+     * @return 超时前进程已结束时返回 true
+     */
+    static boolean awaitExit(Process process, long timeoutMillis) throws InterruptedException {
+        if (ON_EXIT == null) {
+            return process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        CompletableFuture<?> onExit;
+        try {
+            onExit = (CompletableFuture<?>) ON_EXIT.invoke(process);
+        } catch (ReflectiveOperationException e) {
+            return process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            onExit.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 强制销毁进程及其所有子孙进程
+     * <p>
+     * 用户代码 fork 出的进程不会随直接子进程一起结束；在独立的 PID 命名空间中执行时，
+     * 命名空间的 1 号进程（隔离命令的子进程）被杀掉后内核会结束命名空间中的所有进程。
+     * 子孙进程通过 descendants()（JDK 9+）查找，低版本 JDK 只销毁进程本身
+     *
+     * @param process 进程
+     */
+    public static void destroyTree(Process process) {
+        if (DESCENDANTS != null && HANDLE_DESTROY_FORCIBLY != null) {
+            try {
+                Stream<?> descendants = (Stream<?>) DESCENDANTS.invoke(process);
+                for (Object handle : descendants.toArray()) {
+                    HANDLE_DESTROY_FORCIBLY.invoke(handle);
+                }
+            } catch (ReflectiveOperationException e) {
+                log.warn("destroy descendants of process error: {}", e.getMessage());
+            }
+        }
+        process.destroyForcibly();
+    }
+
+    /**
+     * 进程结束后执行回调（JDK 9+ 通过 onExit()，低版本 JDK 在读取输出的线程池中等待）
      *
-     * @param is 输出流
-     * @return 输出信息
-     */
-    private static String getMessage(InputStream is) throws IOException {
-        // 通过进程获取正常输出到控制台的信息
-        BufferedReader logReader = new BufferedReader(new InputStreamReader(is));
-        List<String> logLineList = new ArrayList<>();
-        // 逐行读取
-        String logLine;
-        while ((logLine = logReader.readLine()) != null) {
-            logLineList.add(logLine);
-        }
-        logReader.close();
-        return StringUtils.join(logLineList, "\n");
+     * @param process 进程
+     * @param action  回调
+     */
+    public static void onExit(Process process, Runnable action) {
+        if (ON_EXIT != null) {
+            try {
+                ((CompletableFuture<?>) ON_EXIT.invoke(process)).whenComplete((p, e) -> action.run());
+                return;
+            } catch (ReflectiveOperationException e) {
+                log.warn("register process exit callback error: {}", e.getMessage());
+            }
+        }
+        drainExecutor.execute(() -> {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    process.waitFor();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            action.run();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static Method findMethod(Class<?> clazz, String name) {
+        try {
+            return clazz.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findHandleDestroyForcibly() {
+        try {
+            return findMethod(Class.forName("java.lang.ProcessHandle"), "destroyForcibly");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 进程已结束，最多等待 DRAIN_TIMEOUT 读取剩余输出；子进程继承了输出流时不再等待，取消读取并关闭输出流
+     */
+    private static void awaitDrain(Future<?> drainFuture, StreamDrainer drainer) throws InterruptedException {
+        try {
+            drainFuture.get(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            drainFuture.cancel(true);
+            drainer.close();
+        } catch (ExecutionException e) {
+            log.warn("drain process output error", e.getCause());
+        }
+    }
+
+    /**
+     * 读取进程输出流，最多保留 outputLimit 字节，超过后杀掉进程；
+     * 指定检查器时不保留输出，只检查，最多读取 outputLimit 字节
+     */
+    private static class StreamDrainer implements Callable<Void> {
+
+        private final InputStream inputStream;
+
+        private final Process process;
+
+        private final long outputLimit;
+
+        private final OutputChecker outputChecker;
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        private volatile boolean limitExceeded = false;
+
+        private volatile boolean mismatched = false;
+
+        StreamDrainer(InputStream inputStream, Process process, long outputLimit, OutputChecker outputChecker) {
+            this.inputStream = inputStream;
+            this.process = process;
+            this.outputLimit = outputLimit;
+            this.outputChecker = outputChecker;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            byte[] buffer = READ_BUFFER.get();
+            try (InputStream is = inputStream) {
+                if (outputChecker != null) {
+                    check(is, buffer);
+                    return null;
+                }
+                int len;
+                while ((len = is.read(buffer)) != -1) {
+                    synchronized (output) {
+                        long remaining = outputLimit - output.size();
+                        if (len > remaining) {
+                            output.write(buffer, 0, (int) Math.max(remaining, 0));
+                            limitExceeded = true;
+                            destroyTree(process);
+                            break;
+                        }
+                        output.write(buffer, 0, len);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void check(InputStream is, byte[] buffer) throws IOException {
+            long total = 0;
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                total += len;
+                if (total > outputLimit) {
+                    limitExceeded = true;
+                    destroyTree(process);
+                    return;
+                }
+                if (!outputChecker.write(buffer, 0, len)) {
+                    // 已经不一致，不必等待剩余输出
+                    mismatched = true;
+                    destroyTree(process);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 关闭输出流，不再读取
+         */
+        void close() {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.warn("close process output error: {}", e.getMessage());
+            }
+        }
+
+        boolean isLimitExceeded() {
+            return limitExceeded;
+        }
+
+        boolean isMismatched() {
+            return mismatched;
+        }
+
+        /**
+         * 写入 stdout：指定检查器时为比较结果，否则为输出内容
+         */
+        void fillMessage(ExecuteMessage executeMessage) {
+            if (outputChecker != null) {
+                executeMessage.setCaseResult(outputChecker.finish());
+            } else {
+                executeMessage.setMessage(getMessage());
+            }
+        }
+
+        /**
+         * 按行拼接输出（\n 分隔，不含末尾换行）
+         */
+        String getMessage() {
+            String message;
+            synchronized (output) {
+                message = new String(output.toByteArray(), StandardCharsets.UTF_8);
+            }
+            message = message.replace("\r\n", "\n");
+            return message.endsWith("\n") ? message.substring(0, message.length() - 1) : message;
+        }
     }
 }
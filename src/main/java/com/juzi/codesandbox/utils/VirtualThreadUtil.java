@@ -0,0 +1,239 @@
+package com.juzi.codesandbox.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟线程工具类
+ * <p>
+ * 项目按 Java 8 编译，虚拟线程（JDK 21+）通过反射创建；运行在低版本 JDK 上时不可用，调用方退回平台线程。
+ * JDK 19、20 中虚拟线程是预览特性，未加 --enable-preview 时调用会抛出异常，同样视为不支持。
+ * 沙箱中的等待（等待进程结束、等待容器执行结束）都是阻塞调用，放在虚拟线程中执行时，
+ * 大量在途提交只占用少量载体线程。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+public class VirtualThreadUtil {
+
+    /**
+     * 虚拟线程正式发布的 JDK 版本
+     */
+    private static final int MIN_FEATURE_VERSION = 21;
+
+    /**
+     * Thread.ofVirtual()，不支持时为 null
+     */
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * Thread.Builder#name(String, long)
+     */
+    private static final Method BUILDER_NAME;
+
+    /**
+     * Thread.Builder#factory()
+     */
+    private static final Method BUILDER_FACTORY;
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        if (isSupportedVersion(System.getProperty("java.specification.version"))) {
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builderName = builderClass.getMethod("name", String.class, long.class);
+                builderFactory = builderClass.getMethod("factory");
+                newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            } catch (ReflectiveOperationException e) {
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreadUtil() {
+    }
+
+    /**
+     * 当前 JDK 是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @param specificationVersion java.specification.version，如 1.8、17、21
+     */
+    static boolean isSupportedVersion(String specificationVersion) {
+        if (specificationVersion == null || specificationVersion.startsWith("1.")) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(specificationVersion) >= MIN_FEATURE_VERSION;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名为 namePrefix + 序号
+     *
+     * @param namePrefix 线程名前缀
+     * @return 线程工厂
+     * @throws IllegalStateException 当前 JDK 不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require JDK 21+, current: "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池，不限制在途任务数
+     *
+     * @param namePrefix 线程名前缀
+     * @return 线程池
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        log.info("{} executor runs on virtual threads", namePrefix);
+        return newThreadPerTaskExecutor(newThreadFactory(namePrefix));
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池，同时执行的任务数由信号量限制
+     *
+     * @param namePrefix    线程名前缀
+     * @param maxConcurrent 同时执行的任务数上限
+     * @param waitForPermit 达到上限时，true 表示任务在虚拟线程中等待许可（对应平台线程池的无界队列），
+     *                      false 表示拒绝提交（对应平台线程池的有界队列）
+     * @return 线程池
+     */
+    public static ExecutorService newExecutor(String namePrefix, int maxConcurrent, boolean waitForPermit) {
+        log.info("{} executor runs on virtual threads, max concurrent: {}, wait for permit: {}",
+                namePrefix, maxConcurrent, waitForPermit);
+        return new BoundedExecutor(newThreadPerTaskExecutor(newThreadFactory(namePrefix)), maxConcurrent, waitForPermit);
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 用信号量限制同时执行任务数的线程池，线程本身不池化（虚拟线程用完即弃）
+     */
+    static class BoundedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private final Semaphore permits;
+
+        private final int maxConcurrent;
+
+        private final boolean waitForPermit;
+
+        BoundedExecutor(ExecutorService delegate, int maxConcurrent, boolean waitForPermit) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.maxConcurrent = maxConcurrent;
+            this.waitForPermit = waitForPermit;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!waitForPermit && !permits.tryAcquire()) {
+                throw new RejectedExecutionException("Executor is full, max concurrent: " + maxConcurrent);
+            }
+            try {
+                delegate.execute(() -> {
+                    if (waitForPermit && !acquire(task)) {
+                        return;
+                    }
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (!waitForPermit) {
+                    permits.release();
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 等待许可；关闭线程池时被中断，取消尚未开始的任务
+         */
+        private boolean acquire(Runnable task) {
+            try {
+                permits.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+                return false;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
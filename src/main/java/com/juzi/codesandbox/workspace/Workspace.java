@@ -0,0 +1,76 @@
+package com.juzi.codesandbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import lombok.Getter;
+
+import java.io.File;
+
+/**
+ * 单次提交的工作目录，写入的文件计入 {@link WorkspaceManager} 的配额
+ *
+ * @author codejuzi
+ */
+public class Workspace {
+
+    private final WorkspaceManager manager;
+
+    /**
+     * 工作目录
+     */
+    @Getter
+    private final File dir;
+
+    /**
+     * 已占用的字节数
+     */
+    @Getter
+    private long usedBytes;
+
+    private boolean released;
+
+    Workspace(WorkspaceManager manager, File dir) {
+        this.manager = manager;
+        this.dir = dir;
+    }
+
+    /**
+     * 写入文件并计入配额，文件已存在时（如 javac 已生成）只计入配额
+     *
+     * @param relativePath 相对工作目录的路径
+     * @param bytes        文件内容
+     * @return 写入的文件
+     */
+    public synchronized File putFile(String relativePath, byte[] bytes) {
+        manager.reserve(this, bytes.length);
+        usedBytes += bytes.length;
+        File file = new File(dir, relativePath);
+        if (!file.exists()) {
+            FileUtil.writeBytes(bytes, file);
+        }
+        return file;
+    }
+
+    /**
+     * 标记为已归还
+     *
+     * @return 之前已归还过时返回 false
+     */
+    synchronized boolean markReleased() {
+        if (released) {
+            return false;
+        }
+        released = true;
+        return true;
+    }
+
+    /**
+     * 归还时清零占用
+     *
+     * @return 归还前占用的字节数
+     */
+    synchronized long resetUsage() {
+        long bytes = usedBytes;
+        usedBytes = 0L;
+        return bytes;
+    }
+}
@@ -0,0 +1,185 @@
+package com.juzi.codesandbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.GLOBAL_CODE_DIR_NAME;
+
+/**
+ * 提交工作目录管理
+ * <p>
+ * 工作目录默认位于内存文件系统（/dev/shm），所有工作目录共享总配额，单个工作目录另有大小上限。
+ * 归还的目录清空后放回空闲队列复用，不再每次提交都创建、删除目录。
+ * 根目录只允许进入、不允许列出，工作目录名带随机后缀：在宿主机上以独立用户执行的代码只能访问自己的工作目录。
+ *
+ * @author codejuzi
+ */
+@Slf4j
+@Component
+public class WorkspaceManager {
+
+    private static final String DIR_PREFIX = "ws-";
+
+    /**
+     * 工作目录的根目录，建议使用 tmpfs 挂载点；不可用时退回 user.dir/tmp_code
+     */
+    @Value("${oj.sandbox.workspace.root:/dev/shm/code-sandbox}")
+    private String ROOT;
+
+    /**
+     * 所有工作目录合计最多占用的字节数
+     */
+    @Value("${oj.sandbox.workspace.quota:268435456}")
+    private long QUOTA;
+
+    /**
+     * 单个工作目录最多占用的字节数
+     */
+    @Value("${oj.sandbox.workspace.max-size:16777216}")
+    private long MAX_SIZE;
+
+    /**
+     * 空闲队列中最多保留的目录数
+     */
+    @Value("${oj.sandbox.workspace.max-idle:64}")
+    private int MAX_IDLE;
+
+    private File rootDir;
+
+    private final LinkedBlockingDeque<File> idleDirs = new LinkedBlockingDeque<>();
+
+    private final AtomicLong dirSequence = new AtomicLong();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicLong reusedCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        File root = new File(ROOT).getAbsoluteFile();
+        File parent = root.getParentFile();
+        if (!root.isDirectory() && (parent == null || !parent.isDirectory() || !parent.canWrite())) {
+            root = new File(System.getProperty("user.dir"), GLOBAL_CODE_DIR_NAME);
+            log.warn("workspace root {} is not available, fall back to {}", ROOT, root);
+        }
+        FileUtil.mkdir(root);
+        restrictListing(root);
+        // 清理上次运行遗留的工作目录
+        File[] staleDirs = root.listFiles(file -> file.isDirectory() && file.getName().startsWith(DIR_PREFIX));
+        if (staleDirs != null) {
+            for (File staleDir : staleDirs) {
+                FileUtil.del(staleDir);
+            }
+        }
+        rootDir = root;
+        log.info("workspace root: {}", rootDir);
+    }
+
+    /**
+     * 根目录权限改为 rwx--x--x，其他用户不能列出工作目录名
+     */
+    private static void restrictListing(File root) {
+        try {
+            Files.setPosixFilePermissions(root.toPath(), PosixFilePermissions.fromString("rwx--x--x"));
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("restrict workspace root {} error: {}", root, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取一个空的工作目录，优先复用空闲目录
+     *
+     * @return 工作目录
+     */
+    public Workspace acquire() {
+        File dir;
+        while ((dir = idleDirs.pollFirst()) != null && !dir.isDirectory()) {
+            // 被外部删除的目录直接丢弃
+        }
+        if (dir == null) {
+            dir = FileUtil.mkdir(new File(rootDir,
+                    DIR_PREFIX + dirSequence.incrementAndGet() + "-" + IdUtil.fastSimpleUUID()));
+        } else {
+            reusedCount.incrementAndGet();
+        }
+        activeCount.incrementAndGet();
+        return new Workspace(this, dir);
+    }
+
+    /**
+     * 归还工作目录：释放配额，清空后放回空闲队列，队列已满时删除
+     *
+     * @param workspace 工作目录
+     */
+    public void release(Workspace workspace) {
+        if (!workspace.markReleased()) {
+            return;
+        }
+        usedBytes.addAndGet(-workspace.resetUsage());
+        activeCount.decrementAndGet();
+        File dir = workspace.getDir();
+        if (idleDirs.size() < MAX_IDLE && FileUtil.clean(dir)) {
+            idleDirs.offerFirst(dir);
+        } else {
+            FileUtil.del(dir);
+        }
+    }
+
+    /**
+     * 写入文件前占用配额
+     *
+     * @throws IllegalStateException 超过单个工作目录上限或总配额
+     */
+    void reserve(Workspace workspace, long bytes) {
+        if (workspace.getUsedBytes() + bytes > MAX_SIZE) {
+            throw new IllegalStateException("Workspace size limit exceeded");
+        }
+        while (true) {
+            long used = usedBytes.get();
+            if (used + bytes > QUOTA) {
+                throw new IllegalStateException("Workspace quota exceeded");
+            }
+            if (usedBytes.compareAndSet(used, used + bytes)) {
+                return;
+            }
+        }
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getQuota() {
+        return QUOTA;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getIdleCount() {
+        return idleDirs.size();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+}
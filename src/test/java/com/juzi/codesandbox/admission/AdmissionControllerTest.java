@@ -0,0 +1,135 @@
+package com.juzi.codesandbox.admission;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class AdmissionControllerTest {
+
+    private AdmissionController admissionController;
+
+    @Before
+    public void setUp() {
+        admissionController = new AdmissionController();
+        ReflectionTestUtils.setField(admissionController, "ENABLED", true);
+        ReflectionTestUtils.setField(admissionController, "MAX_CONCURRENT", 1);
+        ReflectionTestUtils.setField(admissionController, "QUEUE_SIZE", 1);
+        ReflectionTestUtils.setField(admissionController, "MAX_QUEUE_TIME", 200L);
+        admissionController.init();
+    }
+
+    @Test
+    public void queuedSubmissionRunsAfterRelease() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AdmissionController.Permit permit = admissionController.acquire();
+            CountDownLatch queued = new CountDownLatch(1);
+            Future<?> future = executor.submit(() -> {
+                queued.countDown();
+                admissionController.acquire().close();
+            });
+            queued.await();
+            TimeUnit.MILLISECONDS.sleep(50);
+            permit.close();
+            permit.close();
+            future.get(1, TimeUnit.SECONDS);
+            assertEquals(2, admissionController.getAdmittedCount());
+            assertEquals(0, admissionController.getRunning());
+            assertTrue(admissionController.getMaxWaitMillis() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFullOrWaitTimesOut() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AdmissionController.Permit ignored = admissionController.acquire()) {
+            // 占满等待队列
+            Future<?> waiting = executor.submit(this::assertRejected);
+            while (admissionController.getQueued() == 0) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            assertRejected();
+            waiting.get(1, TimeUnit.SECONDS);
+            assertEquals(2, admissionController.getRejectedCount());
+            assertEquals(1, admissionController.getPeakQueued());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void reserveNeverBlocksTheCaller() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AdmissionController.Permit permit = admissionController.acquire();
+            long start = System.nanoTime();
+            AdmissionController.Reservation reservation = admissionController.reserve();
+            assertEquals(1, admissionController.getQueued());
+            // 等待队列已满，立即拒绝
+            try {
+                admissionController.reserve();
+                fail("expected rejection");
+            } catch (AdmissionRejectedException e) {
+                assertTrue(e.getRetryAfterSeconds() >= 1);
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+
+            // 执行线程等待许可，超过最长排队时间也不拒绝
+            Future<?> future = executor.submit(() -> reservation.await().close());
+            TimeUnit.MILLISECONDS.sleep(300);
+            permit.close();
+            future.get(1, TimeUnit.SECONDS);
+            assertEquals(0, admissionController.getQueued());
+            assertEquals(0, admissionController.getRunning());
+
+            // 放弃预约时让出队列位置
+            permit = admissionController.acquire();
+            admissionController.reserve().cancel();
+            assertEquals(0, admissionController.getQueued());
+            permit.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void acquireWithoutTimeoutWaitsBeyondMaxQueueTime() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AdmissionController.Permit permit = admissionController.acquire();
+            Future<?> future = executor.submit(() -> admissionController.acquireWithoutTimeout().close());
+            TimeUnit.MILLISECONDS.sleep(300);
+            // 不占用等待队列，单个执行仍可排队
+            assertEquals(0, admissionController.getQueued());
+            permit.close();
+            future.get(1, TimeUnit.SECONDS);
+            assertEquals(0, admissionController.getRejectedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertRejected() {
+        try {
+            admissionController.acquire().close();
+            fail("expected rejection");
+        } catch (AdmissionRejectedException e) {
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.juzi.codesandbox.check;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class SensitiveWordCheckerTest {
+
+    private File wordFile;
+
+    @Before
+    public void setUp() throws IOException {
+        wordFile = File.createTempFile("sensitive-word", ".txt");
+        write("exec\nFiles\n");
+    }
+
+    @After
+    public void tearDown() {
+        wordFile.delete();
+    }
+
+    @Test
+    public void matchesOverlappingWords() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.build(Arrays.asList("he", "she", "his", "hers", " ", ""));
+        assertEquals(4, matcher.getWordCount());
+        assertEquals("she", matcher.match("ushers"));
+        assertEquals("his", matcher.match("ahis"));
+        assertNull(matcher.match("shxe hr"));
+        assertNull(AhoCorasickMatcher.build(Arrays.asList("", " ")).match("anything"));
+    }
+
+    @Test
+    public void skipsCommentsAndLiterals() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.build(Arrays.asList("exec", "Files"));
+        String code = "// exec\n/* Files */ String s = \"exec\\\"Files\"; char c = '\\''; String t = \"\"\"\nexec\n\"\"\";";
+        assertEquals("exec", matcher.match(code));
+        assertNull(matcher.matchCode(code));
+        assertEquals("exec", matcher.matchCode(code + " rt.exec(cmd);"));
+        // 注释两侧不能拼成敏感词
+        assertNull(matcher.matchCode("ex/**/ec"));
+        // 块注释中的 \ 不是转义，\*/ 结束注释
+        assertEquals("Files", matcher.matchCode("/* C:\\*/ java.nio.file.Files.delete(null); /* */"));
+        // javac 会把换行的 Unicode 转义当作换行，注释中出现 Unicode 转义时整段扫描
+        assertEquals("exec", matcher.matchCode("// \\u000a rt.exec(cmd);"));
+        assertEquals("Files", matcher.matchCode("String s = \"\\u0022Files\";"));
+    }
+
+    @Test
+    public void reloadsModifiedWordFile() throws IOException {
+        SensitiveWordChecker checker = newChecker();
+        assertEquals(2, checker.getWordCount());
+        assertRejected(checker, "Runtime.getRuntime().exec(cmd);", "exec");
+        checker.check("System.exit(0);", "java");
+
+        write("exec\nFiles\nSystem.exit\n");
+        wordFile.setLastModified(wordFile.lastModified() + 1000);
+        checker.reloadIfModified();
+        assertEquals(3, checker.getWordCount());
+        assertEquals(1, checker.getReloadCount());
+        assertRejected(checker, "System.exit(0);", "System.exit");
+
+        // 未变化时不重新加载
+        checker.reloadIfModified();
+        assertEquals(1, checker.getReloadCount());
+    }
+
+    private SensitiveWordChecker newChecker() {
+        SensitiveWordChecker checker = new SensitiveWordChecker();
+        ReflectionTestUtils.setField(checker, "ENABLED", true);
+        ReflectionTestUtils.setField(checker, "LOCATION", "file:" + wordFile.getAbsolutePath());
+        ReflectionTestUtils.setField(checker, "SKIP_COMMENTS_AND_STRINGS", false);
+        ReflectionTestUtils.setField(checker, "RELOAD_INTERVAL", 0L);
+        ReflectionTestUtils.setField(checker, "resourceLoader", new DefaultResourceLoader());
+        checker.init();
+        return checker;
+    }
+
+    private void assertRejected(SensitiveWordChecker checker, String code, String word) {
+        try {
+            checker.check(code, "java");
+            fail("expected illegal code");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Code is Illegal with word: [" + word + "]", e.getMessage());
+        }
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(wordFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,151 @@
+package com.juzi.codesandbox.compile;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class CompiledClassCacheTest {
+
+    private CompiledClassCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new CompiledClassCache();
+        ReflectionTestUtils.setField(cache, "ENABLED", true);
+        ReflectionTestUtils.setField(cache, "MAX_MEMORY_BYTES", 1024L);
+        ReflectionTestUtils.setField(cache, "MAX_ENTRIES", 2);
+        ReflectionTestUtils.setField(cache, "DISK_ENABLED", false);
+        cache.init();
+    }
+
+    @Test
+    public void keyDependsOnLanguageOptionsAndCode() {
+        String key = cache.buildKey("java", Collections.emptyList(), "code");
+        assertEquals(key, cache.buildKey("java", Collections.emptyList(), "code"));
+        assertNotEquals(key, cache.buildKey("cpp", Collections.emptyList(), "code"));
+        assertNotEquals(key, cache.buildKey("java", Collections.singletonList("-g"), "code"));
+        assertNotEquals(key, cache.buildKey("java", Collections.emptyList(), "code2"));
+    }
+
+    @Test
+    public void hitSkipsCompileAndLruEvicts() {
+        AtomicInteger compileCount = new AtomicInteger();
+        Map<String, byte[]> first = cache.getOrCompile("a", () -> classBytes(compileCount, 10));
+        assertSame(first, cache.getOrCompile("a", () -> classBytes(compileCount, 10)));
+        assertEquals(1, compileCount.get());
+        assertEquals(1, cache.getMemoryHits());
+
+        cache.getOrCompile("b", () -> classBytes(compileCount, 10));
+        // 访问a后，b成为最久未使用的条目
+        cache.getOrCompile("a", () -> classBytes(compileCount, 10));
+        cache.getOrCompile("c", () -> classBytes(compileCount, 10));
+        assertEquals(1, cache.getEvictions());
+        cache.getOrCompile("a", () -> classBytes(compileCount, 10));
+        cache.getOrCompile("b", () -> classBytes(compileCount, 10));
+        assertEquals(4, compileCount.get());
+    }
+
+    @Test
+    public void compileErrorIsNotCached() {
+        AtomicInteger compileCount = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.getOrCompile("bad", () -> {
+                    compileCount.incrementAndGet();
+                    throw new CompileException("Compile Error!");
+                });
+                fail();
+            } catch (CompileException e) {
+                assertEquals("Compile Error!", e.getMessage());
+            }
+        }
+        assertEquals(2, compileCount.get());
+    }
+
+    @Test
+    public void concurrentLookupsCompileOnce() throws Exception {
+        int threads = 8;
+        AtomicInteger compileCount = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, byte[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                started.await();
+                return cache.getOrCompile("same", () -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return classBytes(compileCount, 10);
+                });
+            }));
+        }
+        started.countDown();
+        Map<String, byte[]> result = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Map<String, byte[]>> future : futures) {
+            assertSame(result, future.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdownNow();
+        assertEquals(1, compileCount.get());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void partiallyEvictedDiskEntryIsRecompiled() throws Exception {
+        File cacheDir = Files.createTempDirectory("class-cache").toFile();
+        try {
+            ReflectionTestUtils.setField(cache, "DISK_ENABLED", true);
+            ReflectionTestUtils.setField(cache, "DISK_MAX_BYTES", 4096L);
+            ReflectionTestUtils.setField(cache, "cacheDir", cacheDir);
+            // 条目大于内存上限，只保存在磁盘上
+            AtomicInteger compileCount = new AtomicInteger();
+            Map<String, byte[]> classBytes = new HashMap<>();
+            classBytes.put("Main", new byte[600]);
+            classBytes.put("Main$Inner", new byte[600]);
+            cache.getOrCompile("a", () -> {
+                compileCount.incrementAndGet();
+                return classBytes;
+            });
+            assertEquals(1, cache.getDiskEntries());
+            assertEquals(2, cache.getOrCompile("a", () -> classBytes(compileCount, 10)).size());
+            assertEquals(1, cache.getDiskHits());
+
+            // 读取期间被淘汰删掉一部分文件，不能返回不完整的编译产物
+            FileUtil.del(new File(new File(cacheDir, "a"), "Main$Inner.class"));
+            assertEquals(1, cache.getOrCompile("a", () -> classBytes(compileCount, 10)).size());
+            assertEquals(2, compileCount.get());
+        } finally {
+            FileUtil.del(cacheDir);
+        }
+    }
+
+    private static Map<String, byte[]> classBytes(AtomicInteger compileCount, int size) {
+        compileCount.incrementAndGet();
+        return Collections.singletonMap("Main", new byte[size]);
+    }
+}
@@ -0,0 +1,49 @@
+package com.juzi.codesandbox.compile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author codejuzi
+ */
+public class InMemoryJavaCompilerTest {
+
+    private InMemoryJavaCompiler compiler;
+
+    @Before
+    public void setUp() {
+        compiler = new InMemoryJavaCompiler();
+        ReflectionTestUtils.setField(compiler, "COMPILER_THREADS", 1);
+        ReflectionTestUtils.setField(compiler, "QUEUE_SIZE", 4);
+        compiler.init();
+    }
+
+    @After
+    public void tearDown() {
+        compiler.destroy();
+    }
+
+    @Test
+    public void compilesAgainstJdkOnly() {
+        CompileResult compileResult = compiler.compile("Main",
+                "public class Main { public static void main(String[] args) { System.out.println(java.util.Arrays.asList(args)); } }",
+                Collections.emptyList());
+        assertTrue(compileResult.isSuccess());
+        assertTrue(compileResult.getClassBytes().containsKey("Main"));
+
+        // 服务类路径上的类不可见，与 javac 进程编译的结果一致
+        compileResult = compiler.compile("Main",
+                "import cn.hutool.core.util.StrUtil;\n"
+                        + "public class Main { public static void main(String[] args) { System.out.println(StrUtil.isBlank(\"\")); } }",
+                Collections.emptyList());
+        assertFalse(compileResult.isSuccess());
+        assertTrue(compileResult.getDiagnostics().get(0).getMessage().contains("cn.hutool.core.util"));
+    }
+}
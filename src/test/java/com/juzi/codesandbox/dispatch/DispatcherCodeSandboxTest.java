@@ -0,0 +1,188 @@
+package com.juzi.codesandbox.dispatch;
+
+import com.juzi.codesandbox.admission.AdmissionRejectedException;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import com.juzi.codesandbox.model.ExecuteCodeResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 在本机不同端口启动模拟的沙箱节点
+ *
+ * @author codejuzi
+ */
+public class DispatcherCodeSandboxTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private DispatcherCodeSandbox dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    public void retriesOnNodeFailure() throws Exception {
+        FakeNode failing = startNode(10, 500, 0L, "[\"failing\"]");
+        FakeNode good = startNode(1, 200, 0L, "[\"good\"]");
+        dispatcher = newDispatcher(0L, failing, good);
+
+        ExecuteCodeResponse response = dispatcher.execute(request());
+        assertEquals(Collections.singletonList("good"), response.getOutputList());
+        assertEquals(1, failing.execCount.get());
+        assertEquals(1, dispatcher.getRetryCount());
+        assertFalse(dispatcher.getNodes().get(0).isHealthy());
+    }
+
+    @Test
+    public void hedgesSlowNode() throws Exception {
+        FakeNode slow = startNode(10, 200, 2000L, "[\"slow\"]");
+        FakeNode fast = startNode(1, 200, 0L, "[\"fast\"]");
+        dispatcher = newDispatcher(100L, slow, fast);
+
+        long start = System.currentTimeMillis();
+        ExecuteCodeResponse response = dispatcher.execute(request());
+        assertEquals(Collections.singletonList("fast"), response.getOutputList());
+        assertEquals(1, dispatcher.getHedgeCount());
+        assertEquals(1, dispatcher.getHedgeWinCount());
+        if (System.currentTimeMillis() - start >= 2000L) {
+            fail("hedged request should not wait for the slow node");
+        }
+        // 落选请求的连接被断开，不等慢节点响应，也不把慢节点标记为故障
+        SandboxNode slowNode = dispatcher.getNodes().get(0);
+        while (slowNode.getInFlight() > 0) {
+            if (System.currentTimeMillis() - start >= 1500L) {
+                fail("losing request should be disconnected");
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(slowNode.isHealthy());
+        assertEquals(0, slowNode.getFailureCount());
+    }
+
+    @Test
+    public void hedgeDelayFollowsLatencyPercentile() throws Exception {
+        FakeNode node = startNode(1, 200, 0L, "[\"ok\"]");
+        dispatcher = newDispatcher(3000L, node);
+        assertEquals(3000L, dispatcher.getHedgeDelay());
+        for (long latency = 1; latency <= 100; latency++) {
+            ReflectionTestUtils.invokeMethod(dispatcher, "recordLatency", latency);
+        }
+        assertEquals(95L, dispatcher.getHedgeDelay());
+
+        ReflectionTestUtils.setField(dispatcher, "HEDGE_DELAY", 0L);
+        assertEquals(0L, dispatcher.getHedgeDelay());
+    }
+
+    @Test
+    public void rejectsWhenAllNodesAreBusy() throws Exception {
+        dispatcher = newDispatcher(0L, startNode(2, 429, 0L, null), startNode(1, 429, 0L, null));
+        try {
+            dispatcher.execute(request());
+            fail("expected rejection");
+        } catch (AdmissionRejectedException e) {
+            // 取最短的 Retry-After
+            assertEquals(6, e.getRetryAfterSeconds());
+        }
+    }
+
+    private DispatcherCodeSandbox newDispatcher(long hedgeDelay, FakeNode... nodes) throws InterruptedException {
+        List<String> urls = new ArrayList<>();
+        for (FakeNode node : nodes) {
+            urls.add(node.url);
+        }
+        DispatcherCodeSandbox codeSandbox = new DispatcherCodeSandbox();
+        ReflectionTestUtils.setField(codeSandbox, "ENABLED", true);
+        ReflectionTestUtils.setField(codeSandbox, "NODES", urls);
+        ReflectionTestUtils.setField(codeSandbox, "MAX_ATTEMPTS", 3);
+        ReflectionTestUtils.setField(codeSandbox, "HEDGE_DELAY", hedgeDelay);
+        ReflectionTestUtils.setField(codeSandbox, "HEDGE_PERCENTILE", 95.0);
+        ReflectionTestUtils.setField(codeSandbox, "REQUEST_TIMEOUT", 5000L);
+        ReflectionTestUtils.setField(codeSandbox, "CONNECT_TIMEOUT", 1000);
+        ReflectionTestUtils.setField(codeSandbox, "PROBE_INTERVAL", 60000L);
+        codeSandbox.init();
+        // 等待首次探测完成，第一个节点上报的空闲执行位最多
+        while (codeSandbox.getNodes().get(0).getReportedFreeSlots() != nodes[0].freeSlots) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return codeSandbox;
+    }
+
+    private FakeNode startNode(int freeSlots, int status, long delayMillis, String outputList) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        FakeNode node = new FakeNode("http://127.0.0.1:" + server.getAddress().getPort(), freeSlots);
+        server.createContext("/monitor/admission", exchange ->
+                reply(exchange, 200, "{\"limit\":" + freeSlots + ",\"running\":0,\"queued\":0}"));
+        server.createContext("/exec_code", exchange -> {
+            node.execCount.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (status == 429) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(5 + freeSlots));
+            }
+            reply(exchange, status, status == 200 ? "{\"outputList\":" + outputList + ",\"status\":0}" : "{}");
+        });
+        server.start();
+        servers.add(server);
+        return node;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static ExecuteCodeRequest request() {
+        return ExecuteCodeRequest.builder()
+                .code("public class Main {}")
+                .inputList(Arrays.asList("1 2", "3 4"))
+                .language("java")
+                .build();
+    }
+
+    private static class FakeNode {
+
+        private final String url;
+
+        private final int freeSlots;
+
+        private final AtomicInteger execCount = new AtomicInteger();
+
+        private FakeNode(String url, int freeSlots) {
+            this.url = url;
+            this.freeSlots = freeSlots;
+        }
+    }
+}
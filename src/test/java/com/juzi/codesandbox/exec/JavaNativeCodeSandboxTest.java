@@ -1,15 +1,22 @@
 package com.juzi.codesandbox.exec;
 
 
+import com.juzi.codesandbox.language.LanguageRegistry;
 import com.juzi.codesandbox.model.ExecuteCodeRequest;
 import com.juzi.codesandbox.model.ExecuteCodeResponse;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.annotation.Resource;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.juzi.codesandbox.model.CodeSandboxStatusEnum.FAILED;
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author codejuzi
@@ -24,6 +31,9 @@ public class JavaNativeCodeSandboxTest {
     @Resource
     JavaNativeAcmCodeSandbox javaNativeAcmCodeSandbox;
 
+    @Resource
+    LanguageRegistry languageRegistry;
+
     @Test
     public void nonInteractCode() {
         ExecuteCodeRequest request = ExecuteCodeRequest.builder()
@@ -58,4 +68,35 @@ public class JavaNativeCodeSandboxTest {
         ExecuteCodeResponse response = javaNativeAcmCodeSandbox.execute(request);
         System.out.println("response = " + response);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parallelFailureKeepsOutputsAligned() {
+        // 用例 3 出错时用例 1 仍在执行：等待用例 1 执行完，返回用例 0 ~ 3 的连续结果
+        Object testCaseExecutor = ReflectionTestUtils.getField(javaNativeAcmCodeSandbox, "testCaseExecutor");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ReflectionTestUtils.setField(javaNativeAcmCodeSandbox, "testCaseExecutor", executor);
+        ReflectionTestUtils.setField(languageRegistry, "NATIVE_ENABLED", true);
+        ReflectionTestUtils.setField(javaNativeAcmCodeSandbox, "PARALLEL_ENABLED", true);
+        try {
+            ExecuteCodeRequest request = ExecuteCodeRequest.builder()
+                    .language("python")
+                    .code("import time\n" +
+                            "n = int(input())\n" +
+                            "if n == 1:\n" +
+                            "    time.sleep(1.5)\n" +
+                            "if n == 3:\n" +
+                            "    raise SystemExit('case 3')\n" +
+                            "print(n)\n")
+                    .inputList(Arrays.asList("0", "1", "2", "3", "4", "5"))
+                    .build();
+            ExecuteCodeResponse response = javaNativeAcmCodeSandbox.execute(request);
+            assertEquals(FAILED.getValue(), response.getStatus());
+            assertEquals(Arrays.asList("0", "1", "2"), response.getOutputList());
+        } finally {
+            ReflectionTestUtils.setField(javaNativeAcmCodeSandbox, "PARALLEL_ENABLED", false);
+            ReflectionTestUtils.setField(languageRegistry, "NATIVE_ENABLED", false);
+            ReflectionTestUtils.setField(javaNativeAcmCodeSandbox, "testCaseExecutor", testCaseExecutor);
+            executor.shutdownNow();
+        }
+    }
+}
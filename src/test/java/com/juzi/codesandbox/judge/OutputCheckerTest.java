@@ -0,0 +1,187 @@
+package com.juzi.codesandbox.judge;
+
+import cn.hutool.core.util.HexUtil;
+import com.juzi.codesandbox.model.CaseResult;
+import com.juzi.codesandbox.model.ExecuteCodeRequest;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class OutputCheckerTest {
+
+    @Test
+    public void exactIgnoresLineEndingsAndTrailingNewlines() {
+        assertAccepted(exact("1\n2"), "1\r\n2\r\n\r\n");
+        assertAccepted(exact("1\n2\n"), "1\n2");
+        assertAccepted(exact(""), "\n");
+
+        CaseResult caseResult = streamByteByByte(exact("1\n2 3\n4"), "1\n2 4\n4\n");
+        assertEquals(CaseResult.WRONG_ANSWER, caseResult.getVerdict());
+        assertEquals(Long.valueOf(2), caseResult.getLine());
+        assertEquals("2 3", caseResult.getExpected());
+        assertEquals("2 4", caseResult.getActual());
+
+        caseResult = exact("1\n2").check("1\n2 4\n");
+        assertEquals("2", caseResult.getExpected());
+        assertEquals("2 4", caseResult.getActual());
+
+        // 实际输出多出一行
+        caseResult = exact("1").check("1\n\n5");
+        assertEquals(Long.valueOf(3), caseResult.getLine());
+        assertEquals("", caseResult.getExpected());
+        assertEquals("5", caseResult.getActual());
+
+        // 实际输出少一行、行提前结束
+        assertEquals(CaseResult.WRONG_ANSWER, exact("1\n2").check("1\n").getVerdict());
+        caseResult = exact("12").check("1\n2");
+        assertEquals("12", caseResult.getExpected());
+        assertEquals("1", caseResult.getActual());
+    }
+
+    @Test
+    public void mismatchStopsReading() {
+        OutputChecker checker = exact("1\n2");
+        byte[] output = "1\n3\n".getBytes(StandardCharsets.UTF_8);
+        assertFalse(checker.write(output, 0, output.length));
+        assertFalse(checker.write(output, 0, output.length));
+        assertEquals(CaseResult.WRONG_ANSWER, checker.finish().getVerdict());
+    }
+
+    @Test
+    public void whitespaceComparesTokens() {
+        OutputChecker checker = OutputChecker.create(request("whitespace", "1  2\n3"), 0);
+        assertAccepted(checker, " 1 2 \r\n 3 \n");
+
+        CaseResult caseResult = streamByteByByte(OutputChecker.create(request("whitespace", "1 2 3"), 0), "1\n2\n4 5");
+        assertEquals(Long.valueOf(3), caseResult.getLine());
+        assertEquals("3", caseResult.getExpected());
+        assertEquals("4", caseResult.getActual());
+
+        assertEquals("", OutputChecker.create(request("whitespace", "1"), 0).check("1 2").getExpected());
+        assertEquals("", OutputChecker.create(request("whitespace", "1 2"), 0).check("1").getActual());
+    }
+
+    @Test
+    public void floatComparesWithTolerance() {
+        assertAccepted(OutputChecker.create(request("float", "0.3 1e3 abc"), 0), "0.30000000000000004 1000.0000001 abc");
+        assertEquals(CaseResult.WRONG_ANSWER,
+                OutputChecker.create(request("float", "0.3"), 0).check("0.31").getVerdict());
+        assertEquals(CaseResult.WRONG_ANSWER,
+                OutputChecker.create(request("float", "1"), 0).check("NaN").getVerdict());
+
+        ExecuteCodeRequest request = request("float", "1");
+        request.setFloatTolerance(0.1);
+        assertAccepted(OutputChecker.create(request, 0), "1.05");
+    }
+
+    @Test
+    public void floatComparesLongNumbersByValue() {
+        // 期望单词很短、实际单词很长，数值相等时不能按长度提前判错
+        String longOne = "1.5" + repeat('0', 200) + "1";
+        assertAccepted(OutputChecker.create(request("float", "1.5 2"), 0), longOne + " 2");
+        assertAccepted(OutputChecker.create(request("float", "1.5"), 0), "1.5" + repeat('0', 200));
+        assertAccepted(OutputChecker.create(request("float", "100"), 0), "1" + repeat('0', 200) + "e-198");
+
+        CaseResult caseResult = streamByteByByte(OutputChecker.create(request("float", "1.5"), 0), "1.6" + repeat('0', 200));
+        assertEquals(CaseResult.WRONG_ANSWER, caseResult.getVerdict());
+        // 不是数值的长单词仍提前截断
+        caseResult = streamByteByByte(OutputChecker.create(request("float", "1.5"), 0), "1.5" + repeat('x', 200));
+        assertEquals(CaseResult.WRONG_ANSWER, caseResult.getVerdict());
+        assertEquals(CaseResult.WRONG_ANSWER,
+                streamByteByByte(OutputChecker.create(request("whitespace", "1.5"), 0), longOne).getVerdict());
+    }
+
+    @Test
+    public void hashComparesNormalizedOutput() throws NoSuchAlgorithmException {
+        ExecuteCodeRequest request = ExecuteCodeRequest.builder()
+                .inputList(Collections.singletonList(""))
+                .expectedOutputHashList(Collections.singletonList(sha256("1\n2")))
+                .build();
+        assertAccepted(OutputChecker.create(request, 0), "1\r\n2\n\n");
+
+        CaseResult caseResult = OutputChecker.create(request, 0).check("1\n3");
+        assertEquals(CaseResult.WRONG_ANSWER, caseResult.getVerdict());
+        assertNull(caseResult.getLine());
+        assertEquals(sha256("1\n3"), caseResult.getActual());
+
+        request.setCompareMode("whitespace");
+        request.setExpectedOutputHashList(Collections.singletonList(sha256("1 2 3")));
+        assertAccepted(OutputChecker.create(request, 0), " 1\n2  3\n");
+    }
+
+    @Test
+    public void validateRequest() {
+        OutputChecker.validate(ExecuteCodeRequest.builder().inputList(Collections.singletonList("")).build());
+        assertNull(OutputChecker.create(ExecuteCodeRequest.builder().build(), 0));
+
+        ExecuteCodeRequest request = request("exact", "1");
+        request.setInputList(Arrays.asList("", ""));
+        assertInvalid(request, "Expected output size 1 does not match input size 2");
+
+        assertInvalid(request("regex", "1"), "Unsupported compare mode: regex, supported: [exact, whitespace, float]");
+
+        request = request("float", null);
+        request.setExpectedOutputHashList(Collections.singletonList("00"));
+        assertInvalid(request, "Compare mode float does not support expected output hashes");
+    }
+
+    private static OutputChecker exact(String expected) {
+        return OutputChecker.create(request(null, expected), 0);
+    }
+
+    private static ExecuteCodeRequest request(String compareMode, String expected) {
+        return ExecuteCodeRequest.builder()
+                .inputList(Collections.singletonList(""))
+                .expectedOutputList(expected == null ? null : Collections.singletonList(expected))
+                .compareMode(compareMode)
+                .build();
+    }
+
+    private static void assertAccepted(OutputChecker checker, String output) {
+        assertEquals(CaseResult.ACCEPTED, streamByteByByte(checker, output).getVerdict());
+    }
+
+    /**
+     * 逐字节写入，覆盖 \r\n、单词跨越读取缓冲区的情况
+     */
+    private static CaseResult streamByteByByte(OutputChecker checker, String output) {
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            if (!checker.write(bytes, i, 1)) {
+                break;
+            }
+        }
+        return checker.finish();
+    }
+
+    private static void assertInvalid(ExecuteCodeRequest request, String message) {
+        try {
+            OutputChecker.validate(request);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static String sha256(String text) throws NoSuchAlgorithmException {
+        return HexUtil.encodeHexStr(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.juzi.codesandbox.language;
+
+import com.juzi.codesandbox.model.CompileDiagnostic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class LanguageRegistryTest {
+
+    private final JavaLanguage java = new JavaLanguage();
+
+    private final CppLanguage cpp = new CppLanguage();
+
+    private final PythonLanguage python = new PythonLanguage();
+
+    private LanguageRegistry registry;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        // 探测命令换成 true，不依赖本机的编译器、解释器
+        ReflectionTestUtils.setField(cpp, "COMPILER", "true");
+        ReflectionTestUtils.setField(cpp, "PRECOMPILED_HEADER_ENABLED", false);
+        ReflectionTestUtils.setField(python, "COMMAND", "true");
+        ReflectionTestUtils.setField(python, "WARM_POOL_SIZE", 0);
+        registry = new LanguageRegistry();
+        ReflectionTestUtils.setField(registry, "languageStrategies", Arrays.asList(java, cpp, python));
+        ReflectionTestUtils.setField(registry, "NATIVE_ENABLED", true);
+        registry.init();
+        // 等待后台预热结束
+        ExecutorService warmUpExecutor = (ExecutorService) ReflectionTestUtils.getField(registry, "warmUpExecutor");
+        warmUpExecutor.shutdown();
+        assertTrue(warmUpExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    public void resolveByNameAndAlias() {
+        assertSame(java, registry.resolve(null));
+        assertSame(java, registry.resolve(" "));
+        assertSame(cpp, registry.resolve("C++"));
+        assertSame(cpp, registry.resolve("cpp"));
+        assertSame(python, registry.resolve("py"));
+        try {
+            registry.resolve("rust");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unsupported language: rust", e.getMessage());
+        }
+    }
+
+    @Test
+    public void unavailableLanguageIsRejected() {
+        ReflectionTestUtils.setField(python, "available", false);
+        try {
+            registry.resolve("python");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Language python is not available", e.getMessage());
+        }
+    }
+
+    @Test
+    public void nativeLanguagesAreDisabledByDefault() {
+        ReflectionTestUtils.setField(registry, "NATIVE_ENABLED", false);
+        assertSame(java, registry.resolve("java"));
+        try {
+            registry.resolve("c++");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Language cpp is disabled, set oj.sandbox.language.native.enabled to run it on the host",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void runCommandAppliesIsolationAndLimits() {
+        ReflectionTestUtils.setField(cpp, "ISOLATION_COMMAND", Arrays.asList("unshare", "--net", "--pid", "--fork",
+                "--mount-proc", "--", "setpriv", "--reuid={uid}", "--regid={uid}", "--clear-groups", "--"));
+        ReflectionTestUtils.setField(cpp, "MAX_PROCESSES", 64L);
+        ReflectionTestUtils.setField(cpp, "MAX_FILE_SIZE", 1024L);
+        ReflectionTestUtils.setField(cpp, "MAX_OPEN_FILES", 0L);
+        ReflectionTestUtils.setField(cpp, "MEMORY_LIMIT", 268435456L);
+        assertEquals(Arrays.asList("unshare", "--net", "--pid", "--fork", "--mount-proc", "--",
+                "setpriv", "--reuid=60001", "--regid=60001", "--clear-groups", "--",
+                "prlimit", "--as=268435456", "--nproc=64", "--fsize=1024", "--", "./main"),
+                cpp.buildRunCommand(true, 60001, "./main"));
+    }
+
+    @Test
+    public void parseCompilerDiagnostics() {
+        List<CompileDiagnostic> diagnostics = AbstractLanguageStrategy.parseDiagnostics(
+                "main.cpp: In function 'int main()':\n"
+                        + "main.cpp:3:12: error: 'x' was not declared in this scope\n"
+                        + "main.cpp:2:5: warning: unused variable 'y' [-Wunused-variable]\n"
+                        + "./main.go:4:2: undefined: foo\n");
+        assertEquals(3, diagnostics.size());
+        assertEquals("ERROR", diagnostics.get(0).getKind());
+        assertEquals(Long.valueOf(3), diagnostics.get(0).getLine());
+        assertEquals(Long.valueOf(12), diagnostics.get(0).getColumn());
+        assertEquals("'x' was not declared in this scope", diagnostics.get(0).getMessage());
+        assertEquals("WARNING", diagnostics.get(1).getKind());
+        assertEquals("ERROR", diagnostics.get(2).getKind());
+        assertEquals("undefined: foo", diagnostics.get(2).getMessage());
+
+        // 无法解析时整段作为一条诊断
+        diagnostics = AbstractLanguageStrategy.parseDiagnostics("collect2: error: ld returned 1 exit status");
+        assertEquals(1, diagnostics.size());
+        assertEquals(Long.valueOf(-1), diagnostics.get(0).getLine());
+    }
+}
@@ -0,0 +1,43 @@
+package com.juzi.codesandbox.language;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class RunUserPoolTest {
+
+    private RunUserPool runUserPool;
+
+    @Before
+    public void setUp() {
+        runUserPool = new RunUserPool();
+        ReflectionTestUtils.setField(runUserPool, "UID_START", 60000);
+        ReflectionTestUtils.setField(runUserPool, "UID_COUNT", 3);
+    }
+
+    @Test
+    public void acquireRotatesThroughRange() {
+        assertEquals(60000, runUserPool.acquire());
+        assertEquals(60001, runUserPool.acquire());
+        runUserPool.release(60000);
+        // 刚归还的用户ID不会立即复用
+        assertEquals(60002, runUserPool.acquire());
+        assertEquals(60000, runUserPool.acquire());
+        assertEquals(3, runUserPool.getInUseCount());
+        try {
+            runUserPool.acquire();
+            fail("expected exhaustion");
+        } catch (IllegalStateException e) {
+            assertEquals("No free run uid in [60000, 60003)", e.getMessage());
+        }
+        runUserPool.release(60001);
+        runUserPool.release(59999);
+        assertEquals(60001, runUserPool.acquire());
+    }
+}
@@ -0,0 +1,76 @@
+package com.juzi.codesandbox.metrics;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import com.juzi.codesandbox.runner.RunnerMain;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.OUTPUT_LIMIT_EXCEEDED;
+import static com.juzi.codesandbox.constants.CodeSandboxConstants.TIME_OUT_MESSAGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author codejuzi
+ */
+public class SandboxMetricsTest {
+
+    private MeterRegistry meterRegistry;
+
+    private SandboxMetrics sandboxMetrics;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sandboxMetrics = new SandboxMetrics();
+        ReflectionTestUtils.setField(sandboxMetrics, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    public void recordsStageOutcome() {
+        try (SandboxMetrics.Stage stage = sandboxMetrics.stage("JavaNativeCodeSandbox", "compileCode")) {
+            stage.success();
+        }
+        try (SandboxMetrics.Stage ignored = sandboxMetrics.stage("JavaNativeCodeSandbox", "compileCode")) {
+            // 未调用 success，记为失败
+        }
+        assertEquals(1, meterRegistry.get(SandboxMetrics.STAGE_TIMER)
+                .tags("stage", "compileCode", "outcome", SandboxMetrics.OUTCOME_SUCCESS).timer().count());
+        assertEquals(1, meterRegistry.get(SandboxMetrics.STAGE_TIMER)
+                .tags("stage", "compileCode", "outcome", SandboxMetrics.OUTCOME_ERROR).timer().count());
+    }
+
+    @Test
+    public void recordsCasesAndFirstError() {
+        sandboxMetrics.recordCases("JavaNativeCodeSandbox", Arrays.asList(
+                message(null, 20L), message(TIME_OUT_MESSAGE, 10000L), message("Exception in thread", 5L)));
+        assertEquals(1, meterRegistry.get(SandboxMetrics.CASE_TIMER)
+                .tag("outcome", SandboxMetrics.OUTCOME_SUCCESS).timer().count());
+        assertEquals(10000.0, meterRegistry.get(SandboxMetrics.CASE_TIMER)
+                .tag("outcome", SandboxMetrics.ERROR_TIMEOUT).timer().totalTime(TimeUnit.MILLISECONDS), 0.0);
+        assertEquals(1.0, meterRegistry.get(SandboxMetrics.ERROR_COUNTER)
+                .tag("type", SandboxMetrics.ERROR_TIMEOUT).counter().count(), 0.0);
+        assertNull(meterRegistry.find(SandboxMetrics.ERROR_COUNTER)
+                .tag("type", SandboxMetrics.ERROR_RUNTIME).counter());
+    }
+
+    @Test
+    public void runnerUsesSameErrorMessages() {
+        // 执行器只依赖 JDK，单独定义的错误信息需与沙箱常量一致，超时才能计入 timeout
+        assertEquals(TIME_OUT_MESSAGE, RunnerMain.TIME_OUT_MESSAGE);
+        assertEquals(OUTPUT_LIMIT_EXCEEDED, RunnerMain.OUTPUT_LIMIT_EXCEEDED);
+    }
+
+    private static ExecuteMessage message(String errorMessage, Long time) {
+        ExecuteMessage executeMessage = new ExecuteMessage();
+        executeMessage.setErrorMessage(errorMessage);
+        executeMessage.setTime(time);
+        return executeMessage;
+    }
+}
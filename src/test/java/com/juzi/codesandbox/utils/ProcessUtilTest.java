@@ -0,0 +1,89 @@
+package com.juzi.codesandbox.utils;
+
+import com.juzi.codesandbox.model.ExecuteMessage;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author codejuzi
+ */
+public class ProcessUtilTest {
+
+    @Test
+    public void awaitExitTimesOutAndWaits() throws Exception {
+        Process process = new ProcessBuilder("sleep", "10").start();
+        try {
+            assertFalse(ProcessUtil.awaitExit(process, 100));
+            process.destroyForcibly();
+            assertTrue(ProcessUtil.awaitExit(process, Long.MAX_VALUE));
+        } finally {
+            process.destroyForcibly();
+        }
+
+        process = new ProcessBuilder("sh", "-c", "exit 3").start();
+        assertTrue(ProcessUtil.awaitExit(process, 10_000));
+        assertEquals(3, process.exitValue());
+    }
+
+    @Test
+    public void destroyTreeKillsGrandchildren() throws Exception {
+        // 子进程在后台启动孙进程并输出其 PID，只杀掉子进程时孙进程会继续运行
+        Process process = new ProcessBuilder("sh", "-c", "sleep 30 & echo $!; wait").start();
+        try {
+            String pid = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+            File grandchild = new File("/proc/" + pid.trim());
+            assertTrue(grandchild.exists());
+            ProcessUtil.destroyTree(process);
+            assertTrue(ProcessUtil.awaitExit(process, 10_000));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (grandchild.exists() && System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertFalse(grandchild.exists());
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    public void interactReturnsWhenGrandchildKeepsPipeOpen() throws Exception {
+        // 孙进程继承了 stdout，进程退出后输出流不会关闭
+        Process process = new ProcessBuilder("sh", "-c", "sleep 5 & echo hi").start();
+        long start = System.currentTimeMillis();
+        ExecuteMessage executeMessage = ProcessUtil.getInteractProcessMessage(process, "");
+        assertTrue(System.currentTimeMillis() - start < 4_000);
+        assertEquals(Integer.valueOf(0), executeMessage.getExitValue());
+        assertEquals("hi", executeMessage.getMessage());
+    }
+
+    @Test
+    public void drainRunsOnReplacedExecutor() throws Exception {
+        AtomicInteger drainCount = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            drainCount.incrementAndGet();
+            return new Thread(r);
+        });
+        ExecutorService previous = ProcessUtil.useDrainExecutor(executor);
+        try {
+            Process process = new ProcessBuilder("sh", "-c", "echo hi").start();
+            ExecuteMessage executeMessage = ProcessUtil.getRunProcessMessage("Drain", process);
+            assertEquals("hi", executeMessage.getMessage());
+            // stdout、stderr 各一个读取任务
+            assertEquals(2, drainCount.get());
+        } finally {
+            ProcessUtil.useDrainExecutor(previous);
+            executor.shutdownNow();
+        }
+    }
+}
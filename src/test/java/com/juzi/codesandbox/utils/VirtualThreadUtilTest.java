@@ -0,0 +1,120 @@
+package com.juzi.codesandbox.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class VirtualThreadUtilTest {
+
+    @Test
+    public void supportedOnlyFromJdk21() {
+        assertFalse(VirtualThreadUtil.isSupportedVersion("1.8"));
+        assertFalse(VirtualThreadUtil.isSupportedVersion("17"));
+        // 19、20 中虚拟线程是预览特性
+        assertFalse(VirtualThreadUtil.isSupportedVersion("19"));
+        assertFalse(VirtualThreadUtil.isSupportedVersion("20"));
+        assertTrue(VirtualThreadUtil.isSupportedVersion("21"));
+        assertTrue(VirtualThreadUtil.isSupportedVersion("25"));
+        assertFalse(VirtualThreadUtil.isSupportedVersion(null));
+    }
+
+    @Test
+    public void unsupportedJdkFailsFast() {
+        if (VirtualThreadUtil.isSupported()) {
+            return;
+        }
+        try {
+            VirtualThreadUtil.newThreadFactory("test_thread_");
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Virtual threads require JDK 21+"));
+        }
+    }
+
+    @Test
+    public void boundedExecutorRejectsOverLimit() throws Exception {
+        ExecutorService executor = new VirtualThreadUtil.BoundedExecutor(Executors.newCachedThreadPool(), 1, false);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<?> future = executor.submit(() -> {
+                release.await();
+                return null;
+            });
+            try {
+                executor.submit(() -> null);
+                fail();
+            } catch (RejectedExecutionException e) {
+                assertEquals("Executor is full, max concurrent: 1", e.getMessage());
+            }
+            release.countDown();
+            future.get(10, TimeUnit.SECONDS);
+            // 任务结束后归还许可
+            executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void boundedExecutorQueuesOverLimit() throws Exception {
+        ExecutorService executor = new VirtualThreadUtil.BoundedExecutor(Executors.newCachedThreadPool(), 2, true);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void executorRunsOnVirtualThreadsAndRejectsOverLimit() throws Exception {
+        if (!VirtualThreadUtil.isSupported()) {
+            return;
+        }
+        ExecutorService executor = VirtualThreadUtil.newExecutor("test_thread_", 1, false);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Boolean> future = executor.submit(() -> {
+                release.await();
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            });
+            try {
+                executor.submit(() -> null);
+                fail();
+            } catch (RejectedExecutionException e) {
+                // 同时执行的任务数达到上限
+            }
+            release.countDown();
+            assertEquals(Boolean.TRUE, future.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.juzi.codesandbox.workspace;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author codejuzi
+ */
+public class WorkspaceManagerTest {
+
+    private File root;
+
+    private WorkspaceManager manager;
+
+    @Before
+    public void setUp() {
+        root = FileUtil.mkdir(new File(System.getProperty("java.io.tmpdir"), "workspace-test-" + System.nanoTime()));
+        manager = new WorkspaceManager();
+        ReflectionTestUtils.setField(manager, "ROOT", root.getAbsolutePath());
+        ReflectionTestUtils.setField(manager, "QUOTA", 100L);
+        ReflectionTestUtils.setField(manager, "MAX_SIZE", 60L);
+        ReflectionTestUtils.setField(manager, "MAX_IDLE", 1);
+        manager.init();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtil.del(root);
+    }
+
+    @Test
+    public void releasedDirectoryIsCleanedAndReused() {
+        Workspace first = manager.acquire();
+        File file = first.putFile("Main.java", new byte[10]);
+        assertTrue(file.exists());
+        assertEquals(10, manager.getUsedBytes());
+
+        manager.release(first);
+        manager.release(first);
+        assertFalse(file.exists());
+        assertEquals(0, manager.getUsedBytes());
+        assertEquals(0, manager.getActiveCount());
+
+        Workspace second = manager.acquire();
+        assertEquals(first.getDir(), second.getDir());
+        assertEquals(1, manager.getReusedCount());
+
+        // 空闲队列已满时直接删除
+        Workspace third = manager.acquire();
+        manager.release(second);
+        manager.release(third);
+        assertEquals(1, manager.getIdleCount());
+        assertFalse(third.getDir().exists());
+    }
+
+    @Test
+    public void writesAreLimitedByQuota() {
+        Workspace first = manager.acquire();
+        first.putFile("Main.java", new byte[50]);
+        assertQuotaExceeded(first, 20, "Workspace size limit exceeded");
+
+        Workspace second = manager.acquire();
+        second.putFile("Main.java", new byte[40]);
+        assertQuotaExceeded(second, 20, "Workspace quota exceeded");
+
+        manager.release(first);
+        second.putFile("Main.class", new byte[20]);
+        assertEquals(60, manager.getUsedBytes());
+    }
+
+    private void assertQuotaExceeded(Workspace workspace, int size, String message) {
+        try {
+            workspace.putFile("Main.class", new byte[size]);
+            fail("expected quota exceeded");
+        } catch (IllegalStateException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}